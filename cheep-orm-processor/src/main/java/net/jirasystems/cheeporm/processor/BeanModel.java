@@ -0,0 +1,292 @@
+package net.jirasystems.cheeporm.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+/**
+ * Compile-time description of a <code>@Table</code> bean class: the equivalent of
+ * <code>net.jirasystems.cheeporm.EntityMetadata</code>, built from the source elements with the
+ * same naming rules as <code>net.jirasystems.cheeporm.Reflection</code>.
+ * 
+ * @author David Carboni
+ * 
+ */
+class BeanModel {
+
+	static final String TABLE = "javax.persistence.Table";
+	static final String COLUMN = "javax.persistence.Column";
+	static final String ID = "javax.persistence.Id";
+
+	private static final Pattern capitals = Pattern.compile("[A-Z]");
+
+	String packageName;
+	String beanClass;
+	String mapperName;
+	String table;
+	boolean defaultConstructor;
+	List<ColumnModel> all = new ArrayList<ColumnModel>();
+	List<ColumnModel> keys = new ArrayList<ColumnModel>();
+	List<ColumnModel> fields = new ArrayList<ColumnModel>();
+	List<ColumnModel> insertKeys = new ArrayList<ColumnModel>();
+	List<ColumnModel> insertFields = new ArrayList<ColumnModel>();
+	List<ColumnModel> updateFields = new ArrayList<ColumnModel>();
+
+	/**
+	 * Builds the model for a bean class.
+	 * 
+	 * @param type
+	 *            The class annotated with <code>@Table</code>.
+	 * @param elements
+	 *            Element utilities.
+	 * @return The model.
+	 * @throws IllegalArgumentException
+	 *             If a mapper can't be generated for this class. The message gives the reason.
+	 */
+	static BeanModel build(TypeElement type, Elements elements) {
+
+		BeanModel bean = new BeanModel();
+		bean.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+		bean.beanClass = type.getQualifiedName().toString();
+		bean.mapperName = mapperName(type);
+		bean.table = table(type);
+
+		checkAccessible(type, bean.packageName, elements);
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			throw new IllegalArgumentException("the class is abstract");
+		}
+		bean.defaultConstructor = hasDefaultConstructor(type);
+		if (!bean.defaultConstructor) {
+			throw new IllegalArgumentException("there is no accessible default constructor");
+		}
+
+		// Same ordering as Reflection.getAllFields: declared fields, then up the hierarchy:
+		TypeElement hierarchyClass = type;
+		while (hierarchyClass != null && !Object.class.getName().equals(hierarchyClass.getQualifiedName().toString())) {
+			for (VariableElement field : ElementFilter.fieldsIn(hierarchyClass.getEnclosedElements())) {
+				AnnotationMirror column = annotation(field, COLUMN);
+				if (column != null) {
+					bean.add(column(field, hierarchyClass, column, bean.packageName, elements));
+				}
+			}
+			hierarchyClass = superclass(hierarchyClass);
+		}
+
+		return bean;
+	}
+
+	private void add(ColumnModel column) {
+		all.add(column);
+		if (column.id) {
+			keys.add(column);
+			if (column.insertable) {
+				insertKeys.add(column);
+			}
+		} else {
+			fields.add(column);
+			if (column.insertable) {
+				insertFields.add(column);
+			}
+			if (column.updatable) {
+				updateFields.add(column);
+			}
+		}
+	}
+
+	private static ColumnModel column(VariableElement field, TypeElement declaringClass, AnnotationMirror column,
+			String packageName, Elements elements) {
+
+		ColumnModel result = new ColumnModel();
+		result.fieldName = field.getSimpleName().toString();
+		result.declaringClass = declaringClass.getQualifiedName().toString();
+
+		TypeMirror type = field.asType();
+		TypeElement typeElement = null;
+		if (type.getKind().isPrimitive()) {
+			result.type = type.toString();
+			result.primitive = true;
+		} else if (type.getKind() == TypeKind.DECLARED) {
+			typeElement = (TypeElement) ((DeclaredType) type).asElement();
+			result.type = typeElement.getQualifiedName().toString();
+			result.enumeration = typeElement.getKind() == ElementKind.ENUM;
+		} else {
+			throw new IllegalArgumentException("field " + result.fieldName + " is not an Object or primitive type");
+		}
+		if (!result.isMappable()) {
+			throw new IllegalArgumentException("field " + result.fieldName + " has un-mapped type " + result.type);
+		}
+		if (result.enumeration) {
+			checkAccessible(typeElement, packageName, elements);
+		}
+
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements
+				.getElementValuesWithDefaults(column);
+		String name = (String) value(values, "name");
+		result.columnName = name.length() > 0 ? name : camelCaseToDatabase(result.fieldName);
+		result.insertable = ((Boolean) value(values, "insertable")).booleanValue();
+		result.updatable = ((Boolean) value(values, "updatable")).booleanValue();
+		result.id = annotation(field, ID) != null;
+
+		// Direct access is possible from the bean package, unless the field is private:
+		Set<Modifier> modifiers = field.getModifiers();
+		String declaringPackage = elements.getPackageOf(declaringClass).getQualifiedName().toString();
+		result.directRead = !modifiers.contains(Modifier.PRIVATE)
+				&& (modifiers.contains(Modifier.PUBLIC) || declaringPackage.equals(packageName));
+		result.directWrite = result.directRead && !modifiers.contains(Modifier.FINAL);
+		if (!result.directRead) {
+			checkAccessible(declaringClass, packageName, elements);
+		}
+
+		return result;
+	}
+
+	private static Object value(Map<? extends ExecutableElement, ? extends AnnotationValue> values, String name) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		throw new IllegalArgumentException("annotation value " + name + " not found");
+	}
+
+	/**
+	 * @param element
+	 *            An element.
+	 * @param annotationType
+	 *            The qualified name of an annotation type.
+	 * @return The annotation, or null if the element isn't annotated with it.
+	 */
+	static AnnotationMirror annotation(Element element, String annotationType) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			TypeElement annotationElement = (TypeElement) annotation.getAnnotationType().asElement();
+			if (annotationElement.getQualifiedName().contentEquals(annotationType)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private static String table(TypeElement type) {
+		AnnotationMirror table = annotation(type, TABLE);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : table.getElementValues()
+				.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals("name")) {
+				String name = (String) entry.getValue().getValue();
+				if (name.length() > 0) {
+					return name;
+				}
+			}
+		}
+		return camelCaseToDatabase(type.getSimpleName().toString());
+	}
+
+	/**
+	 * Flattens nested class names, so <code>Outer.Inner</code> gives
+	 * <code>Outer_Inner_CompiledMapper</code>.
+	 */
+	private static String mapperName(TypeElement type) {
+		String name = type.getSimpleName().toString();
+		Element enclosing = type.getEnclosingElement();
+		while (enclosing instanceof TypeElement) {
+			name = enclosing.getSimpleName() + "_" + name;
+			enclosing = enclosing.getEnclosingElement();
+		}
+		return name + "_CompiledMapper";
+	}
+
+	/**
+	 * Checks that a class can be referenced from generated code in the given package.
+	 */
+	private static void checkAccessible(TypeElement type, String packageName, Elements elements) {
+		boolean samePackage = elements.getPackageOf(type).getQualifiedName().contentEquals(packageName);
+		Element element = type;
+		while (element instanceof TypeElement) {
+			TypeElement typeElement = (TypeElement) element;
+			Set<Modifier> modifiers = typeElement.getModifiers();
+			if (modifiers.contains(Modifier.PRIVATE) || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+				throw new IllegalArgumentException(typeElement.getQualifiedName() + " is not accessible");
+			}
+			if (typeElement.getNestingKind() == NestingKind.MEMBER
+					&& !typeElement.getModifiers().contains(Modifier.STATIC)
+					&& typeElement.getKind() == ElementKind.CLASS) {
+				throw new IllegalArgumentException(typeElement.getQualifiedName() + " is an inner class");
+			}
+			element = element.getEnclosingElement();
+		}
+		if (!(element instanceof PackageElement)) {
+			throw new IllegalArgumentException(type.getQualifiedName() + " is a local class");
+		}
+	}
+
+	private static boolean hasDefaultConstructor(TypeElement type) {
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty()) {
+				return !constructor.getModifiers().contains(Modifier.PRIVATE);
+			}
+		}
+		return false;
+	}
+
+	private static TypeElement superclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return (TypeElement) ((DeclaredType) superclass).asElement();
+	}
+
+	/**
+	 * Same as <code>Reflection.camelCaseToDatabase</code>.
+	 * 
+	 * @param camelCase
+	 *            A class or field name.
+	 * @return The database identifier.
+	 */
+	static String camelCaseToDatabase(String camelCase) {
+
+		String identifier = "";
+		if (camelCase.length() > 0) {
+			identifier += camelCase.substring(0, 1).toLowerCase();
+		}
+		if (camelCase.length() > 1) {
+			identifier += camelCase.substring(1);
+		}
+
+		Matcher matcher = capitals.matcher(identifier);
+		StringBuilder databaseName = new StringBuilder();
+		int start = 0;
+		while (matcher.find()) {
+			if (databaseName.length() > 0) {
+				databaseName.append("_");
+			}
+			int end = matcher.start();
+			databaseName.append(identifier.substring(start, end).toLowerCase());
+			start = end;
+		}
+		if (databaseName.length() > 0) {
+			databaseName.append("_");
+		}
+		databaseName.append(identifier.substring(start).toLowerCase());
+
+		return databaseName.toString();
+	}
+}
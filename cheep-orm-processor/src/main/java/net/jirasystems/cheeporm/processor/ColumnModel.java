@@ -0,0 +1,116 @@
+package net.jirasystems.cheeporm.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compile-time description of a mapped field: the equivalent of
+ * <code>net.jirasystems.cheeporm.ColumnMetadata</code>, worked out from the source rather than by
+ * reflection.
+ * 
+ * @author David Carboni
+ * 
+ */
+class ColumnModel {
+
+	/**
+	 * The {@link java.sql.Types} constant used for null parameters, by field type. This mirrors
+	 * <code>SqlType.toSqlMap</code>.
+	 */
+	private static final Map<String, String> nullTypes = new HashMap<String, String>();
+
+	/**
+	 * The expression used to read each field type from a ResultSet, where <code>%d</code> is the
+	 * column index. Wrapper types use <code>ResultSetReaders</code> so that SQL NULL is preserved.
+	 */
+	private static final Map<String, String> reads = new HashMap<String, String>();
+
+	static {
+		type(String.class, "NVARCHAR", "resultSet.getString(%d)");
+		type(Character.class, "CHAR", "ResultSetReaders.getCharacter(resultSet, %d)");
+		type(java.math.BigDecimal.class, "DECIMAL", "resultSet.getBigDecimal(%d)");
+		type(Boolean.class, "BIT", "ResultSetReaders.getBoolean(resultSet, %d)");
+		type(Byte.class, "TINYINT", "ResultSetReaders.getByte(resultSet, %d)");
+		type(Short.class, "SMALLINT", "ResultSetReaders.getShort(resultSet, %d)");
+		type(Integer.class, "INTEGER", "ResultSetReaders.getInteger(resultSet, %d)");
+		type(Long.class, "BIGINT", "ResultSetReaders.getLong(resultSet, %d)");
+		type(Float.class, "REAL", "ResultSetReaders.getFloat(resultSet, %d)");
+		type(Double.class, "DOUBLE", "ResultSetReaders.getDouble(resultSet, %d)");
+		type(java.sql.Date.class, "DATE", "resultSet.getDate(%d)");
+		type(java.sql.Time.class, "TIME", "resultSet.getTime(%d)");
+		type(java.sql.Timestamp.class, "TIMESTAMP", "resultSet.getTimestamp(%d)");
+		// Primitives can't be null, so the plain getters (which return zero for SQL NULL) will do:
+		type(boolean.class, "BIT", "resultSet.getBoolean(%d)");
+		type(byte.class, "TINYINT", "resultSet.getByte(%d)");
+		type(short.class, "SMALLINT", "resultSet.getShort(%d)");
+		type(int.class, "INTEGER", "resultSet.getInt(%d)");
+		type(long.class, "BIGINT", "resultSet.getLong(%d)");
+		type(float.class, "REAL", "resultSet.getFloat(%d)");
+		type(double.class, "DOUBLE", "resultSet.getDouble(%d)");
+		type(char.class, "CHAR", "ResultSetReaders.getChar(resultSet, %d)");
+	}
+
+	private static void type(Class<?> type, String nullType, String read) {
+		nullTypes.put(type.getName(), nullType);
+		reads.put(type.getName(), read);
+	}
+
+	String fieldName;
+	String declaringClass;
+	String type;
+	String columnName;
+	boolean id;
+	boolean insertable;
+	boolean updatable;
+	boolean enumeration;
+	boolean primitive;
+	boolean directRead;
+	boolean directWrite;
+
+	/**
+	 * @return true if the type of this field can be mapped.
+	 */
+	boolean isMappable() {
+		return enumeration || nullTypes.containsKey(type);
+	}
+
+	/**
+	 * @return The {@link java.sql.Types} constant name for null parameters.
+	 */
+	String getNullType() {
+		return enumeration ? "VARCHAR" : nullTypes.get(type);
+	}
+
+	/**
+	 * @return true if the value is stored as a String (as per <code>ColumnMetadata.toParameter</code>).
+	 */
+	boolean isStoredAsString() {
+		return enumeration || Character.class.getName().equals(type) || char.class.getName().equals(type);
+	}
+
+	/**
+	 * @param value
+	 *            An expression for the (primitive) field value.
+	 * @return A statement that binds the value to the next parameter of a PreparedStatement called
+	 *         <code>preparedStatement</code>, without boxing.
+	 */
+	String getPrimitiveBind(String value) {
+		if (char.class.getName().equals(type)) {
+			return "preparedStatement.setString(++index, String.valueOf(" + value + "));";
+		}
+		String setter = "set" + Character.toUpperCase(type.charAt(0)) + type.substring(1);
+		return "preparedStatement." + setter + "(++index, " + value + ");";
+	}
+
+	/**
+	 * @param index
+	 *            The ResultSet column index.
+	 * @return An expression that reads this column from a ResultSet called <code>resultSet</code>.
+	 */
+	String getRead(int index) {
+		if (enumeration) {
+			return "ResultSetReaders.getEnum(resultSet, " + index + ", " + type + ".class)";
+		}
+		return String.format(reads.get(type), Integer.valueOf(index));
+	}
+}
@@ -0,0 +1,315 @@
+package net.jirasystems.cheeporm.processor;
+
+import java.util.List;
+
+/**
+ * Renders the source of a <code>CompiledMapper</code> for a {@link BeanModel}. The SQL is built
+ * with the same rules as <code>net.jirasystems.cheeporm.Sql</code>, except that selects list their
+ * columns explicitly, so that rows can be mapped by position.
+ * 
+ * @author David Carboni
+ * 
+ */
+class MapperWriter {
+
+	private final BeanModel bean;
+	private final StringBuilder source = new StringBuilder();
+
+	/**
+	 * @param bean
+	 *            The bean to write a mapper for.
+	 */
+	MapperWriter(BeanModel bean) {
+		this.bean = bean;
+	}
+
+	/**
+	 * @return The qualified name of the mapper class.
+	 */
+	String getQualifiedName() {
+		return bean.packageName.length() == 0 ? bean.mapperName : bean.packageName + "." + bean.mapperName;
+	}
+
+	/**
+	 * @return The Java source of the mapper class.
+	 */
+	String write() {
+
+		if (bean.packageName.length() > 0) {
+			line(0, "package " + bean.packageName + ";");
+			line(0, "");
+		}
+		line(0, "import java.lang.invoke.MethodHandle;");
+		line(0, "import java.sql.PreparedStatement;");
+		line(0, "import java.sql.ResultSet;");
+		line(0, "import java.sql.SQLException;");
+		line(0, "");
+		line(0, "import net.jirasystems.cheeporm.CompiledMapper;");
+		line(0, "import net.jirasystems.cheeporm.CompiledMapperSupport;");
+		line(0, "import net.jirasystems.cheeporm.ResultSetReaders;");
+		line(0, "");
+		line(0, "/**");
+		line(0, " * {@link CompiledMapper} for {@link " + bean.beanClass + "}.");
+		line(0, " * <p>");
+		line(0, " * Generated by " + TableProcessor.class.getName() + ". Do not edit.");
+		line(0, " */");
+		line(0, "public final class " + bean.mapperName + " implements CompiledMapper<" + bean.beanClass + "> {");
+		line(0, "");
+
+		writeConstants();
+		writeHandles();
+		writeGetBeanClass();
+		writeInsert();
+		writeSql("getSelectSql", "SELECT");
+		writeSql("getUpdateSql", "UPDATE");
+		writeSetUpdateParameters();
+		writeSql("getDeleteSql", "DELETE");
+		writeSetKeyParameters();
+		writeMapRow();
+
+		line(0, "}");
+		return source.toString();
+	}
+
+	private void writeConstants() {
+
+		line(1, "private static final String INSERT = " + literal(insert(bean.insertFields, null)) + ";");
+		if (!bean.insertKeys.isEmpty()) {
+			line(1, "private static final String INSERT_KEYS = " + literal(insert(bean.insertFields, bean.insertKeys))
+					+ ";");
+		}
+		String select = "select " + list(bean.all, "") + " from " + bean.table;
+		if (!bean.keys.isEmpty()) {
+			select += " where " + where();
+		}
+		line(1, "private static final String SELECT = " + literal(select) + ";");
+		String update = null;
+		if (!bean.updateFields.isEmpty()) {
+			update = "update " + bean.table + " set " + list(bean.updateFields, "=?");
+			if (!bean.keys.isEmpty()) {
+				update += " where " + where();
+			}
+		}
+		line(1, "private static final String UPDATE = " + literal(update) + ";");
+		line(1, "private static final String DELETE = " + literal("delete from " + bean.table + " where " + where())
+				+ ";");
+		line(0, "");
+	}
+
+	private void writeHandles() {
+
+		boolean written = false;
+		for (int i = 0; i < bean.all.size(); i++) {
+			ColumnModel column = bean.all.get(i);
+			if (!column.directRead) {
+				line(1, "private static final MethodHandle GET_" + i + " = CompiledMapperSupport.getter("
+						+ column.declaringClass + ".class, \"" + column.fieldName + "\");");
+				written = true;
+			}
+			if (!column.directWrite) {
+				line(1, "private static final MethodHandle SET_" + i + " = CompiledMapperSupport.setter("
+						+ column.declaringClass + ".class, \"" + column.fieldName + "\");");
+				written = true;
+			}
+		}
+		if (written) {
+			line(0, "");
+		}
+	}
+
+	private void writeGetBeanClass() {
+
+		line(1, "@Override");
+		line(1, "public Class<" + bean.beanClass + "> getBeanClass() {");
+		line(2, "return " + bean.beanClass + ".class;");
+		line(1, "}");
+		line(0, "");
+	}
+
+	private void writeInsert() {
+
+		// Null keys are left out of the insert, so there's a statement for no keys and one for all keys:
+		line(1, "@Override");
+		line(1, "public String getInsertSql(" + bean.beanClass + " bean) {");
+		if (bean.insertKeys.isEmpty()) {
+			line(2, "return INSERT;");
+		} else {
+			line(2, "if (" + keyCondition("==", " && ") + ") {");
+			line(3, "return INSERT;");
+			line(2, "}");
+			line(2, "if (" + keyCondition("!=", " && ") + ") {");
+			line(3, "return INSERT_KEYS;");
+			line(2, "}");
+			line(2, "return null;");
+		}
+		line(1, "}");
+		line(0, "");
+
+		line(1, "@Override");
+		line(1, "public int setInsertParameters(PreparedStatement preparedStatement, " + bean.beanClass
+				+ " bean) throws SQLException {");
+		line(2, "int index = 0;");
+		for (ColumnModel column : bean.insertFields) {
+			line(2, setParameter(column));
+		}
+		if (!bean.insertKeys.isEmpty()) {
+			line(2, "if (" + keyCondition("!=", " && ") + ") {");
+			for (ColumnModel column : bean.insertKeys) {
+				line(3, setParameter(column));
+			}
+			line(2, "}");
+		}
+		line(2, "return index;");
+		line(1, "}");
+		line(0, "");
+	}
+
+	private void writeSetUpdateParameters() {
+
+		line(1, "@Override");
+		line(1, "public int setUpdateParameters(PreparedStatement preparedStatement, " + bean.beanClass
+				+ " bean) throws SQLException {");
+		line(2, "int index = 0;");
+		for (ColumnModel column : bean.updateFields) {
+			line(2, setParameter(column));
+		}
+		for (ColumnModel column : bean.keys) {
+			line(2, setParameter(column));
+		}
+		line(2, "return index;");
+		line(1, "}");
+		line(0, "");
+	}
+
+	private void writeSetKeyParameters() {
+
+		line(1, "@Override");
+		line(1, "public int setKeyParameters(PreparedStatement preparedStatement, " + bean.beanClass
+				+ " bean) throws SQLException {");
+		line(2, "int index = 0;");
+		for (ColumnModel column : bean.keys) {
+			line(2, setParameter(column));
+		}
+		line(2, "return index;");
+		line(1, "}");
+		line(0, "");
+	}
+
+	private void writeMapRow() {
+
+		line(1, "@Override");
+		line(1, "public " + bean.beanClass + " mapRow(ResultSet resultSet) throws SQLException {");
+		line(2, bean.beanClass + " bean = new " + bean.beanClass + "();");
+		for (int i = 0; i < bean.all.size(); i++) {
+			ColumnModel column = bean.all.get(i);
+			String read = column.getRead(i + 1);
+			if (column.directWrite) {
+				line(2, "bean." + column.fieldName + " = " + read + ";");
+			} else {
+				line(2, "CompiledMapperSupport.set(SET_" + i + ", bean, " + read + ");");
+			}
+		}
+		line(2, "return bean;");
+		line(1, "}");
+	}
+
+	private void writeSql(String method, String constant) {
+
+		line(1, "@Override");
+		line(1, "public String " + method + "() {");
+		line(2, "return " + constant + ";");
+		line(1, "}");
+		line(0, "");
+	}
+
+	private String setParameter(ColumnModel column) {
+		String value = value(column);
+		if (column.primitive && column.directRead) {
+			return column.getPrimitiveBind(value);
+		}
+		if (column.isStoredAsString()) {
+			value = "CompiledMapperSupport.toString(" + value + ")";
+		}
+		return "CompiledMapperSupport.setParameter(preparedStatement, ++index, " + value + ", java.sql.Types."
+				+ column.getNullType() + ");";
+	}
+
+	private String value(ColumnModel column) {
+		if (column.directRead) {
+			return "bean." + column.fieldName;
+		}
+		return "CompiledMapperSupport.get(GET_" + bean.all.indexOf(column) + ", bean)";
+	}
+
+	private String keyCondition(String operator, String join) {
+		StringBuilder condition = new StringBuilder();
+		for (ColumnModel key : bean.insertKeys) {
+			if (condition.length() > 0) {
+				condition.append(join);
+			}
+			if (key.primitive) {
+				// A primitive key is never null:
+				condition.append("!=".equals(operator));
+			} else {
+				condition.append(value(key)).append(" ").append(operator).append(" null");
+			}
+		}
+		return condition.toString();
+	}
+
+	private String insert(List<ColumnModel> fields, List<ColumnModel> keys) {
+		StringBuilder columns = new StringBuilder(list(fields, ""));
+		StringBuilder placeholders = new StringBuilder();
+		int count = fields.size();
+		if (keys != null) {
+			if (columns.length() > 0 && !keys.isEmpty()) {
+				columns.append(", ");
+			}
+			columns.append(list(keys, ""));
+			count += keys.size();
+		}
+		for (int i = 0; i < count; i++) {
+			if (placeholders.length() > 0) {
+				placeholders.append(", ");
+			}
+			placeholders.append("?");
+		}
+		return "insert into " + bean.table + " (" + columns + ") values (" + placeholders + ")";
+	}
+
+	private String where() {
+		StringBuilder where = new StringBuilder();
+		for (ColumnModel key : bean.keys) {
+			if (where.length() > 0) {
+				where.append(" and ");
+			}
+			where.append(key.columnName).append("=?");
+		}
+		return where.toString();
+	}
+
+	private static String list(List<ColumnModel> columns, String suffix) {
+		StringBuilder list = new StringBuilder();
+		for (ColumnModel column : columns) {
+			if (list.length() > 0) {
+				list.append(", ");
+			}
+			list.append(column.columnName).append(suffix);
+		}
+		return list.toString();
+	}
+
+	private static String literal(String value) {
+		if (value == null) {
+			return "null";
+		}
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private void line(int indent, String line) {
+		for (int i = 0; i < indent; i++) {
+			source.append('\t');
+		}
+		source.append(line).append('\n');
+	}
+}
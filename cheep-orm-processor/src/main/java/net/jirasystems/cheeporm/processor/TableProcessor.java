@@ -0,0 +1,139 @@
+package net.jirasystems.cheeporm.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates a <code>net.jirasystems.cheeporm.CompiledMapper</code> for
+ * each class annotated with <code>javax.persistence.Table</code>, and registers them in
+ * <code>META-INF/services</code> so that <code>Orm</code> can find them with a
+ * {@link java.util.ServiceLoader}.
+ * <p>
+ * Classes that can't be mapped at compile time (e.g. abstract classes, classes without an
+ * accessible default constructor, or with fields of un-mapped types) are skipped with a note, and
+ * continue to be handled by reflection at runtime.
+ * 
+ * @author David Carboni
+ * 
+ */
+@SupportedAnnotationTypes(BeanModel.TABLE)
+public class TableProcessor extends AbstractProcessor {
+
+	static final String SERVICE_FILE = "META-INF/services/net.jirasystems.cheeporm.CompiledMapper";
+
+	private final Set<String> mappers = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+		if (roundEnv.processingOver()) {
+			if (!mappers.isEmpty()) {
+				writeServiceFile();
+			}
+			return false;
+		}
+
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.CLASS) {
+					generate((TypeElement) element);
+				}
+			}
+		}
+
+		// Leave the annotation for other processors:
+		return false;
+	}
+
+	private void generate(TypeElement type) {
+
+		BeanModel bean;
+		try {
+			bean = BeanModel.build(type, processingEnv.getElementUtils());
+		} catch (IllegalArgumentException e) {
+			processingEnv.getMessager().printMessage(Kind.NOTE,
+					"No compiled mapper for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+			return;
+		}
+
+		MapperWriter writer = new MapperWriter(bean);
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.getQualifiedName(), type);
+			Writer out = file.openWriter();
+			try {
+				out.write(writer.write());
+			} finally {
+				out.close();
+			}
+			mappers.add(writer.getQualifiedName());
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Unable to write compiled mapper for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+		}
+	}
+
+	/**
+	 * Writes the service file, keeping any entries from a previous (e.g. incremental) compilation.
+	 */
+	private void writeServiceFile() {
+
+		Charset utf8 = Charset.forName("UTF-8");
+		Set<String> entries = new TreeSet<String>(mappers);
+		try {
+			FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+					SERVICE_FILE);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), utf8));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.trim().length() > 0) {
+						entries.add(line.trim());
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			// No existing file
+		}
+
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+					SERVICE_FILE);
+			Writer out = file.openWriter();
+			try {
+				for (String entry : entries) {
+					out.write(entry);
+					out.write('\n');
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Unable to write " + SERVICE_FILE + ": " + e.getMessage());
+		}
+	}
+}
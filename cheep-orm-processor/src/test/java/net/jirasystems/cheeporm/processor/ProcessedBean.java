@@ -0,0 +1,103 @@
+package net.jirasystems.cheeporm.processor;
+
+import java.sql.Timestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Bean for {@link TableProcessorTest}, with a mix of private and package-private fields.
+ * 
+ * @author David Carboni
+ * 
+ */
+@Table
+public class ProcessedBean {
+
+	/**
+	 * An enum column.
+	 */
+	public static enum Status {
+		a, b, c;
+	}
+
+	@Id
+	@Column
+	private Integer id;
+
+	@Column(name = "display_name")
+	String name;
+
+	@Column
+	private Status status;
+
+	@Column
+	private Character initial;
+
+	@Column(updatable = false)
+	private Timestamp created;
+
+	@Column(insertable = false)
+	Long version;
+
+	/**
+	 * @return the id
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * @param id
+	 *            the id to set
+	 */
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @param status
+	 *            the status to set
+	 */
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	/**
+	 * @return the initial
+	 */
+	public Character getInitial() {
+		return initial;
+	}
+
+	/**
+	 * @param initial
+	 *            the initial to set
+	 */
+	public void setInitial(Character initial) {
+		this.initial = initial;
+	}
+
+	/**
+	 * @return the created
+	 */
+	public Timestamp getCreated() {
+		return created;
+	}
+
+	/**
+	 * @param created
+	 *            the created to set
+	 */
+	public void setCreated(Timestamp created) {
+		this.created = created;
+	}
+}
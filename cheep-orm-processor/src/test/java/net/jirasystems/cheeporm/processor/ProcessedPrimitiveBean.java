@@ -0,0 +1,43 @@
+package net.jirasystems.cheeporm.processor;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Bean for {@link TableProcessorTest}, with primitive fields.
+ * 
+ * @author David Carboni
+ * 
+ */
+@Table
+public class ProcessedPrimitiveBean {
+
+	@Id
+	@Column
+	int code;
+
+	@Column
+	double ratio;
+
+	@Column
+	char flag;
+
+	@Column
+	private long total;
+
+	/**
+	 * @return the total
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @param total
+	 *            the total to set
+	 */
+	public void setTotal(long total) {
+		this.total = total;
+	}
+}
@@ -0,0 +1,24 @@
+package net.jirasystems.cheeporm.processor;
+
+import javax.persistence.Column;
+import javax.persistence.Table;
+
+/**
+ * Bean for {@link TableProcessorTest}, which inherits mapped fields.
+ * 
+ * @author David Carboni
+ * 
+ */
+@Table(name = "subclass")
+public class ProcessedSubclass extends ProcessedSuperclass {
+
+	@Column
+	private String description;
+
+	/**
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+}
@@ -0,0 +1,34 @@
+package net.jirasystems.cheeporm.processor;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+/**
+ * Superclass for {@link ProcessedSubclass}, with private mapped fields.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class ProcessedSuperclass {
+
+	@Id
+	@Column
+	private Integer id;
+
+	@Column
+	private String name;
+
+	/**
+	 * @return the id
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+}
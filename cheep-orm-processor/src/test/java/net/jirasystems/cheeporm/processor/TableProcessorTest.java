@@ -0,0 +1,264 @@
+package net.jirasystems.cheeporm.processor;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import net.jirasystems.cheeporm.ColumnMetadata;
+import net.jirasystems.cheeporm.CompiledMapper;
+import net.jirasystems.cheeporm.CompiledMappers;
+import net.jirasystems.cheeporm.EntityMetadata;
+import net.jirasystems.cheeporm.Orm;
+import net.jirasystems.cheeporm.Sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link TableProcessor}, which runs on the test beans in this package when they are
+ * compiled.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class TableProcessorTest {
+
+	private Sql sql = new Sql();
+	private EntityMetadata<ProcessedBean> metadata = EntityMetadata.of(ProcessedBean.class);
+	private CompiledMapper<ProcessedBean> mapper = CompiledMappers.get(ProcessedBean.class);
+
+	/**
+	 * Verifies that the generated mapper is found through the service file.
+	 */
+	@Test
+	public void shouldRegisterMapper() {
+
+		// Then
+		Assert.assertNotNull(mapper);
+		Assert.assertEquals(ProcessedBean.class, mapper.getBeanClass());
+		Assert.assertEquals("ProcessedBean_CompiledMapper", mapper.getClass().getSimpleName());
+	}
+
+	/**
+	 * Verifies that no mapper is generated for a bean with an un-mapped field type.
+	 */
+	@Test
+	public void shouldSkipUnmappableBean() {
+
+		// Then
+		Assert.assertNull(CompiledMappers.get(UnmappedBean.class));
+	}
+
+	/**
+	 * Verifies that the generated SQL matches the SQL built by {@link Sql} at runtime.
+	 */
+	@Test
+	public void shouldMatchRuntimeSql() {
+
+		// Given
+		String table = metadata.getTable();
+		ProcessedBean bean = new ProcessedBean();
+		ProcessedBean keyed = new ProcessedBean();
+		keyed.setId(Integer.valueOf(1));
+
+		// Then
+		Assert.assertEquals(sql.insert(table, metadata.getInsertFields()), mapper.getInsertSql(bean));
+		Assert.assertEquals(sql.insert(table, concat(metadata.getInsertFields(), metadata.getInsertKeys())),
+				mapper.getInsertSql(keyed));
+		Assert.assertEquals(sql.update(table, metadata.getUpdateFields(), metadata.getKeys()), mapper.getUpdateSql());
+		Assert.assertEquals(sql.delete(table, metadata.getKeys()), mapper.getDeleteSql());
+		Assert.assertEquals("select id, display_name, status, initial, created, version from processed_bean where id=?",
+				mapper.getSelectSql());
+	}
+
+	/**
+	 * Verifies that parameters are set, converted and typed as {@link net.jirasystems.cheeporm.Jdbc}
+	 * would.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldSetParameters() throws SQLException {
+
+		// Given
+		ProcessedBean bean = new ProcessedBean();
+		bean.setId(Integer.valueOf(3));
+		bean.name = "name";
+		bean.setStatus(ProcessedBean.Status.b);
+		bean.setInitial(Character.valueOf('x'));
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+		// When
+		int count = mapper.setUpdateParameters(preparedStatement, bean);
+
+		// Then
+		Assert.assertEquals(5, count);
+		verify(preparedStatement).setObject(1, "name");
+		verify(preparedStatement).setObject(2, "b");
+		verify(preparedStatement).setObject(3, "x");
+		verify(preparedStatement).setNull(4, Types.BIGINT);
+		verify(preparedStatement).setObject(5, Integer.valueOf(3));
+	}
+
+	/**
+	 * Verifies that primitive fields are bound with typed setters, and that a primitive key is
+	 * always inserted.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldSetPrimitiveParameters() throws SQLException {
+
+		// Given
+		CompiledMapper<ProcessedPrimitiveBean> primitiveMapper = CompiledMappers.get(ProcessedPrimitiveBean.class);
+		ProcessedPrimitiveBean bean = new ProcessedPrimitiveBean();
+		bean.code = 3;
+		bean.ratio = 0.5D;
+		bean.flag = 'x';
+		bean.setTotal(9L);
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+		// When
+		int count = primitiveMapper.setInsertParameters(preparedStatement, bean);
+
+		// Then
+		Assert.assertEquals(4, count);
+		Assert.assertEquals("insert into processed_primitive_bean (ratio, flag, total, code) values (?, ?, ?, ?)",
+				primitiveMapper.getInsertSql(bean));
+		verify(preparedStatement).setDouble(1, 0.5D);
+		verify(preparedStatement).setString(2, "x");
+		verify(preparedStatement).setObject(3, Long.valueOf(9L));
+		verify(preparedStatement).setInt(4, 3);
+	}
+
+	/**
+	 * Verifies that primitive fields are mapped from a row.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapPrimitiveRow() throws SQLException {
+
+		// Given
+		CompiledMapper<ProcessedPrimitiveBean> primitiveMapper = CompiledMappers.get(ProcessedPrimitiveBean.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(1))).thenReturn(Integer.valueOf(7));
+		when(Double.valueOf(resultSet.getDouble(2))).thenReturn(Double.valueOf(1.5D));
+		when(resultSet.getString(3)).thenReturn("y");
+		when(Long.valueOf(resultSet.getLong(4))).thenReturn(Long.valueOf(11L));
+
+		// When
+		ProcessedPrimitiveBean bean = primitiveMapper.mapRow(resultSet);
+
+		// Then
+		Assert.assertEquals(7, bean.code);
+		Assert.assertEquals(1.5D, bean.ratio, 0D);
+		Assert.assertEquals('y', bean.flag);
+		Assert.assertEquals(11L, bean.getTotal());
+	}
+
+	/**
+	 * Verifies that a row is mapped by position.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapRow() throws SQLException {
+
+		// Given
+		Timestamp created = new Timestamp(System.currentTimeMillis());
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(1))).thenReturn(Integer.valueOf(7));
+		when(resultSet.getString(2)).thenReturn("name");
+		when(resultSet.getString(3)).thenReturn("c");
+		when(resultSet.getString(4)).thenReturn("y");
+		when(resultSet.getTimestamp(5)).thenReturn(created);
+		when(Long.valueOf(resultSet.getLong(6))).thenReturn(Long.valueOf(2));
+
+		// When
+		ProcessedBean bean = mapper.mapRow(resultSet);
+
+		// Then
+		Assert.assertEquals(Integer.valueOf(7), bean.getId());
+		Assert.assertEquals("name", bean.name);
+		Assert.assertEquals(ProcessedBean.Status.c, bean.getStatus());
+		Assert.assertEquals(Character.valueOf('y'), bean.getInitial());
+		Assert.assertEquals(created, bean.getCreated());
+		Assert.assertEquals(Long.valueOf(2), bean.version);
+	}
+
+	/**
+	 * Verifies that private fields inherited from a superclass are mapped.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapInheritedFields() throws SQLException {
+
+		// Given
+		CompiledMapper<ProcessedSubclass> subclassMapper = CompiledMappers.get(ProcessedSubclass.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.getString(1)).thenReturn("description");
+		when(Integer.valueOf(resultSet.getInt(2))).thenReturn(Integer.valueOf(5));
+		when(resultSet.getString(3)).thenReturn("name");
+
+		// When
+		ProcessedSubclass bean = subclassMapper.mapRow(resultSet);
+
+		// Then
+		Assert.assertEquals("select description, id, name from subclass where id=?", subclassMapper.getSelectSql());
+		Assert.assertEquals("description", bean.getDescription());
+		Assert.assertEquals(Integer.valueOf(5), bean.getId());
+		Assert.assertEquals("name", bean.getName());
+	}
+
+	/**
+	 * Verifies that {@link Orm} uses the compiled mapper.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldBeUsedByOrm() throws SQLException {
+
+		// Given
+		Connection connection = mock(Connection.class);
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+		when(preparedStatement.getResultSet()).thenReturn(resultSet);
+		when(Boolean.valueOf(resultSet.next())).thenReturn(Boolean.TRUE, Boolean.FALSE);
+		when(resultSet.getString(2)).thenReturn("read");
+		Orm<ProcessedBean> orm = new Orm<ProcessedBean>(connection);
+		ProcessedBean bean = new ProcessedBean();
+		bean.setId(Integer.valueOf(9));
+
+		// When
+		ProcessedBean read = orm.read(bean);
+
+		// Then
+		verify(connection).prepareStatement(mapper.getSelectSql());
+		verify(preparedStatement).setObject(1, Integer.valueOf(9));
+		Assert.assertEquals("read", read.name);
+	}
+
+	private static ColumnMetadata[] concat(ColumnMetadata[] first, ColumnMetadata[] second) {
+		ColumnMetadata[] result = new ColumnMetadata[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+}
@@ -0,0 +1,22 @@
+package net.jirasystems.cheeporm.processor;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Bean for {@link TableProcessorTest}, with a field type that can't be mapped.
+ * 
+ * @author David Carboni
+ * 
+ */
+@Table
+public class UnmappedBean {
+
+	@Id
+	@Column
+	Integer id;
+
+	@Column
+	Object value;
+}
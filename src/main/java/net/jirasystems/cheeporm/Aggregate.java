@@ -0,0 +1,61 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * The SQL aggregate functions available through
+ * {@link Orm#aggregate(Object, Aggregate, java.lang.reflect.Field)}, together with the way each
+ * result is read:
+ * <ul>
+ * <li>{@link #COUNT}: a {@link Long} - the number of non-null values.</li>
+ * <li>{@link #SUM} and {@link #AVG}: a {@link java.math.BigDecimal}, whatever the column type, or
+ * null if there are no values.</li>
+ * <li>{@link #MIN} and {@link #MAX}: the declared type of the field, or null if there are no
+ * values.</li>
+ * </ul>
+ * 
+ * @author David Carboni
+ * 
+ */
+public enum Aggregate {
+
+	COUNT,
+	SUM,
+	AVG,
+	MIN,
+	MAX;
+
+	/**
+	 * @return the name of the SQL function
+	 */
+	public String getFunction() {
+		return name().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Reads the result of this function from the first column of the current row.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param column
+	 *            The column that was aggregated.
+	 * @return The result.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	Object read(ResultSet resultSet, ColumnMetadata column) throws SQLException {
+
+		switch (this) {
+		case COUNT:
+			return Long.valueOf(resultSet.getLong(1));
+		case SUM:
+		case AVG:
+			return resultSet.getBigDecimal(1);
+		default:
+			// The column's reader returns null for SQL NULL (no rows):
+			return column.read(resultSet, 1);
+		}
+	}
+}
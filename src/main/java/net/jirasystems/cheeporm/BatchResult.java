@@ -0,0 +1,129 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a batch operation, such as {@link Orm#createAll(Iterable, int)}: the beans, in
+ * the order they were given, each with the update count reported by the driver for its row.
+ * <p>
+ * Batch updates and deletes don't fail when a bean affects other than exactly one row, so
+ * {@link #getMissed()} and {@link #getMultiple()} list the beans that need attention.
+ * <p>
+ * Update counts are as returned by {@link Statement#executeBatch()}, so a driver may report
+ * {@link Statement#SUCCESS_NO_INFO} for rows that succeeded without a count.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean type.
+ */
+public final class BatchResult<B> {
+
+	private final List<B> beans;
+	private final int[] updateCounts;
+
+	/**
+	 * @param beans
+	 *            The beans, in the order they were given.
+	 * @param updateCounts
+	 *            The update count for each bean.
+	 */
+	BatchResult(List<B> beans, int[] updateCounts) {
+		this.beans = Collections.unmodifiableList(beans);
+		this.updateCounts = updateCounts;
+	}
+
+	/**
+	 * @return The number of beans in the batch.
+	 */
+	public int size() {
+		return beans.size();
+	}
+
+	/**
+	 * @return The beans, in the order they were given.
+	 */
+	public List<B> getBeans() {
+		return beans;
+	}
+
+	/**
+	 * @param index
+	 *            The position of the bean in the batch.
+	 * @return The update count for the bean.
+	 */
+	public int getUpdateCount(int index) {
+		if (index < 0 || index >= updateCounts.length) {
+			throw new IndexOutOfBoundsException("Index " + index + ", size " + updateCounts.length);
+		}
+		return updateCounts[index];
+	}
+
+	/**
+	 * @return A copy of the update counts, in the same order as {@link #getBeans()}.
+	 */
+	public int[] getUpdateCounts() {
+		return updateCounts.clone();
+	}
+
+	/**
+	 * @return The sum of the update counts that are known, i.e. excluding
+	 *         {@link Statement#SUCCESS_NO_INFO}.
+	 */
+	public int getTotal() {
+		int total = 0;
+		for (int updateCount : updateCounts) {
+			if (updateCount > 0) {
+				total += updateCount;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return The beans whose update count was 0, e.g. because their row no longer exists.
+	 */
+	public List<B> getMissed() {
+		List<B> result = new ArrayList<B>();
+		for (int i = 0; i < updateCounts.length; i++) {
+			if (updateCounts[i] == 0) {
+				result.add(beans.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The beans whose update count was more than 1, e.g. because their key isn't unique.
+	 */
+	public List<B> getMultiple() {
+		List<B> result = new ArrayList<B>();
+		for (int i = 0; i < updateCounts.length; i++) {
+			if (updateCounts[i] > 1) {
+				result.add(beans.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return true if every bean affected exactly one row. Update counts of
+	 *         {@link Statement#SUCCESS_NO_INFO} are not treated as exact.
+	 */
+	public boolean isExact() {
+		for (int updateCount : updateCounts) {
+			if (updateCount != 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult: " + beans.size() + " beans, " + getTotal() + " rows";
+	}
+}
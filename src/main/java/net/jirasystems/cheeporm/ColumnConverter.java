@@ -0,0 +1,570 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Reads a column value from a {@link ResultSet} and binds a field value to a
+ * {@link PreparedStatement}, using the typed JDBC getter and setter for the field type (e.g.
+ * {@link ResultSet#getInt(int)} and {@link PreparedStatement#setInt(int, int)}), rather than
+ * {@link ResultSet#getObject(int)} followed by {@link Jdbc#doJdbcStandardConversions(Class, Object)}.
+ * <p>
+ * A converter is chosen once for each {@link ColumnMetadata}, from its field type, by
+ * {@link #forType(Class, Map)}. Types without a specialised converter go through
+ * {@link ResultSet#getObject(int)} and {@link PreparedStatement#setObject(int, Object)}, as before.
+ * <p>
+ * {@link #read(ResultSet, int)} and {@link #bind(PreparedStatement, int, Object)} pass values as
+ * Objects, so primitive values are boxed. Primitive fields get a {@link PrimitiveConverter}, which
+ * {@link ColumnMetadata} uses to avoid that.
+ * 
+ * @author David Carboni
+ * 
+ */
+public abstract class ColumnConverter {
+
+	/**
+	 * Reads a value.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}, positioned on a row.
+	 * @param index
+	 *            The column index.
+	 * @return The value, of the field type, or null if the column is SQL NULL.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public abstract Object read(ResultSet resultSet, int index) throws SQLException;
+
+	/**
+	 * Binds a value.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement}.
+	 * @param index
+	 *            The parameter index.
+	 * @param value
+	 *            The (non-null) field value.
+	 * @throws SQLException
+	 *             If the value can't be set.
+	 */
+	public abstract void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException;
+
+	/**
+	 * Chooses a converter for a field type.
+	 * 
+	 * @param type
+	 *            The field type.
+	 * @param enumValues
+	 *            For an enum type, a lookup of enum constants by String value (see
+	 *            {@link ColumnMetadata}), otherwise null.
+	 * @return A converter for the type.
+	 */
+	public static ColumnConverter forType(Class<?> type, Map<String, Object> enumValues) {
+
+		if (enumValues != null) {
+			return new EnumConverter(type, enumValues);
+		}
+		ColumnConverter converter = TYPED.get(type);
+		if (converter != null) {
+			return converter;
+		}
+		return new ObjectConverter(type);
+	}
+
+	private static final Map<Class<?>, ColumnConverter> TYPED = new java.util.HashMap<Class<?>, ColumnConverter>();
+
+	static {
+		TYPED.put(String.class, new StringConverter());
+		TYPED.put(Integer.class, new IntegerConverter());
+		TYPED.put(Long.class, new LongConverter());
+		TYPED.put(Short.class, new ShortConverter());
+		TYPED.put(Byte.class, new ByteConverter());
+		TYPED.put(Double.class, new DoubleConverter());
+		TYPED.put(Float.class, new FloatConverter());
+		TYPED.put(Boolean.class, new BooleanConverter());
+		TYPED.put(Character.class, new CharacterConverter());
+		TYPED.put(BigDecimal.class, new BigDecimalConverter());
+		TYPED.put(java.sql.Date.class, new DateConverter());
+		TYPED.put(java.sql.Time.class, new TimeConverter());
+		TYPED.put(Timestamp.class, new TimestampConverter());
+
+		// Primitive fields can also be read and bound without boxing (see PrimitiveConverter). SQL
+		// NULL is read as zero (or false) by the typed getters:
+		TYPED.put(int.class, new IntPrimitiveConverter());
+		TYPED.put(long.class, new LongPrimitiveConverter());
+		TYPED.put(short.class, new ShortPrimitiveConverter());
+		TYPED.put(byte.class, new BytePrimitiveConverter());
+		TYPED.put(double.class, new DoublePrimitiveConverter());
+		TYPED.put(float.class, new FloatPrimitiveConverter());
+		TYPED.put(boolean.class, new BooleanPrimitiveConverter());
+		TYPED.put(char.class, new CharPrimitiveConverter());
+	}
+
+	/**
+	 * A converter for a primitive field type. As well as the boxed {@link #read(ResultSet, int)} and
+	 * {@link #bind(PreparedStatement, int, Object)}, it can move a value straight between the JDBC
+	 * typed getter or setter and the bean field, through a {@link MethodHandle} typed to the
+	 * primitive (e.g. <code>(Object, int)void</code>), so the value is never boxed. See
+	 * {@link ColumnMetadata#readInto(ResultSet, int, Object)} and
+	 * {@link ColumnMetadata#bindFrom(PreparedStatement, int, Object)}.
+	 */
+	abstract static class PrimitiveConverter extends ColumnConverter {
+
+		/**
+		 * Reads a value into a bean field.
+		 * 
+		 * @param resultSet
+		 *            The {@link ResultSet}, positioned on a row.
+		 * @param index
+		 *            The column index.
+		 * @param bean
+		 *            The bean.
+		 * @param setter
+		 *            A field setter of type <code>(Object, primitive)void</code>.
+		 * @throws Throwable
+		 *             If the value can't be read or set.
+		 */
+		abstract void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable;
+
+		/**
+		 * Binds the value of a bean field.
+		 * 
+		 * @param preparedStatement
+		 *            The {@link PreparedStatement}.
+		 * @param index
+		 *            The parameter index.
+		 * @param bean
+		 *            The bean.
+		 * @param getter
+		 *            A field getter of type <code>(Object)primitive</code>.
+		 * @throws Throwable
+		 *             If the value can't be read or bound.
+		 */
+		abstract void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable;
+	}
+
+	private static final class StringConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return resultSet.getString(index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setString(index, (String) value);
+		}
+	}
+
+	private static final class IntegerConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getInteger(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setInt(index, ((Integer) value).intValue());
+		}
+	}
+
+	private static final class LongConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getLong(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setLong(index, ((Long) value).longValue());
+		}
+	}
+
+	private static final class ShortConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getShort(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setShort(index, ((Short) value).shortValue());
+		}
+	}
+
+	private static final class ByteConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getByte(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setByte(index, ((Byte) value).byteValue());
+		}
+	}
+
+	private static final class DoubleConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getDouble(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setDouble(index, ((Double) value).doubleValue());
+		}
+	}
+
+	private static final class FloatConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getFloat(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setFloat(index, ((Float) value).floatValue());
+		}
+	}
+
+	private static final class BooleanConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getBoolean(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setBoolean(index, ((Boolean) value).booleanValue());
+		}
+	}
+
+	private static final class CharacterConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getCharacter(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			// Characters are stored as Strings:
+			preparedStatement.setString(index, value.toString());
+		}
+	}
+
+	private static final class BigDecimalConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return resultSet.getBigDecimal(index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setBigDecimal(index, (BigDecimal) value);
+		}
+	}
+
+	private static final class DateConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return resultSet.getDate(index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setDate(index, (java.sql.Date) value);
+		}
+	}
+
+	private static final class TimeConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return resultSet.getTime(index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setTime(index, (java.sql.Time) value);
+		}
+	}
+
+	private static final class TimestampConverter extends ColumnConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			// Unlike getObject, this doesn't return LocalDateTime from Connector/J 8:
+			return resultSet.getTimestamp(index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setTimestamp(index, (Timestamp) value);
+		}
+	}
+
+	private static final class IntPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getInteger(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setInt(index, ((Integer) value).intValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getInt(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setInt(index, (int) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class LongPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getLong(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setLong(index, ((Long) value).longValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getLong(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setLong(index, (long) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class ShortPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getShort(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setShort(index, ((Short) value).shortValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getShort(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setShort(index, (short) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class BytePrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getByte(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setByte(index, ((Byte) value).byteValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getByte(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setByte(index, (byte) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class DoublePrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getDouble(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setDouble(index, ((Double) value).doubleValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getDouble(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setDouble(index, (double) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class FloatPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getFloat(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setFloat(index, ((Float) value).floatValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getFloat(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setFloat(index, (float) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class BooleanPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getBoolean(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setBoolean(index, ((Boolean) value).booleanValue());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, resultSet.getBoolean(index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setBoolean(index, (boolean) getter.invokeExact(bean));
+		}
+	}
+
+	private static final class CharPrimitiveConverter extends PrimitiveConverter {
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return ResultSetReaders.getCharacter(resultSet, index);
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			// Characters are stored as Strings:
+			preparedStatement.setString(index, value.toString());
+		}
+
+		@Override
+		void readInto(ResultSet resultSet, int index, Object bean, MethodHandle setter) throws Throwable {
+			setter.invokeExact(bean, ResultSetReaders.getChar(resultSet, index));
+		}
+
+		@Override
+		void bindFrom(PreparedStatement preparedStatement, int index, Object bean, MethodHandle getter)
+				throws Throwable {
+			preparedStatement.setString(index, String.valueOf((char) getter.invokeExact(bean)));
+		}
+	}
+
+	/**
+	 * Enums are stored as Strings, and looked up by {@link Enum#name()} or {@link Enum#toString()}.
+	 */
+	private static final class EnumConverter extends ColumnConverter {
+
+		private final Class<?> type;
+		private final Map<String, Object> enumValues;
+
+		EnumConverter(Class<?> type, Map<String, Object> enumValues) {
+			this.type = type;
+			this.enumValues = enumValues;
+		}
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			String value = resultSet.getString(index);
+			if (value == null) {
+				return null;
+			}
+			Object enumValue = enumValues.get(value);
+			if (enumValue == null) {
+				throw new IllegalArgumentException("Unable to set field of type " + type.getSimpleName()
+						+ " with value " + value);
+			}
+			return enumValue;
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setString(index, value.toString());
+		}
+	}
+
+	/**
+	 * Fallback for types without a typed getter and setter.
+	 */
+	private static final class ObjectConverter extends ColumnConverter {
+
+		private final Class<?> type;
+
+		ObjectConverter(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Object read(ResultSet resultSet, int index) throws SQLException {
+			return Jdbc.doJdbcStandardConversions(type, resultSet.getObject(index));
+		}
+
+		@Override
+		public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+			preparedStatement.setObject(index, value);
+		}
+	}
+}
@@ -0,0 +1,428 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+/**
+ * Immutable description of a single mapped bean field. Everything that would otherwise be worked
+ * out from the {@link Column} and {@link Id} annotations on each call (column name, key status,
+ * insertable/updatable flags and the SQL type used for null parameters) is computed once when the
+ * instance is constructed.
+ * <p>
+ * Field values are read and written through {@link MethodHandle}s, which are resolved once, from a
+ * private copy of the {@link Field} made accessible for the purpose. This avoids the security check
+ * and the shared-state write that {@link Reflection#getFieldValue(Field, Object)} pays on every
+ * call by toggling {@link Field#setAccessible(boolean)}. If the handles can't be resolved (e.g.
+ * under a restrictive security manager) access falls back to {@link Reflection}.
+ * <p>
+ * Column values are read and bound through a {@link ColumnConverter}, chosen once from the field
+ * type, which calls the typed JDBC getter and setter directly (see {@link #read(ResultSet, int)} and
+ * {@link #bind(PreparedStatement, int, Object)}).
+ * <p>
+ * Instances are normally obtained from {@link EntityMetadata}, rather than constructed directly.
+ *
+ * @author David Carboni
+ *
+ */
+public final class ColumnMetadata {
+
+	private final Field field;
+	private final Class<?> type;
+	private final String name;
+	private final boolean id;
+	private final boolean insertable;
+	private final boolean updatable;
+	private final SqlType sqlType;
+	private final boolean enumeration;
+	private final boolean character;
+	private final Map<String, Object> enumValues;
+	private final Object primitiveDefault;
+	private final ColumnConverter converter;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+	// Typed to the primitive, for a primitive field with a ColumnConverter.PrimitiveConverter:
+	private final MethodHandle primitiveGetter;
+	private final MethodHandle primitiveSetter;
+	private final Reflection reflection;
+
+	/**
+	 * @param field
+	 *            The field to be described.
+	 * @param reflection
+	 *            Used to read the annotations of the field.
+	 */
+	ColumnMetadata(Field field, Reflection reflection) {
+
+		this.field = field;
+		type = field.getType();
+		name = reflection.getColumnName(field);
+		id = reflection.isId(field);
+		Column column = field.getAnnotation(Column.class);
+		insertable = column == null || column.insertable();
+		updatable = column == null || column.updatable();
+		sqlType = SqlType.toSqlMap.get(type);
+		enumeration = Enum.class.isAssignableFrom(type);
+		character = Character.class.isAssignableFrom(type) || char.class.equals(type);
+		enumValues = enumeration ? enumValues(type) : null;
+		primitiveDefault = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+		converter = ColumnConverter.forType(type, enumValues);
+		this.reflection = reflection;
+
+		MethodHandle getter = null;
+		MethodHandle setter = null;
+		MethodHandle primitiveGetter = null;
+		MethodHandle primitiveSetter = null;
+		try {
+			// Use our own copy so we don't change the accessible flag of a shared Field:
+			Field accessible = field.getDeclaringClass().getDeclaredField(field.getName());
+			accessible.setAccessible(true);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle get = lookup.unreflectGetter(accessible);
+			MethodHandle set = lookup.unreflectSetter(accessible);
+			getter = get.asType(MethodType.methodType(Object.class, Object.class));
+			setter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			if (converter instanceof ColumnConverter.PrimitiveConverter) {
+				primitiveGetter = get.asType(MethodType.methodType(type, Object.class));
+				primitiveSetter = set.asType(MethodType.methodType(void.class, Object.class, type));
+			}
+		} catch (NoSuchFieldException e) {
+			// Fall back to reflection
+		} catch (SecurityException e) {
+			// Fall back to reflection
+		} catch (IllegalAccessException e) {
+			// Fall back to reflection (e.g. a final field)
+		}
+		this.getter = getter;
+		this.setter = setter;
+		this.primitiveGetter = primitiveGetter;
+		this.primitiveSetter = primitiveSetter;
+	}
+
+	/**
+	 * Builds a lookup of enum constants by {@link Enum#name()} and, where it has been overridden,
+	 * {@link Enum#toString()}. Names take precedence, as per {@link Enum#valueOf(Class, String)}.
+	 * 
+	 * @param type
+	 *            The enum type.
+	 * @return A map from String value to enum constant.
+	 */
+	private static Map<String, Object> enumValues(Class<?> type) {
+
+		Map<String, Object> result = new HashMap<String, Object>();
+		Object[] constants = type.getEnumConstants();
+		if (constants != null) {
+			for (Object constant : constants) {
+				result.put(constant.toString(), constant);
+			}
+			for (Object constant : constants) {
+				result.put(((Enum<?>) constant).name(), constant);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param bean
+	 *            The bean from which to read the field.
+	 * @return The value of the field.
+	 */
+	public Object getValue(Object bean) {
+
+		if (getter == null) {
+			return reflection.getFieldValue(field, bean);
+		}
+		try {
+			return getter.invokeExact(bean);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		}
+	}
+
+	/**
+	 * Checks whether the field is null, without boxing the value of a primitive field (which is
+	 * never null).
+	 * 
+	 * @param bean
+	 *            The bean from which to read the field.
+	 * @return true if the value of the field is null.
+	 */
+	public boolean isNull(Object bean) {
+		return primitiveDefault == null && getValue(bean) == null;
+	}
+
+	/**
+	 * Sets the field. Values should already be of the declared type of the field - see
+	 * {@link #read(ResultSet, int)}. Setting a primitive field to null sets it to zero (or false).
+	 * 
+	 * @param bean
+	 *            The bean on which to set the field.
+	 * @param value
+	 *            The value to be set.
+	 */
+	public void setValue(Object bean, Object value) {
+
+		if (value == null && primitiveDefault != null) {
+			setValue(bean, primitiveDefault);
+			return;
+		}
+		if (setter == null) {
+			reflection.setFieldValue(field, bean, value);
+			return;
+		}
+		try {
+			setter.invokeExact(bean, value);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Unable to set field " + field.getName() + " of type "
+					+ type.getSimpleName() + " with value " + value, e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		}
+	}
+
+	/**
+	 * Converts a value read from a bean field into the value that should be passed to
+	 * {@link java.sql.PreparedStatement#setObject(int, Object)}. Enums and Characters are stored as
+	 * Strings.
+	 *
+	 * @param value
+	 *            The (non-null) field value.
+	 * @return The parameter value.
+	 */
+	public Object toParameter(Object value) {
+		if (enumeration || character) {
+			return value.toString();
+		}
+		return value;
+	}
+
+	/**
+	 * Converts a value returned by {@link java.sql.ResultSet#getObject(int)} into the declared type
+	 * of the field. Enums are looked up from their String value.
+	 *
+	 * @param value
+	 *            The value read from the database.
+	 * @return The value to be set in the bean field.
+	 * @see Jdbc#doJdbcStandardConversions(Class, Object)
+	 */
+	public Object fromResult(Object value) {
+		if (enumeration && value != null) {
+			Object enumValue = enumValues.get(value.toString());
+			if (enumValue == null) {
+				throw new IllegalArgumentException("Unable to set field of type " + type.getSimpleName()
+						+ " with value " + value);
+			}
+			return enumValue;
+		}
+		return Jdbc.doJdbcStandardConversions(type, value);
+	}
+
+	/**
+	 * Reads this column from the current row of a {@link ResultSet}, converted to the declared type
+	 * of the field.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The index of the column in the {@link ResultSet}.
+	 * @return The value to be set in the bean field.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public Object read(ResultSet resultSet, int index) throws SQLException {
+		return converter.read(resultSet, index);
+	}
+
+	/**
+	 * Reads this column from the current row of a {@link ResultSet} and sets it in the bean. For a
+	 * primitive field the value goes straight from the typed JDBC getter (e.g.
+	 * {@link ResultSet#getInt(int)}) to the field, without being boxed, and SQL NULL sets the field
+	 * to zero (or false). Otherwise this is the same as {@link #setValue(Object, Object)} with the
+	 * result of {@link #read(ResultSet, int)}.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The index of the column in the {@link ResultSet}.
+	 * @param bean
+	 *            The bean on which to set the field.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public void readInto(ResultSet resultSet, int index, Object bean) throws SQLException {
+
+		if (primitiveSetter == null) {
+			setValue(bean, read(resultSet, index));
+			return;
+		}
+		try {
+			((ColumnConverter.PrimitiveConverter) converter).readInto(resultSet, index, bean, primitiveSetter);
+		} catch (SQLException e) {
+			throw e;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Unable to set field " + field.getName(), e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		}
+	}
+
+	/**
+	 * Binds the value of this column's field in the bean to a parameter. For a primitive field the
+	 * value goes straight from the field to the typed JDBC setter (e.g.
+	 * {@link PreparedStatement#setInt(int, int)}), without being boxed. Otherwise this is the same as
+	 * {@link #bind(PreparedStatement, int, Object)} with the result of {@link #getValue(Object)}.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param index
+	 *            The parameter index.
+	 * @param bean
+	 *            The bean from which to read the field.
+	 * @throws SQLException
+	 *             If the parameter can't be set.
+	 */
+	public void bindFrom(PreparedStatement preparedStatement, int index, Object bean) throws SQLException {
+
+		if (primitiveGetter == null) {
+			bind(preparedStatement, index, getValue(bean));
+			return;
+		}
+		try {
+			((ColumnConverter.PrimitiveConverter) converter).bindFrom(preparedStatement, index, bean, primitiveGetter);
+		} catch (SQLException e) {
+			throw e;
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field " + field.getName(), e);
+		}
+	}
+
+	/**
+	 * Binds a field value to a parameter, or a typed null if the value is null.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param index
+	 *            The parameter index.
+	 * @param value
+	 *            The field value.
+	 * @throws SQLException
+	 *             If the parameter can't be set.
+	 */
+	public void bind(PreparedStatement preparedStatement, int index, Object value) throws SQLException {
+		if (value == null) {
+			preparedStatement.setNull(index, getNullType());
+		} else {
+			converter.bind(preparedStatement, index, value);
+		}
+	}
+
+	/**
+	 * @return The {@link java.sql.Types} code to use when setting a null parameter for this column.
+	 * @throws IllegalArgumentException
+	 *             If the field type has no SQL type mapping.
+	 */
+	public int getNullType() {
+
+		if (sqlType != null) {
+			return sqlType.sqlType;
+		} else if (enumeration) {
+			return java.sql.Types.VARCHAR;
+		}
+		throw new IllegalArgumentException("Un-mapped parameter type: " + type.getSimpleName()
+				+ ". If you wish to map this type, please add an entry to the type map in the class "
+				+ SqlType.class.getName() + " class.");
+	}
+
+	/**
+	 * @return the converter used by {@link #read(ResultSet, int)} and
+	 *         {@link #bind(PreparedStatement, int, Object)}
+	 */
+	public ColumnConverter getConverter() {
+		return converter;
+	}
+
+	/**
+	 * @return the field
+	 */
+	public Field getField() {
+		return field;
+	}
+
+	/**
+	 * @return the declared type of the field
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return the database column name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return true if the field is marked with {@link Id}
+	 */
+	public boolean isId() {
+		return id;
+	}
+
+	/**
+	 * @return the value of {@link Column#insertable()}
+	 */
+	public boolean isInsertable() {
+		return insertable;
+	}
+
+	/**
+	 * @return the value of {@link Column#updatable()}
+	 */
+	public boolean isUpdatable() {
+		return updatable;
+	}
+
+	/**
+	 * @return the mapped {@link SqlType}, or null if the field type is not in
+	 *         {@link SqlType#toSqlMap} (e.g. an enum)
+	 */
+	public SqlType getSqlType() {
+		return sqlType;
+	}
+
+	@Override
+	public String toString() {
+		return field.getDeclaringClass().getSimpleName() + "." + field.getName() + " (" + name + ")";
+	}
+}
@@ -0,0 +1,102 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A mapper for a single bean class, generated at compile time by the <code>cheep-orm-processor</code>
+ * annotation processor. Implementations hold the insert, select, update and delete SQL for the bean
+ * as constants and read and write its fields directly, so {@link Orm} doesn't need to scan the
+ * bean annotations or build SQL for these operations.
+ * <p>
+ * Implementations are registered as {@link java.util.ServiceLoader} providers of this interface and
+ * are found by {@link CompiledMappers}. They must be stateless and thread-safe.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean type.
+ */
+public interface CompiledMapper<B> {
+
+	/**
+	 * @return The bean class mapped by this instance.
+	 */
+	Class<B> getBeanClass();
+
+	/**
+	 * Insert SQL depends on which keys have values, because null keys are left out (see
+	 * {@link Orm#create(Object)}).
+	 * 
+	 * @param bean
+	 *            The bean to be inserted.
+	 * @return The insert SQL for the given bean, or null if there isn't a precompiled statement for
+	 *         this combination of key values.
+	 */
+	String getInsertSql(B bean);
+
+	/**
+	 * @param preparedStatement
+	 *            A statement prepared from {@link #getInsertSql(Object)}.
+	 * @param bean
+	 *            The bean to be inserted.
+	 * @return The number of parameters set.
+	 * @throws SQLException
+	 *             If a parameter can't be set.
+	 */
+	int setInsertParameters(PreparedStatement preparedStatement, B bean) throws SQLException;
+
+	/**
+	 * @return SQL to select a single row by its keys. The columns are listed explicitly, in the
+	 *         order expected by {@link #mapRow(ResultSet)}.
+	 */
+	String getSelectSql();
+
+	/**
+	 * @return SQL to update a single row by its keys, or null if the bean has no updatable
+	 *         fields.
+	 */
+	String getUpdateSql();
+
+	/**
+	 * Sets the updatable fields, followed by the keys.
+	 * 
+	 * @param preparedStatement
+	 *            A statement prepared from {@link #getUpdateSql()}.
+	 * @param bean
+	 *            The bean to be updated.
+	 * @return The number of parameters set.
+	 * @throws SQLException
+	 *             If a parameter can't be set.
+	 */
+	int setUpdateParameters(PreparedStatement preparedStatement, B bean) throws SQLException;
+
+	/**
+	 * @return SQL to delete rows by their keys.
+	 */
+	String getDeleteSql();
+
+	/**
+	 * Sets the keys, for {@link #getSelectSql()} or {@link #getDeleteSql()}.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param bean
+	 *            The bean containing the keys.
+	 * @return The number of parameters set.
+	 * @throws SQLException
+	 *             If a parameter can't be set.
+	 */
+	int setKeyParameters(PreparedStatement preparedStatement, B bean) throws SQLException;
+
+	/**
+	 * @param resultSet
+	 *            A {@link ResultSet} from {@link #getSelectSql()}, positioned on the row to be
+	 *            mapped.
+	 * @return A new bean, populated from the current row.
+	 * @throws SQLException
+	 *             If an error occurs reading from the {@link ResultSet}.
+	 */
+	B mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,147 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Static helpers called by generated {@link CompiledMapper} classes. These are public so that
+ * generated code in any package can use them, but they aren't intended for general use.
+ * <p>
+ * Fields the generated code can't access directly (e.g. private fields) are accessed through
+ * {@link MethodHandle}s, which the generated class resolves once, by name, when it's initialised.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class CompiledMapperSupport {
+
+	/**
+	 * No need to instantiate.
+	 */
+	private CompiledMapperSupport() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * @param declaringClass
+	 *            The class that declares the field.
+	 * @param name
+	 *            The field name.
+	 * @return A getter handle of type (Object)Object.
+	 * @throws IllegalStateException
+	 *             If the field can't be accessed.
+	 */
+	public static MethodHandle getter(Class<?> declaringClass, String name) {
+		try {
+			return MethodHandles.lookup().unreflectGetter(accessible(declaringClass, name))
+					.asType(MethodType.methodType(Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to access field " + name, e);
+		}
+	}
+
+	/**
+	 * @param declaringClass
+	 *            The class that declares the field.
+	 * @param name
+	 *            The field name.
+	 * @return A setter handle of type (Object,Object)void.
+	 * @throws IllegalStateException
+	 *             If the field can't be accessed.
+	 */
+	public static MethodHandle setter(Class<?> declaringClass, String name) {
+		try {
+			return MethodHandles.lookup().unreflectSetter(accessible(declaringClass, name))
+					.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to access field " + name, e);
+		}
+	}
+
+	private static Field accessible(Class<?> declaringClass, String name) {
+		try {
+			Field field = declaringClass.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException("Unable to access field " + name, e);
+		}
+	}
+
+	/**
+	 * @param getter
+	 *            A handle returned by {@link #getter(Class, String)}.
+	 * @param bean
+	 *            The bean to read from.
+	 * @return The field value.
+	 */
+	public static Object get(MethodHandle getter, Object bean) {
+		try {
+			return getter.invokeExact(bean);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field", e);
+		}
+	}
+
+	/**
+	 * @param setter
+	 *            A handle returned by {@link #setter(Class, String)}.
+	 * @param bean
+	 *            The bean to write to.
+	 * @param value
+	 *            The field value.
+	 */
+	public static void set(MethodHandle setter, Object bean, Object value) {
+		try {
+			setter.invokeExact(bean, value);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Unable to access field", e);
+		}
+	}
+
+	/**
+	 * Sets a parameter, or a typed null if the value is null.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param index
+	 *            The parameter index.
+	 * @param value
+	 *            The value, already converted as per {@link ColumnMetadata#toParameter(Object)}.
+	 * @param nullType
+	 *            The {@link java.sql.Types} code to use if the value is null.
+	 * @throws SQLException
+	 *             If the parameter can't be set.
+	 */
+	public static void setParameter(PreparedStatement preparedStatement, int index, Object value, int nullType)
+			throws SQLException {
+		if (value == null) {
+			preparedStatement.setNull(index, nullType);
+		} else {
+			preparedStatement.setObject(index, value);
+		}
+	}
+
+	/**
+	 * Enums and Characters are stored as Strings.
+	 * 
+	 * @param value
+	 *            The field value.
+	 * @return The String value, or null.
+	 */
+	public static String toString(Object value) {
+		return value == null ? null : value.toString();
+	}
+}
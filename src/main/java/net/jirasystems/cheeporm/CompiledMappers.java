@@ -0,0 +1,73 @@
+package net.jirasystems.cheeporm;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the {@link CompiledMapper} for a bean class, if the annotation processor generated one. The
+ * {@link ServiceLoader} is consulted once per bean class, using the bean's class loader, and the
+ * result (including the absence of a mapper) is held in a {@link ClassValue}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class CompiledMappers {
+
+	private static final ClassValue<CompiledMapper<?>> mappers = new ClassValue<CompiledMapper<?>>() {
+		@Override
+		protected CompiledMapper<?> computeValue(Class<?> type) {
+			return find(type);
+		}
+	};
+
+	/**
+	 * No need to instantiate.
+	 */
+	private CompiledMappers() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param beanClass
+	 *            The bean class.
+	 * @return The compiled mapper for the class, or null if there isn't one.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <B> CompiledMapper<B> get(Class<B> beanClass) {
+		return (CompiledMapper<B>) mappers.get(beanClass);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static CompiledMapper<?> find(Class<?> beanClass) {
+
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null) {
+			classLoader = ClassLoader.getSystemClassLoader();
+		}
+
+		Iterator<CompiledMapper> providers = ServiceLoader.load(CompiledMapper.class, classLoader).iterator();
+		while (hasNext(providers)) {
+			try {
+				CompiledMapper<?> mapper = providers.next();
+				if (mapper.getBeanClass() == beanClass) {
+					return mapper;
+				}
+			} catch (ServiceConfigurationError e) {
+				// A stale or broken provider - skip it
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasNext(Iterator<?> providers) {
+		try {
+			return providers.hasNext();
+		} catch (ServiceConfigurationError e) {
+			// E.g. an unreadable service file - fall back to reflection
+			return false;
+		}
+	}
+}
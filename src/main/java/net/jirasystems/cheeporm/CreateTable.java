@@ -301,8 +301,7 @@ public class CreateTable {
 				sqlType = SqlType.NVARCHAR;
 			} else {
 				throw new IllegalArgumentException("Field of type " + field.getType()
-						+ " could not be mapped to a SQL type. " + "Note that primitives are not supported, "
-						+ "you must use primitive wrappers (e.g. Integer) " + "for the declared field type.");
+						+ " could not be mapped to a SQL type.");
 			}
 		}
 
@@ -330,6 +329,10 @@ public class CreateTable {
 		if (!column.nullable()) {
 			notNull = true;
 		}
+		// A primitive field can't represent null
+		if (field.getType().isPrimitive()) {
+			notNull = true;
+		}
 
 		// Build up the length/scale/precision. The length only applies to a
 		// String/varchar (and therefore enums too).
@@ -355,7 +358,8 @@ public class CreateTable {
 		if (scale > 0) {
 			// Look for the decimal types:
 			if (field.getType().isAssignableFrom(Double.class) || field.getType().isAssignableFrom(Float.class)
-					|| field.getType().isAssignableFrom(BigDecimal.class)) {
+					|| field.getType().isAssignableFrom(BigDecimal.class) || double.class.equals(field.getType())
+					|| float.class.equals(field.getType())) {
 				size = "(" + scale + "," + precision + ")";
 			} else {
 				// If it's not a decimal, this is presumably a whole number type
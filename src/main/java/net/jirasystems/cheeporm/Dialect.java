@@ -0,0 +1,117 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * The syntax a database uses to limit the number of rows returned by a query. See
+ * {@link Sql#limit(String, Dialect, boolean)}.
+ * <p>
+ * Where the dialect of a database isn't known, {@link Orm} limits rows with
+ * {@link java.sql.Statement#setMaxRows(int)} instead. This caps the rows the driver returns, but
+ * the database may still do the work of producing the full result.
+ * 
+ * @author David Carboni
+ * 
+ */
+public enum Dialect {
+
+	/**
+	 * <code>select ... limit ? offset ?</code>: MySQL, MariaDB, PostgreSQL, H2, HSQLDB and SQLite.
+	 */
+	LIMIT,
+
+	/**
+	 * <code>select ... offset ? rows fetch next ? rows only</code>, as per SQL:2008: SQL Server
+	 * 2012 and later, Oracle 12c and later, DB2 and Derby. SQL Server requires an ORDER BY, so
+	 * queries without one are limited as if the dialect weren't known (see
+	 * {@link #forQuery(Dialect, boolean)}).
+	 */
+	FETCH,
+
+	/**
+	 * <code>select top (?) ...</code>: earlier versions of SQL Server, and Sybase. There is no
+	 * offset, so skipped rows are read up to the end of the limit and discarded by the client.
+	 */
+	TOP;
+
+	/**
+	 * @return true if the limit parameter comes before the other parameters of the query, rather
+	 *         than after them.
+	 */
+	public boolean isLimitFirst() {
+		return this == TOP;
+	}
+
+	/**
+	 * @return true if rows can be skipped in the SQL, rather than by the client.
+	 */
+	public boolean isOffsetSupported() {
+		return this != TOP;
+	}
+
+	/**
+	 * Gets the dialect to be used to limit a particular query. SQL Server rejects
+	 * <code>offset ... fetch</code> without an ORDER BY, and there is no ORDER BY that does nothing
+	 * on every database that uses {@link #FETCH}, so an unordered query is limited with
+	 * {@link java.sql.Statement#setMaxRows(int)} instead.
+	 * 
+	 * @param dialect
+	 *            The dialect of the database, or null if it isn't known.
+	 * @param ordered
+	 *            true if the query has an ORDER BY.
+	 * @return The dialect for the query, or null if its rows should be limited with
+	 *         {@link java.sql.Statement#setMaxRows(int)}.
+	 */
+	public static Dialect forQuery(Dialect dialect, boolean ordered) {
+		return dialect == FETCH && !ordered ? null : dialect;
+	}
+
+	/**
+	 * Works out the dialect of a database from its {@link DatabaseMetaData}.
+	 * 
+	 * @param connection
+	 *            A connection to the database.
+	 * @return The dialect of the database, or null if it isn't recognised.
+	 * @throws SQLException
+	 *             If the metadata can't be read.
+	 */
+	public static Dialect detect(Connection connection) throws SQLException {
+
+		DatabaseMetaData metaData = connection.getMetaData();
+		if (metaData == null) {
+			return null;
+		}
+		return forProduct(metaData.getDatabaseProductName(), metaData.getDatabaseMajorVersion());
+	}
+
+	/**
+	 * @param productName
+	 *            The database product name, as per {@link DatabaseMetaData#getDatabaseProductName()}.
+	 * @param majorVersion
+	 *            The major version of the database.
+	 * @return The dialect of the database, or null if it isn't recognised.
+	 */
+	static Dialect forProduct(String productName, int majorVersion) {
+
+		if (productName == null) {
+			return null;
+		}
+		String product = productName.toLowerCase(Locale.ROOT);
+		if (product.contains("mysql") || product.contains("mariadb") || product.contains("postgres")
+				|| product.equals("h2") || product.startsWith("hsql") || product.contains("sqlite")) {
+			return LIMIT;
+		} else if (product.contains("sql server")) {
+			return majorVersion >= 11 ? FETCH : TOP;
+		} else if (product.contains("oracle")) {
+			return majorVersion >= 12 ? FETCH : null;
+		} else if (product.startsWith("db2") || product.contains("derby")) {
+			return FETCH;
+		} else if (product.contains("sybase") || product.contains("adaptive server")) {
+			return TOP;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,328 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Immutable, compiled description of a bean class: its table name and the ordered
+ * {@link ColumnMetadata} for its key, insert, update and full column sets.
+ * <p>
+ * Instances are built once per bean class, the first time {@link #of(Class)} is called, and are
+ * held in a {@link ClassValue} so that {@link Orm}, {@link Sql}, {@link Jdbc} and
+ * {@link OrmIterator} never need to go back to the {@link Table}, {@link Column} and {@link Id}
+ * annotations once a class has been seen.
+ * <p>
+ * NB: the arrays returned by the getters in this class are the instances held by the metadata, so
+ * that callers on the hot path don't pay for a copy. They must not be modified.
+ *
+ * @author David Carboni
+ *
+ * @param <B>
+ *            The bean type described.
+ */
+public final class EntityMetadata<B> {
+
+	private static final ColumnMetadata[] NONE = new ColumnMetadata[0];
+
+	private static final ClassValue<EntityMetadata<?>> registry = new ClassValue<EntityMetadata<?>>() {
+		@Override
+		protected EntityMetadata<?> computeValue(Class<?> type) {
+			return build(type);
+		}
+	};
+
+	private final Class<B> beanClass;
+	private final String table;
+	private final ColumnMetadata[] all;
+	private final ColumnMetadata[] keys;
+	private final ColumnMetadata[] fields;
+	private final ColumnMetadata[] insertKeys;
+	private final ColumnMetadata[] insertFields;
+	private final ColumnMetadata[] updateFields;
+	private final Map<Field, ColumnMetadata> byField;
+	private final MethodHandle constructor;
+	private final RowMapper<B> rowMapper;
+	private final Reflection reflection;
+
+	/**
+	 * Gets the metadata for the given bean class, building it if this is the first request.
+	 *
+	 * @param <B>
+	 *            The bean type.
+	 * @param beanClass
+	 *            The bean class.
+	 * @return The metadata for the class.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <B> EntityMetadata<B> of(Class<B> beanClass) {
+		return (EntityMetadata<B>) registry.get(beanClass);
+	}
+
+	/**
+	 * Gets the metadata for the class of the given bean.
+	 *
+	 * @param <B>
+	 *            The bean type.
+	 * @param bean
+	 *            An instance of the bean.
+	 * @return The metadata for the bean's class.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <B> EntityMetadata<B> of(B bean) {
+		return (EntityMetadata<B>) registry.get(bean.getClass());
+	}
+
+	private static <B> EntityMetadata<B> build(Class<B> beanClass) {
+		return new EntityMetadata<B>(beanClass, new Reflection());
+	}
+
+	private EntityMetadata(Class<B> beanClass, Reflection reflection) {
+
+		this.beanClass = beanClass;
+		this.reflection = reflection;
+		table = reflection.getTable(beanClass);
+		constructor = constructor(beanClass);
+
+		List<ColumnMetadata> all = new ArrayList<ColumnMetadata>();
+		List<ColumnMetadata> keys = new ArrayList<ColumnMetadata>();
+		List<ColumnMetadata> fields = new ArrayList<ColumnMetadata>();
+		List<ColumnMetadata> insertKeys = new ArrayList<ColumnMetadata>();
+		List<ColumnMetadata> insertFields = new ArrayList<ColumnMetadata>();
+		List<ColumnMetadata> updateFields = new ArrayList<ColumnMetadata>();
+		byField = new HashMap<Field, ColumnMetadata>();
+
+		// Same ordering as Reflection.listAll/listKeys/etc.
+		for (Field field : reflection.listAll(beanClass)) {
+			ColumnMetadata column = new ColumnMetadata(field, reflection);
+			all.add(column);
+			byField.put(field, column);
+			if (column.isId()) {
+				keys.add(column);
+				if (column.isInsertable()) {
+					insertKeys.add(column);
+				}
+			} else {
+				fields.add(column);
+				if (column.isInsertable()) {
+					insertFields.add(column);
+				}
+				if (column.isUpdatable()) {
+					updateFields.add(column);
+				}
+			}
+		}
+
+		this.all = toArray(all);
+		this.keys = toArray(keys);
+		this.fields = toArray(fields);
+		this.insertKeys = toArray(insertKeys);
+		this.insertFields = toArray(insertFields);
+		this.updateFields = toArray(updateFields);
+		rowMapper = new ReflectionRowMapper<B>(this, this.all);
+	}
+
+	/**
+	 * Resolves a handle for the default constructor, which may be private.
+	 * 
+	 * @param beanClass
+	 *            The bean class.
+	 * @return A handle of type ()Object, or null if the class has no usable default constructor.
+	 */
+	private static MethodHandle constructor(Class<?> beanClass) {
+		try {
+			Constructor<?> constructor = beanClass.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Instantiates the bean class through its default constructor.
+	 * 
+	 * @return A new instance of the bean.
+	 */
+	public B newInstance() {
+
+		if (constructor == null) {
+			// Let Reflection work out what the problem is:
+			return reflection.newInstance(beanClass);
+		}
+		try {
+			return beanClass.cast(constructor.invokeExact());
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unable to instantiate bean class", e);
+		}
+	}
+
+	private static ColumnMetadata[] toArray(List<ColumnMetadata> columns) {
+		return columns.toArray(new ColumnMetadata[columns.size()]);
+	}
+
+	/**
+	 * @param field
+	 *            A field of the bean class.
+	 * @return The column metadata for the field.
+	 * @throws IllegalArgumentException
+	 *             If the field is not a mapped column of this bean class.
+	 */
+	public ColumnMetadata getColumn(Field field) {
+		ColumnMetadata column = findColumn(field);
+		if (column == null) {
+			throw new IllegalArgumentException("Field " + field.getName() + " is not a mapped column of "
+					+ beanClass.getName());
+		}
+		return column;
+	}
+
+	/**
+	 * @param field
+	 *            A field.
+	 * @return The column metadata for the field, or null if it is not a mapped column of this bean
+	 *         class.
+	 */
+	ColumnMetadata findColumn(Field field) {
+		return byField.get(field);
+	}
+
+	/**
+	 * Maps a list of fields to their column metadata. Fields that are not mapped by this class (for
+	 * example when a caller passes an arbitrary list) are described on the fly.
+	 *
+	 * @param fields
+	 *            The fields.
+	 * @return The column metadata for the fields, in the same order.
+	 */
+	public ColumnMetadata[] getColumns(List<Field> fields) {
+		ColumnMetadata[] result = new ColumnMetadata[fields.size()];
+		Reflection reflection = null;
+		for (int i = 0; i < result.length; i++) {
+			Field field = fields.get(i);
+			ColumnMetadata column = findColumn(field);
+			if (column == null) {
+				if (reflection == null) {
+					reflection = new Reflection();
+				}
+				column = new ColumnMetadata(field, reflection);
+			}
+			result[i] = column;
+		}
+		return result;
+	}
+
+	/**
+	 * @param fields
+	 *            The fields.
+	 * @return The column metadata for the fields, in the same order. If there are no fields this is
+	 *         a shared empty array.
+	 */
+	public ColumnMetadata[] getColumns(Field... fields) {
+		if (fields.length == 0) {
+			return NONE;
+		}
+		ColumnMetadata[] result = new ColumnMetadata[fields.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = getColumn(fields[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * @param column
+	 *            A column.
+	 * @return The position of the column in {@link #getAll()}, or -1 if it is not one of the
+	 *         columns mapped by this class.
+	 */
+	public int getIndex(ColumnMetadata column) {
+		for (int i = 0; i < all.length; i++) {
+			if (all[i] == column) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A {@link ReflectionRowMapper} for all columns, which maps each row straight from the
+	 *         {@link java.sql.ResultSet} into a new bean.
+	 */
+	public RowMapper<B> getRowMapper() {
+		return rowMapper;
+	}
+
+	/**
+	 * @return the bean class
+	 */
+	public Class<B> getBeanClass() {
+		return beanClass;
+	}
+
+	/**
+	 * @return the table name, or null if the bean class has no {@link Table} annotation
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return all mapped columns, including keys
+	 */
+	public ColumnMetadata[] getAll() {
+		return all;
+	}
+
+	/**
+	 * @return the columns marked with {@link Id}
+	 */
+	public ColumnMetadata[] getKeys() {
+		return keys;
+	}
+
+	/**
+	 * @return the non-key columns
+	 */
+	public ColumnMetadata[] getFields() {
+		return fields;
+	}
+
+	/**
+	 * @return the key columns with {@link Column#insertable()}=true
+	 */
+	public ColumnMetadata[] getInsertKeys() {
+		return insertKeys;
+	}
+
+	/**
+	 * @return the non-key columns with {@link Column#insertable()}=true
+	 */
+	public ColumnMetadata[] getInsertFields() {
+		return insertFields;
+	}
+
+	/**
+	 * @return the non-key columns with {@link Column#updatable()}=true
+	 */
+	public ColumnMetadata[] getUpdateFields() {
+		return updateFields;
+	}
+}
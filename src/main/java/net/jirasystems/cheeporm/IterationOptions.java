@@ -0,0 +1,138 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Statement settings for queries whose results are iterated, rather than listed (see
+ * {@link Orm#iterate(Object, java.lang.reflect.Field...)} and
+ * {@link Orm#stream(Object, java.lang.reflect.Field...)}).
+ * <p>
+ * By default the fetch size is left to the driver, which for MySQL Connector/J means the whole
+ * result is read into client memory when the query is executed. To iterate a result larger than
+ * the heap, set the fetch size to {@link #STREAMING} (MySQL row-by-row streaming, which requires a
+ * forward-only, read-only cursor) or to a positive number of rows (which MySQL only honours with
+ * <code>useCursorFetch=true</code>).
+ * <p>
+ * NB with MySQL streaming, no other statement can be executed on the connection until the
+ * iterator has been read to the end or closed.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class IterationOptions {
+
+	/**
+	 * The fetch size that tells MySQL Connector/J to stream rows one at a time.
+	 */
+	public static final int STREAMING = Integer.MIN_VALUE;
+
+	private int fetchSize;
+	private int maxRows;
+	private boolean forwardOnly = true;
+	private boolean readOnly = true;
+
+	/**
+	 * @return The {@link ResultSet} type to request when preparing the statement.
+	 */
+	int getResultSetType() {
+		return forwardOnly ? ResultSet.TYPE_FORWARD_ONLY : ResultSet.TYPE_SCROLL_INSENSITIVE;
+	}
+
+	/**
+	 * @return The {@link ResultSet} concurrency to request when preparing the statement.
+	 */
+	int getResultSetConcurrency() {
+		return readOnly ? ResultSet.CONCUR_READ_ONLY : ResultSet.CONCUR_UPDATABLE;
+	}
+
+	/**
+	 * Applies the fetch size and max rows to a statement, before it is executed.
+	 * 
+	 * @param statement
+	 *            The statement.
+	 * @throws SQLException
+	 *             If the driver rejects a setting.
+	 */
+	void apply(Statement statement) throws SQLException {
+		if (fetchSize != 0) {
+			statement.setFetchSize(fetchSize);
+		}
+		if (maxRows > 0) {
+			statement.setMaxRows(maxRows);
+		}
+	}
+
+	/**
+	 * @return the fetch size hint. Zero (the default) leaves the driver default.
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * @param fetchSize
+	 *            the number of rows the driver should fetch at a time, zero for the driver
+	 *            default, or {@link #STREAMING}.
+	 * @see Statement#setFetchSize(int)
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * @return the maximum number of rows to return. Zero (the default) means no limit.
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * @param maxRows
+	 *            the maximum number of rows to return, or zero for no limit. Rows beyond the limit
+	 *            are silently dropped.
+	 * @see Statement#setMaxRows(int)
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * @return true (the default) to request a {@link ResultSet#TYPE_FORWARD_ONLY} cursor.
+	 */
+	public boolean isForwardOnly() {
+		return forwardOnly;
+	}
+
+	/**
+	 * @param forwardOnly
+	 *            true to request a {@link ResultSet#TYPE_FORWARD_ONLY} cursor, false for
+	 *            {@link ResultSet#TYPE_SCROLL_INSENSITIVE}.
+	 */
+	public void setForwardOnly(boolean forwardOnly) {
+		this.forwardOnly = forwardOnly;
+	}
+
+	/**
+	 * @return true (the default) to request a {@link ResultSet#CONCUR_READ_ONLY} cursor.
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * @param readOnly
+	 *            true to request a {@link ResultSet#CONCUR_READ_ONLY} cursor, false for
+	 *            {@link ResultSet#CONCUR_UPDATABLE}.
+	 */
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	@Override
+	public String toString() {
+		return "fetchSize=" + fetchSize + ", maxRows=" + maxRows + ", forwardOnly=" + forwardOnly + ", readOnly="
+				+ readOnly;
+	}
+}
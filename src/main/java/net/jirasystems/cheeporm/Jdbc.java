@@ -8,11 +8,15 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.dbutils.DbUtils;
@@ -22,7 +26,7 @@ import org.apache.commons.dbutils.DbUtils;
  * expected to be as follows.
  * 
  * Mappings from database types to Java types are determined by
- * {@link ResultSet#getObject(String)}, which follows the JDBC mappings. These
+ * {@link ResultSet#getObject(int)}, which follows the JDBC mappings. These
  * are expected to be as follows:
  * <ul>
  * <li>CHAR String</li>
@@ -90,6 +94,11 @@ public class Jdbc {
 
 	private Reflection reflection;
 
+	/**
+	 * Optional cache of statements for {@link #connection}.
+	 */
+	private StatementCache statementCache;
+
 	/**
 	 * @param connection
 	 *            The database connection.
@@ -127,6 +136,79 @@ public class Jdbc {
 	 */
 	public PreparedStatement newPreparedStatement(String sql,
 			boolean returnGeneratedKeys) throws SQLException {
+
+		if (statementCache == null) {
+			return prepareStatement(sql, returnGeneratedKeys);
+		}
+
+		PreparedStatement preparedStatement = statementCache.checkout(sql,
+				returnGeneratedKeys);
+		if (preparedStatement == null) {
+			preparedStatement = prepareStatement(sql, returnGeneratedKeys);
+			statementCache.checkout(preparedStatement, sql,
+					returnGeneratedKeys);
+		}
+		return preparedStatement;
+	}
+
+	/**
+	 * Prepares a statement that is never taken from, or returned to, the
+	 * statement cache. Use this for statements whose lifetime the caller
+	 * doesn't control, such as those passed to {@link OrmIterator}.
+	 * 
+	 * @param sql
+	 *            The SQL query to be compiled.
+	 * @return A new {@link PreparedStatement}, which the caller must close.
+	 * @throws SQLException
+	 *             Passed up if thrown by the database {@link Connection}.
+	 */
+	public PreparedStatement newUncachedPreparedStatement(String sql)
+			throws SQLException {
+		return prepareStatement(sql, false);
+	}
+
+	/**
+	 * Prepares an uncached statement (see
+	 * {@link #newUncachedPreparedStatement(String)}) with the given cursor
+	 * type and concurrency.
+	 * 
+	 * @param sql
+	 *            The SQL query to be compiled.
+	 * @param resultSetType
+	 *            E.g. {@link java.sql.ResultSet#TYPE_FORWARD_ONLY}.
+	 * @param resultSetConcurrency
+	 *            E.g. {@link java.sql.ResultSet#CONCUR_READ_ONLY}.
+	 * @return A new {@link PreparedStatement}, which the caller must close.
+	 * @throws SQLException
+	 *             Passed up if thrown by the database {@link Connection}.
+	 */
+	public PreparedStatement newUncachedPreparedStatement(String sql,
+			int resultSetType, int resultSetConcurrency) throws SQLException {
+		return connection.prepareStatement(sql, resultSetType,
+				resultSetConcurrency);
+	}
+
+	/**
+	 * Finishes with a statement obtained from
+	 * {@link #newPreparedStatement(String, boolean)}. If statement caching is
+	 * enabled the statement is cleared and returned to the cache, otherwise
+	 * it is closed.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @throws SQLException
+	 *             If the statement can't be closed.
+	 */
+	public void release(PreparedStatement preparedStatement)
+			throws SQLException {
+		if (statementCache == null
+				|| !statementCache.checkin(preparedStatement)) {
+			preparedStatement.close();
+		}
+	}
+
+	private PreparedStatement prepareStatement(String sql,
+			boolean returnGeneratedKeys) throws SQLException {
 		PreparedStatement preparedStatement;
 		if (returnGeneratedKeys) {
 			try {
@@ -162,6 +244,52 @@ public class Jdbc {
 		return setParametersRepeat(preparedStatement, fields, bean, 1);
 	}
 
+	/**
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} into which parameters are to be
+	 *            set.
+	 * @param columns
+	 *            The bean columns to set as parameters.
+	 * @param bean
+	 *            The bean from which field values will be read and set into
+	 *            parameter placeholders.
+	 * @return The last parameter index that was set. This allows other method
+	 *         to set further parameters.
+	 * @throws SQLException
+	 *             Passed up if thrown by the given {@link PreparedStatement}.
+	 */
+	public int setParameters(PreparedStatement preparedStatement,
+			ColumnMetadata[] columns, Object bean) throws SQLException {
+
+		return setParametersRepeat(preparedStatement, columns, bean, 1);
+	}
+
+	/**
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} into which parameters are to be
+	 *            set.
+	 * @param columns
+	 *            The bean columns to set as parameters.
+	 * @param bean
+	 *            The bean from which field values will be read and set into
+	 *            parameter placeholders.
+	 * @param offset
+	 *            The number of parameters that have already been set. The
+	 *            first column is set at parameter index offset + 1.
+	 * @return The last parameter index that was set. This allows other method
+	 *         to set further parameters.
+	 * @throws SQLException
+	 *             Passed up if thrown by the given {@link PreparedStatement}.
+	 */
+	public int setParameters(PreparedStatement preparedStatement,
+			ColumnMetadata[] columns, Object bean, int offset)
+			throws SQLException {
+		for (int i = 0; i < columns.length; i++) {
+			setParameter(preparedStatement, columns[i], bean, offset + i + 1);
+		}
+		return offset + columns.length;
+	}
+
 	/**
 	 * @param preparedStatement
 	 *            The {@link PreparedStatement} into which parameters are to be
@@ -180,11 +308,35 @@ public class Jdbc {
 	 */
 	public int setParametersRepeat(PreparedStatement preparedStatement,
 			List<Field> fields, Object bean, int repeat) throws SQLException {
-		for (int i = 0; i < (fields.size() * repeat); i++) {
-			Field field = fields.get(i % fields.size());
-			setParameter(preparedStatement, field, bean, i + 1);
+
+		ColumnMetadata[] columns = EntityMetadata.of(bean).getColumns(fields);
+		return setParametersRepeat(preparedStatement, columns, bean, repeat);
+	}
+
+	/**
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} into which parameters are to be
+	 *            set.
+	 * @param columns
+	 *            The bean columns to set as parameters.
+	 * @param bean
+	 *            The bean from which field values will be read and set into
+	 *            parameter placeholders.
+	 * @param repeat
+	 *            number of times to repeat setting the parameters
+	 * @return The last parameter index that was set. This allows other method
+	 *         to set further parameters.
+	 * @throws SQLException
+	 *             Passed up if thrown by the given {@link PreparedStatement}.
+	 */
+	public int setParametersRepeat(PreparedStatement preparedStatement,
+			ColumnMetadata[] columns, Object bean, int repeat)
+			throws SQLException {
+		for (int i = 0; i < (columns.length * repeat); i++) {
+			ColumnMetadata column = columns[i % columns.length];
+			setParameter(preparedStatement, column, bean, i + 1);
 		}
-		return fields.size();
+		return columns.length;
 	}
 
 	/**
@@ -208,6 +360,30 @@ public class Jdbc {
 		setParameterValue(preparedStatement, field, value, parameterIndex);
 	}
 
+	/**
+	 * Sets a parameter from a bean field, with
+	 * {@link ColumnMetadata#bindFrom(PreparedStatement, int, Object)}, so
+	 * primitive values aren't boxed.
+	 * 
+	 * @param preparedStatement
+	 *            The prepared statement to set the parameter in.
+	 * @param column
+	 *            A bean column.
+	 * @param bean
+	 *            The bean instance from which the field will be queried.
+	 * @param parameterIndex
+	 *            The parameter index in the {@link PreparedStatement} which
+	 *            will be set.
+	 * @throws SQLException
+	 *             Passed up if thrown by the given {@link PreparedStatement}.
+	 */
+	protected void setParameter(PreparedStatement preparedStatement,
+			ColumnMetadata column, Object bean, int parameterIndex)
+			throws SQLException {
+
+		column.bindFrom(preparedStatement, parameterIndex, bean);
+	}
+
 	/**
 	 * Sets the given value in one of the parameter placeholders in the given
 	 * prepared statement.
@@ -229,8 +405,9 @@ public class Jdbc {
 		// Convert Enums and Characters to Strings:
 		Object parameter = value;
 		if ((value != null)
-				&& (Enum.class.isAssignableFrom(field.getType()) || (Character.class
-						.isAssignableFrom(field.getType())))) {
+				&& (Enum.class.isAssignableFrom(field.getType())
+						|| Character.class.isAssignableFrom(field.getType()) || char.class
+						.equals(field.getType()))) {
 			parameter = value.toString();
 		}
 
@@ -247,6 +424,29 @@ public class Jdbc {
 		}
 	}
 
+	/**
+	 * Sets the given value in one of the parameter placeholders in the given
+	 * prepared statement.
+	 * 
+	 * @param preparedStatement
+	 *            The query.
+	 * @param column
+	 *            Used to convert the value and to determine the SQL type if
+	 *            the value is null.
+	 * @param value
+	 *            The value to be set in the prepared statement.
+	 * @param parameterIndex
+	 *            The index of the parameter placeholder.
+	 * @throws SQLException
+	 *             If an error occurs in setting the value.
+	 */
+	protected void setParameterValue(PreparedStatement preparedStatement,
+			ColumnMetadata column, Object value, int parameterIndex)
+			throws SQLException {
+
+		column.bind(preparedStatement, parameterIndex, value);
+	}
+
 	// /**
 	// * Sets the gven enum field as a String parameter in the given {@link
 	// PreparedStatement}.
@@ -347,6 +547,100 @@ public class Jdbc {
 		return result;
 	}
 
+	/**
+	 * Runs a batch of inserts that has been built up with
+	 * {@link PreparedStatement#addBatch()}.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} to be run, obtained with
+	 *            <code>returnGeneratedKeys</code> set to true.
+	 * @param generatedKeys
+	 *            A list to which the generated keys (index 1 of each row in
+	 *            the generated keys result set) are added, in order. Nothing
+	 *            is added if the driver doesn't return generated keys.
+	 * @return The update counts, as returned by
+	 *         {@link PreparedStatement#executeBatch()}.
+	 * @throws SQLException
+	 *             If an error occurs running the batch. The batch is cleared
+	 *             before the exception is passed up.
+	 */
+	protected int[] insertBatch(PreparedStatement preparedStatement,
+			List<Object> generatedKeys) throws SQLException {
+
+		int[] result = executeBatch(preparedStatement);
+
+		readGeneratedKeys(preparedStatement, generatedKeys);
+		return result;
+	}
+
+	/**
+	 * Runs a batch of updates or deletes that has been built up with
+	 * {@link PreparedStatement#addBatch()}.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} to be run.
+	 * @return The update counts, as returned by
+	 *         {@link PreparedStatement#executeBatch()}.
+	 * @throws SQLException
+	 *             If an error occurs running the batch. The batch is cleared
+	 *             before the exception is passed up.
+	 */
+	public int[] executeBatch(PreparedStatement preparedStatement)
+			throws SQLException {
+
+		try {
+			return preparedStatement.executeBatch();
+		} catch (SQLException e) {
+			try {
+				preparedStatement.clearBatch();
+			} catch (SQLException ignored) {
+				// Report the original exception
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs an insert of one or more rows, such as a multi-row insert.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} to be run, obtained with
+	 *            <code>returnGeneratedKeys</code> set to true.
+	 * @param generatedKeys
+	 *            A list to which the generated keys (index 1 of each row in
+	 *            the generated keys result set) are added, in order. Nothing
+	 *            is added if the driver doesn't return generated keys.
+	 * @return The update count.
+	 * @throws SQLException
+	 *             If an error occurs running the query.
+	 */
+	protected int insert(PreparedStatement preparedStatement,
+			List<Object> generatedKeys) throws SQLException {
+
+		preparedStatement.execute();
+		int result = preparedStatement.getUpdateCount();
+
+		readGeneratedKeys(preparedStatement, generatedKeys);
+		return result;
+	}
+
+	private static void readGeneratedKeys(PreparedStatement preparedStatement,
+			List<Object> generatedKeys) {
+
+		// Get a generated keys result set, if the driver supports it:
+		ResultSet resultSet = null;
+		try {
+			resultSet = preparedStatement.getGeneratedKeys();
+			while ((resultSet != null) && resultSet.next()) {
+				generatedKeys.add(resultSet.getObject(1));
+			}
+		} catch (SQLException e) {
+			// No generated keys are available
+		} finally {
+			DbUtils.closeQuietly(resultSet);
+		}
+	}
+
 	/**
 	 * Selects a single row.
 	 * 
@@ -355,11 +649,15 @@ public class Jdbc {
 	 * @param fields
 	 *            The fields to be returned from the query.
 	 * @return A map of the given fields, associated with the objects returned
-	 *         by the query, as returned by {@link ResultSet#getObject(String)}.
+	 *         by the query, as returned by {@link ResultSet#getObject(int)}.
 	 * @throws SQLException
 	 *             If a database error occurs, or if more than one row is
 	 *             returned.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #selectOne(PreparedStatement, RowMapper)}, which maps
+	 *             the row straight into a bean.
 	 */
+	@Deprecated
 	protected Map<Field, Object> selectOne(PreparedStatement preparedStatement,
 			List<Field> fields) throws SQLException {
 
@@ -379,6 +677,43 @@ public class Jdbc {
 		return null;
 	}
 
+	/**
+	 * Selects a single row.
+	 * 
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param columns
+	 *            The columns to be returned from the query.
+	 * @return The values of the given columns, in the same order, as
+	 *         returned by {@link ResultSet#getObject(int)}, or null if no
+	 *         row was found.
+	 * @throws SQLException
+	 *             If a database error occurs, or if more than one row is
+	 *             returned.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #selectOne(PreparedStatement, RowMapper)}, which maps
+	 *             the row straight into a bean.
+	 */
+	@Deprecated
+	protected Object[] selectOne(PreparedStatement preparedStatement,
+			ColumnMetadata[] columns) throws SQLException {
+
+		preparedStatement.setMaxRows(2);
+		List<Object[]> rows = selectMany(preparedStatement, columns);
+
+		if (rows.size() > 1) {
+			throw new SQLException("More than one row returned.");
+		}
+
+		// Return the single row if present
+		if (rows.size() > 0) {
+			return rows.get(0);
+		}
+
+		// Otherwise return null
+		return null;
+	}
+
 	/**
 	 * Selects zero or more rows.
 	 * 
@@ -388,10 +723,16 @@ public class Jdbc {
 	 *            The fields to be returned from the query.
 	 * @return A list of maps, containing the given fields, associated with the
 	 *         objects returned by the query, as returned by
-	 *         {@link ResultSet#getObject(String)}.
+	 *         {@link ResultSet#getObject(int)}.
 	 * @throws SQLException
 	 *             If a database error occurs.
+	 * @deprecated Retained for compatibility. This holds every row in a
+	 *             {@link HashMap}, so a caller that then builds beans holds
+	 *             each row twice. Use
+	 *             {@link #selectMany(PreparedStatement, RowMapper)}, which
+	 *             maps each row straight into a bean.
 	 */
+	@Deprecated
 	public List<Map<Field, Object>> selectMany(
 			PreparedStatement preparedStatement, List<Field> fields)
 			throws SQLException {
@@ -400,12 +741,19 @@ public class Jdbc {
 		ResultSet resultSet = preparedStatement.getResultSet();
 		List<Map<Field, Object>> result = new ArrayList<Map<Field, Object>>();
 
+		String[] names = new String[fields.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = reflection.getColumnName(fields.get(i));
+		}
+
+		int[] indexes = null;
 		while (resultSet.next()) {
+			if (indexes == null) {
+				indexes = findColumns(resultSet, names);
+			}
 			Map<Field, Object> row = new HashMap<Field, Object>();
-			for (Field field : fields) {
-				Object value = resultSet.getObject(reflection
-						.getColumnName(field));
-				row.put(field, value);
+			for (int i = 0; i < indexes.length; i++) {
+				row.put(fields.get(i), resultSet.getObject(indexes[i]));
 			}
 			result.add(row);
 		}
@@ -413,6 +761,350 @@ public class Jdbc {
 		return result;
 	}
 
+	/**
+	 * Selects zero or more rows.
+	 * 
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param columns
+	 *            The columns to be returned from the query.
+	 * @return A list of rows, each containing the values of the given
+	 *         columns, in the same order, as returned by
+	 *         {@link ResultSet#getObject(int)}.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #selectMany(PreparedStatement, RowMapper)}, which
+	 *             maps each row straight into a bean.
+	 */
+	@Deprecated
+	public List<Object[]> selectMany(PreparedStatement preparedStatement,
+			ColumnMetadata[] columns) throws SQLException {
+
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		List<Object[]> result = new ArrayList<Object[]>();
+
+		int[] indexes = null;
+		while (resultSet.next()) {
+			if (indexes == null) {
+				indexes = findColumns(resultSet, columns);
+			}
+			Object[] row = new Object[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				row[i] = resultSet.getObject(indexes[i]);
+			}
+			result.add(row);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Selects a single row, mapping it with the given {@link RowMapper}.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param rowMapper
+	 *            Maps the row to a bean.
+	 * @return The mapped bean, or null if no row was found.
+	 * @throws SQLException
+	 *             If a database error occurs, or if more than one row is
+	 *             returned.
+	 */
+	protected <B> B selectOne(PreparedStatement preparedStatement,
+			RowMapper<B> rowMapper) throws SQLException {
+
+		preparedStatement.setMaxRows(2);
+		List<B> rows = selectMany(preparedStatement, rowMapper);
+
+		if (rows.size() > 1) {
+			throw new SQLException("More than one row returned.");
+		}
+
+		// Return the single row if present
+		if (rows.size() > 0) {
+			return rows.get(0);
+		}
+
+		// Otherwise return null
+		return null;
+	}
+
+	/**
+	 * Selects zero or more rows, mapping each one with the given
+	 * {@link RowMapper}. Column indexes are resolved once, before the first
+	 * row is read.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param rowMapper
+	 *            Maps each row to a bean.
+	 * @return A list of mapped beans.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 */
+	public <B> List<B> selectMany(PreparedStatement preparedStatement,
+			RowMapper<B> rowMapper) throws SQLException {
+
+		return selectMany(preparedStatement, rowMapper, 0);
+	}
+
+	/**
+	 * Selects a number of rows, skipping the first rows without mapping
+	 * them, and maps the rest with the given {@link RowMapper}.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param rowMapper
+	 *            Maps each row to a bean.
+	 * @param skip
+	 *            The number of rows to skip.
+	 * @return A list of mapped beans.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 */
+	public <B> List<B> selectMany(PreparedStatement preparedStatement,
+			RowMapper<B> rowMapper, int skip) throws SQLException {
+
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		List<B> result = new ArrayList<B>();
+		try {
+			for (int i = 0; i < skip; i++) {
+				if (!resultSet.next()) {
+					return result;
+				}
+			}
+
+			int[] indexes = null;
+			while (resultSet.next()) {
+				if (indexes == null) {
+					indexes = findColumns(resultSet, rowMapper.getColumns());
+				}
+				result.add(rowMapper.mapRow(resultSet, indexes));
+			}
+		} finally {
+			resultSet.close();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Selects a single row, mapping it with the given {@link CompiledMapper}.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 * @param preparedStatement
+	 *            The query to be run, prepared from
+	 *            {@link CompiledMapper#getSelectSql()}.
+	 * @param mapper
+	 *            Maps the row to a bean.
+	 * @return The mapped bean, or null if no row was found.
+	 * @throws SQLException
+	 *             If a database error occurs, or if more than one row is
+	 *             returned.
+	 */
+	protected <B> B selectOne(PreparedStatement preparedStatement,
+			CompiledMapper<B> mapper) throws SQLException {
+
+		preparedStatement.setMaxRows(2);
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		try {
+			// Return null if the row was not found
+			if (!resultSet.next()) {
+				return null;
+			}
+
+			B result = mapper.mapRow(resultSet);
+			if (resultSet.next()) {
+				throw new SQLException("More than one row returned.");
+			}
+			return result;
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Resolves the {@link ResultSet} index of each of the given columns. This
+	 * is intended to be called once per query, so that rows can then be read
+	 * with {@link ResultSet#getObject(int)}, rather than by label.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param columns
+	 *            The columns to be found.
+	 * @return The index of each column, in the same order.
+	 * @throws SQLException
+	 *             If a column is not present in the {@link ResultSet}.
+	 */
+	public static int[] findColumns(ResultSet resultSet,
+			ColumnMetadata[] columns) throws SQLException {
+
+		String[] names = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			names[i] = columns[i].getName();
+		}
+		return findColumns(resultSet, names);
+	}
+
+	/**
+	 * Resolves the {@link ResultSet} index of each of the given column names
+	 * from {@link ResultSetMetaData}. Labels are matched case-insensitively
+	 * and, as for {@link ResultSet#findColumn(String)}, the first matching
+	 * column wins. If the result columns are in the same order as the names
+	 * (e.g. <code>select *</code> of a bean's own table) no lookup is needed.
+	 * Names that can't be matched from the metadata fall back to
+	 * {@link ResultSet#findColumn(String)}.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param names
+	 *            The column names to be found.
+	 * @return The index of each column, in the same order.
+	 * @throws SQLException
+	 *             If a column is not present in the {@link ResultSet}.
+	 */
+	public static int[] findColumns(ResultSet resultSet, String[] names)
+			throws SQLException {
+
+		String[] labels = labels(resultSet);
+		int[] result = new int[names.length];
+
+		// Fast path: the result set columns are in the same order:
+		boolean inOrder = labels.length >= names.length;
+		for (int i = 0; inOrder && i < names.length; i++) {
+			if (names[i].equalsIgnoreCase(labels[i])) {
+				result[i] = i + 1;
+			} else {
+				inOrder = false;
+			}
+		}
+		if (inOrder) {
+			return result;
+		}
+
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (int i = labels.length; i > 0; i--) {
+			if (labels[i - 1] != null) {
+				// Lower indexes overwrite higher ones, so the first one wins:
+				indexes.put(labels[i - 1].toLowerCase(Locale.ROOT),
+						Integer.valueOf(i));
+			}
+		}
+		for (int i = 0; i < names.length; i++) {
+			Integer index = indexes.get(names[i].toLowerCase(Locale.ROOT));
+			if (index != null) {
+				result[i] = index.intValue();
+			} else {
+				result[i] = resultSet.findColumn(names[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @return The column labels, or an empty array if the driver doesn't
+	 *         provide {@link ResultSetMetaData}.
+	 * @throws SQLException
+	 *             If the metadata can't be read.
+	 */
+	private static String[] labels(ResultSet resultSet) throws SQLException {
+
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		if (metaData == null) {
+			return new String[0];
+		}
+		String[] labels = new String[metaData.getColumnCount()];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = metaData.getColumnLabel(i + 1);
+		}
+		return labels;
+	}
+
+	/**
+	 * Runs a query that returns a single number, such as
+	 * <code>select count(*)</code>.
+	 * 
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @return The value of the first column of the first row, or zero if
+	 *         there are no rows or the value is null.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 */
+	public long selectLong(PreparedStatement preparedStatement)
+			throws SQLException {
+
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		try {
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Runs a query that returns a single aggregate value, such as
+	 * <code>select max(a)</code>.
+	 * 
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @param function
+	 *            The aggregate function, which determines how the value is
+	 *            read.
+	 * @param column
+	 *            The column that was aggregated.
+	 * @return The value of the first column of the first row, as per
+	 *         {@link Aggregate}, or null if there are no rows.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 */
+	public Object selectAggregate(PreparedStatement preparedStatement,
+			Aggregate function, ColumnMetadata column) throws SQLException {
+
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		try {
+			return resultSet.next() ? function.read(resultSet, column) : null;
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Runs a query to find out whether any rows match, without reading them.
+	 * 
+	 * @param preparedStatement
+	 *            The query to be run.
+	 * @return true if the query returns at least one row.
+	 * @throws SQLException
+	 *             If a database error occurs.
+	 */
+	public boolean selectAny(PreparedStatement preparedStatement)
+			throws SQLException {
+
+		preparedStatement.execute();
+		ResultSet resultSet = preparedStatement.getResultSet();
+		try {
+			return resultSet.next();
+		} finally {
+			resultSet.close();
+		}
+	}
+
 	/**
 	 * Runs an update.
 	 * 
@@ -460,28 +1152,45 @@ public class Jdbc {
 	 *         otherwise and object of the appropriate type is returned.
 	 */
 	protected static Object doJdbcStandardConversions(Field field, Object value) {
+		return doJdbcStandardConversions(field.getType(), value);
+	}
+
+	/**
+	 * Does a number of convenience conversions in order to comply with the JDBC
+	 * type-mapping standard. For example FLOAT fields actually come back as a
+	 * Double rather than a Float, so the value needs to be converted.
+	 * 
+	 * @param type
+	 *            The type of the field that the value is intended for.
+	 * @param value
+	 *            The value to be checked.
+	 * @return If no conversion is required, the value parameter is returned,
+	 *         otherwise and object of the appropriate type is returned.
+	 */
+	protected static Object doJdbcStandardConversions(Class<?> type,
+			Object value) {
 		// Do some conversions to fulfil the JDBC standard for Double,
 		// Short and Byte, also BigDecimal if the field type is Double as this
 		// is sometimes used:
 		Object converted = value;
 
-		if (Float.class.equals(field.getType()) && (converted != null)
+		if (Float.class.equals(type) && (converted != null)
 				&& Double.class.equals(converted.getClass())) {
 			converted = Float.valueOf((float) ((Double) converted)
 					.doubleValue());
-		} else if (Short.class.equals(field.getType()) && (converted != null)
+		} else if (Short.class.equals(type) && (converted != null)
 				&& Integer.class.equals(converted.getClass())) {
 			converted = Short.valueOf((short) ((Integer) converted).intValue());
-		} else if (Byte.class.equals(field.getType()) && (converted != null)
+		} else if (Byte.class.equals(type) && (converted != null)
 				&& Integer.class.equals(converted.getClass())) {
 			converted = Byte.valueOf((byte) ((Integer) converted).intValue());
-		} else if (Byte.class.equals(field.getType()) && (converted != null)
+		} else if (Byte.class.equals(type) && (converted != null)
 				&& Short.class.equals(converted.getClass())) {
 			converted = Byte.valueOf((byte) ((Short) converted).shortValue());
-		} else if (Double.class.equals(field.getType()) && (converted != null)
+		} else if (Double.class.equals(type) && (converted != null)
 				&& BigDecimal.class.equals(converted.getClass())) {
 			converted = Double.valueOf(((BigDecimal) converted).doubleValue());
-		} else if (Character.class.equals(field.getType())
+		} else if (Character.class.equals(type)
 				&& (converted != null)
 				&& String.class.equals(converted.getClass())) {
 			if (((String) converted).length() >= 0) {
@@ -490,6 +1199,10 @@ public class Jdbc {
 				// Nearest Character representation for a zero-length String
 				converted = null;
 			}
+		} else if (Timestamp.class.equals(type) && (converted != null)
+				&& LocalDateTime.class.equals(converted.getClass())) {
+			// Connector/J 8 returns DATETIME columns as LocalDateTime:
+			converted = Timestamp.valueOf((LocalDateTime) converted);
 		}
 
 		return converted;
@@ -508,6 +1221,56 @@ public class Jdbc {
 	 */
 	public void setConnection(Connection connection) {
 		this.connection = connection;
+		if (statementCache != null
+				&& statementCache.getConnection() != connection) {
+			setStatementCacheSize(statementCache.getMaxSize());
+		}
+	}
+
+	/**
+	 * Enables, resizes or disables the statement cache. The cache is off by
+	 * default. When it is on, statements obtained from
+	 * {@link #newPreparedStatement(String, boolean)} should be finished with
+	 * by calling {@link #release(PreparedStatement)}, rather than being
+	 * closed, so they can be reused.
+	 * 
+	 * @param size
+	 *            The maximum number of idle statements to keep for the
+	 *            connection, or zero to disable caching. Any existing cache
+	 *            is closed.
+	 */
+	public void setStatementCacheSize(int size) {
+		if (statementCache != null) {
+			statementCache.close();
+		}
+		statementCache = size > 0 ? new StatementCache(connection, size)
+				: null;
+	}
+
+	/**
+	 * @return the statement cache, or null if caching is disabled. This
+	 *         gives access to the hit and miss counts.
+	 */
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * Sets the statement cache. This allows several {@link Jdbc} instances
+	 * (for example, those of {@link Orm} instances for different bean types)
+	 * to share a cache for the same connection.
+	 * 
+	 * @param statementCache
+	 *            the statement cache, which must belong to the connection of
+	 *            this instance, or null to disable caching.
+	 */
+	public void setStatementCache(StatementCache statementCache) {
+		if (statementCache != null
+				&& statementCache.getConnection() != connection) {
+			throw new IllegalArgumentException(
+					"The statement cache belongs to a different connection.");
+		}
+		this.statementCache = statementCache;
 	}
 
 	/**
@@ -0,0 +1,82 @@
+package net.jirasystems.cheeporm;
+
+/**
+ * The number of rows to skip and the maximum number of rows to return from a query, e.g. for
+ * {@link Orm#list(Object, Limit, java.lang.reflect.Field...)}. Where the {@link Dialect} of the
+ * database is known, these are pushed down into the SQL (see
+ * {@link Sql#limit(String, Dialect, boolean)}), so the database only does the work for the rows
+ * that are needed.
+ * <p>
+ * Skipping rows with an offset still means the database reads them. For deep pages, see
+ * {@link Orm#page(Object, java.lang.reflect.Field[], Object[], int)}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class Limit {
+
+	private final int offset;
+	private final int limit;
+
+	private Limit(int offset, int limit) {
+		this.offset = offset;
+		this.limit = limit;
+	}
+
+	/**
+	 * @param limit
+	 *            The maximum number of rows to return.
+	 * @return A limit of the first rows.
+	 * @throws IllegalArgumentException
+	 *             If the limit is less than 1.
+	 */
+	public static Limit of(int limit) {
+		return of(0, limit);
+	}
+
+	/**
+	 * @param offset
+	 *            The number of rows to skip.
+	 * @param limit
+	 *            The maximum number of rows to return after the skipped rows.
+	 * @return A limit of the rows after the offset.
+	 * @throws IllegalArgumentException
+	 *             If the offset is negative or the limit is less than 1.
+	 */
+	public static Limit of(int offset, int limit) {
+
+		if (offset < 0) {
+			throw new IllegalArgumentException("The offset can't be negative: " + offset);
+		} else if (limit < 1) {
+			throw new IllegalArgumentException("The limit must be at least 1: " + limit);
+		}
+		return new Limit(offset, limit);
+	}
+
+	/**
+	 * @return the number of rows to skip
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the maximum number of rows to return
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the number of rows up to the end of the limit, which is the number of rows to read if
+	 *         the offset can't be pushed down into the SQL
+	 */
+	public int getEnd() {
+		return (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+	}
+
+	@Override
+	public String toString() {
+		return "Limit " + limit + (offset > 0 ? " offset " + offset : "");
+	}
+}
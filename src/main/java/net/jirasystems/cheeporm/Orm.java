@@ -4,14 +4,24 @@
 package net.jirasystems.cheeporm;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.commons.dbutils.DbUtils;
 
 /**
  * This class provides CRUD functionality to persist a given bean type in a single row in a database
@@ -24,10 +34,10 @@ import java.util.Map;
  * clarity, pragmatics and a small set of common use-cases.
  * 
  * This class operates directly on instance fields and their declared types, so avoiding the need to
- * deduce getter and setter methods. It uses {@link Field#setAccessible(boolean)} as necessary to
- * directly read and write private fields. You are therefore free to use whatever method names or
- * conventions you wish, and can add validation and/or transformation logic for your application
- * within your methods. This is useful if, for example, you wish to use primitive getters and
+ * deduce getter and setter methods. It uses {@link Field#setAccessible(boolean)} once per field (see
+ * {@link ColumnMetadata}) to directly read and write private fields. You are therefore free to use
+ * whatever method names or conventions you wish, and can add validation and/or transformation logic
+ * for your application within your methods. This is useful if, for example, you wish to use primitive getters and
  * setters for non-nullable fields (see below), or perhaps protect the setter method for an ID
  * field. It is also useful if you want to, say, convert from Date to Timestamp within the getters
  * and setters to ensure correct mapping to SQL type from a private field type.
@@ -48,10 +58,15 @@ import java.util.Map;
  * to keep things simple, all validation of field contents is delegated to the database, which
  * already has the necessary functionality to report these kinds of violations.
  * 
- * Bean fields need to be Object types, rather than primitives, so that nulls can be represented.
- * This is necessary even for columns that cannot be null, because the
+ * Bean fields should generally be Object types, rather than primitives, so that nulls can be
+ * represented. This is necessary even for columns that cannot be null, because the
  * {@link #list(Object, Field...)} method needs to be able to use instances that only specify the
  * fields by which a query should be filtered. In this case, ID fields typically need to be null.
+ * Primitive fields (<code>int</code>, <code>long</code>, <code>double</code>,
+ * <code>boolean</code>, etc.) are supported for non-null columns, which saves a wrapper object per
+ * column per row in large result sets. Bear in mind that a primitive field is never null, so it is
+ * always included when filtering by example and always inserted, which means a key generated by
+ * the database needs a wrapper type. SQL NULL is read into a primitive field as zero (or false).
  * 
  * This class intentionally does not provide any relational functionality as this is complex and
  * design-specific. Instead, it delegates relationships upwards to the caller. This is the reason
@@ -91,6 +106,34 @@ public class Orm<B> {
 		return new Orm<B>(connection);
 	}
 
+	/**
+	 * The batch size used by {@link #updateAll(Iterable)} and {@link #deleteAll(Iterable)}.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	/**
+	 * The default maximum number of keys in an IN-list, e.g. for
+	 * {@link #deleteByIds(Class, Collection)}.
+	 */
+	public static final int DEFAULT_IN_LIST_SIZE = 1000;
+
+	/**
+	 * The default maximum number of placeholders in a multi-row insert. This is the limit for a
+	 * MySQL server-side prepared statement.
+	 */
+	public static final int DEFAULT_MAX_INSERT_PARAMETERS = 65535;
+
+	/**
+	 * The default maximum estimated size of a multi-row insert. This is the MySQL 5
+	 * <code>max_allowed_packet</code> default of 1MB, less a margin for the estimate.
+	 */
+	public static final int DEFAULT_MAX_INSERT_PACKET_SIZE = 1024 * 1024 * 3 / 4;
+
+	/**
+	 * The limit for queries that only need the first row.
+	 */
+	private static final Limit FIRST_ROW = Limit.of(1);
+
 	/**
 	 * A {@link Reflection} instance through which to execute queries.
 	 */
@@ -101,11 +144,72 @@ public class Orm<B> {
 	 */
 	private Sql sql;
 
+	/**
+	 * Cached SQL for the query shapes generated by {@link #sql}.
+	 */
+	private SqlTemplates sqlTemplates;
+
 	/**
 	 * A {@link Jdbc} instance through which to execute queries.
 	 */
 	private Jdbc jdbc;
 
+	/**
+	 * Whether to map query results with a {@link RowMapper} generated for each bean class.
+	 */
+	private boolean generatedMappers;
+
+	/**
+	 * Whether to use a {@link CompiledMapper}, if one has been generated for the bean class.
+	 */
+	private boolean compiledMappers = true;
+
+	/**
+	 * The maximum number of keys in an IN-list.
+	 */
+	private int inListSize = DEFAULT_IN_LIST_SIZE;
+
+	/**
+	 * Whether composite keys in an IN-list are matched with a row-value comparison.
+	 */
+	private boolean rowValueComparison;
+
+	/**
+	 * Whether {@link #createAll(Iterable, int)} sends multi-row inserts, rather than JDBC batches.
+	 */
+	private boolean multiRowInsert;
+
+	/**
+	 * Whether the keys generated by a multi-row insert are written back to the beans.
+	 */
+	private boolean multiRowGeneratedKeys;
+
+	/**
+	 * The maximum number of placeholders in a multi-row insert.
+	 */
+	private int maxInsertParameters = DEFAULT_MAX_INSERT_PARAMETERS;
+
+	/**
+	 * The maximum estimated size, in bytes, of a multi-row insert.
+	 */
+	private int maxInsertPacketSize = DEFAULT_MAX_INSERT_PACKET_SIZE;
+
+	/**
+	 * Statement settings for iterate and stream.
+	 */
+	private IterationOptions iterationOptions = new IterationOptions();
+
+	/**
+	 * The syntax used to limit the rows returned by a query, or null to use
+	 * {@link Statement#setMaxRows(int)}.
+	 */
+	private Dialect dialect;
+
+	/**
+	 * Whether {@link #dialect} has been detected or set.
+	 */
+	private boolean dialectKnown;
+
 	/**
 	 * Constructs a new instance.
 	 * 
@@ -116,6 +220,7 @@ public class Orm<B> {
 
 		reflection = new Reflection();
 		sql = new Sql();
+		sqlTemplates = SqlTemplates.shared();
 		jdbc = new Jdbc(connection);
 	}
 
@@ -130,32 +235,25 @@ public class Orm<B> {
 	 */
 	public int create(B bean) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listInsertFields(bean);
-		List<Field> keys = reflection.listInsertKeys(bean);
-
-		// Only add non-null key fields to the insert statement.
-		// MSSQL isn't too happy with attempting to insert null into an auto-increment field:
-		for (Field key : keys) {
-
-			key.setAccessible(true);
+		CompiledMapper<B> mapper = compiledMapper(bean);
+		String compiled = mapper != null ? mapper.getInsertSql(bean) : null;
+		if (compiled != null) {
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(compiled, true);
 			try {
-				if (key.get(bean) != null) {
-					fields.add(key);
-				}
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException("Unable to access value of key field " + key.getName() + " on instance of "
-						+ bean.getClass().getName()
-						+ " in order to determine whether it should be added to the insert.");
+				mapper.setInsertParameters(preparedStatement, bean);
+				return jdbc.insert(preparedStatement);
+			} finally {
+				jdbc.release(preparedStatement);
 			}
-			key.setAccessible(false);
 		}
 
-		String query = sql.insert(table, fields);
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query, true);
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		SqlTemplate template = sqlTemplates.insert(metadata, bean);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql(), true);
 		try {
 
-			jdbc.setParameters(preparedStatement, fields, bean);
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
 			int id = jdbc.insert(preparedStatement);
 
 			// System.out.println(preparedStatement);
@@ -163,7 +261,407 @@ public class Orm<B> {
 			return id;
 
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Inserts a number of rows, using JDBC batches rather than a round trip per row.
+	 * <p>
+	 * Because {@link #create(Object)} leaves out null keys, beans don't necessarily share the same
+	 * insert statement, so they are grouped by their insert SQL and each group is sent in batches
+	 * of up to <code>batchSize</code> rows on a single {@link PreparedStatement}. Where the driver
+	 * returns generated keys for a batch, each key is written back into the bean whose (single)
+	 * null key it was generated for. Multi-row inserts only do this if
+	 * {@link #setMultiRowGeneratedKeys(boolean)} is turned on.
+	 * <p>
+	 * NB: for MySQL, batches are only sent as a single statement if the connection has
+	 * <code>rewriteBatchedStatements=true</code>. For drivers that send each batch entry
+	 * separately, see {@link #setMultiRowInsert(boolean)}.
+	 * 
+	 * @param beans
+	 *            The beans to be inserted.
+	 * @param batchSize
+	 *            The maximum number of rows to send in a single batch.
+	 * @return The beans, in the order given, with the update count for each row.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly. Any batches
+	 *             that have already been executed are not rolled back.
+	 */
+	public BatchResult<B> createAll(Iterable<B> beans, int batchSize) throws SQLException {
+
+		return executeAll(beans, batchSize, BatchOperation.INSERT);
+	}
+
+	/**
+	 * Groups beans into batches and executes them.
+	 * 
+	 * @param beans
+	 *            The beans.
+	 * @param batchSize
+	 *            The maximum number of rows to send in a single batch.
+	 * @param operation
+	 *            The operation to be carried out for each bean.
+	 * @return The beans, in the order given, with the update count for each row.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	private BatchResult<B> executeAll(Iterable<B> beans, int batchSize, BatchOperation operation) throws SQLException {
+
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+		}
+
+		List<B> list = new ArrayList<B>();
+		for (B bean : beans) {
+			list.add(bean);
+		}
+		int[] updateCounts = new int[list.size()];
+
+		List<StatementBatch<B>> batches = new ArrayList<StatementBatch<B>>();
+		for (int i = 0; i < list.size(); i++) {
+			B bean = list.get(i);
+			StatementBatch<B> batch = batch(batches, bean, operation);
+			batch.indexes.add(Integer.valueOf(i));
+			if (batch.indexes.size() >= batchSize) {
+				executeBatch(batch, list, updateCounts);
+			}
+		}
+		for (StatementBatch<B> batch : batches) {
+			if (!batch.indexes.isEmpty()) {
+				executeBatch(batch, list, updateCounts);
+			}
+		}
+
+		return new BatchResult<B>(list, updateCounts);
+	}
+
+	/**
+	 * Finds, or adds, the batch for the given bean.
+	 * 
+	 * @param batches
+	 *            The batches so far.
+	 * @param bean
+	 *            The bean.
+	 * @param operation
+	 *            The operation to be carried out for the bean.
+	 * @return The batch with the same bean class and SQL as the bean.
+	 * @throws SQLException
+	 *             If the bean has no updatable fields.
+	 */
+	private StatementBatch<B> batch(List<StatementBatch<B>> batches, B bean, BatchOperation operation)
+			throws SQLException {
+
+		// Multi-row inserts are built from the column list, so can't use a compiled mapper:
+		CompiledMapper<B> mapper = operation == BatchOperation.INSERT && multiRowInsert ? null : compiledMapper(bean);
+		String query = null;
+		SqlTemplate template = null;
+		if (mapper != null) {
+			switch (operation) {
+			case INSERT:
+				query = mapper.getInsertSql(bean);
+				break;
+			case UPDATE:
+				query = mapper.getUpdateSql();
+				break;
+			default:
+				query = mapper.getDeleteSql();
+			}
+		}
+		if (query == null) {
+			mapper = null;
+			EntityMetadata<B> metadata = EntityMetadata.of(bean);
+			switch (operation) {
+			case INSERT:
+				template = sqlTemplates.insert(metadata, bean);
+				break;
+			case UPDATE:
+				template = sqlTemplates.update(metadata);
+				break;
+			default:
+				template = sqlTemplates.delete(metadata);
+			}
+			query = template.getSql();
+		}
+		if (query == null) {
+			throw new SQLException("Bean " + bean.getClass().getSimpleName() + " has no updateable fields.");
+		}
+
+		for (StatementBatch<B> batch : batches) {
+			if (batch.beanClass == bean.getClass() && batch.query.equals(query)) {
+				return batch;
+			}
+		}
+		StatementBatch<B> batch = new StatementBatch<B>(bean.getClass(), operation, query, mapper, template);
+		batches.add(batch);
+		return batch;
+	}
+
+	/**
+	 * Executes, and then empties, a batch.
+	 * 
+	 * @param batch
+	 *            The batch.
+	 * @param beans
+	 *            All of the beans being processed.
+	 * @param updateCounts
+	 *            The update counts for all of the beans being processed.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	private void executeBatch(StatementBatch<B> batch, List<B> beans, int[] updateCounts) throws SQLException {
+
+		boolean insert = batch.operation == BatchOperation.INSERT;
+		if (insert && multiRowInsert) {
+			executeMultiRowInsert(batch, beans, updateCounts);
+			return;
+		}
+
+		List<Object> generatedKeys = new ArrayList<Object>(insert ? batch.indexes.size() : 0);
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(batch.query, insert);
+		try {
+			for (Integer index : batch.indexes) {
+				B bean = beans.get(index.intValue());
+				if (batch.mapper == null) {
+					jdbc.setParameters(preparedStatement, batch.template.getParameters(), bean);
+				} else if (insert) {
+					batch.mapper.setInsertParameters(preparedStatement, bean);
+				} else if (batch.operation == BatchOperation.UPDATE) {
+					batch.mapper.setUpdateParameters(preparedStatement, bean);
+				} else {
+					batch.mapper.setKeyParameters(preparedStatement, bean);
+				}
+				preparedStatement.addBatch();
+			}
+
+			int[] counts;
+			if (insert) {
+				counts = jdbc.insertBatch(preparedStatement, generatedKeys);
+			} else {
+				counts = jdbc.executeBatch(preparedStatement);
+			}
+			for (int i = 0; i < counts.length && i < batch.indexes.size(); i++) {
+				updateCounts[batch.indexes.get(i).intValue()] = counts[i];
+			}
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+
+		if (insert) {
+			setGeneratedKeys(batch.indexes, 0, batch.indexes.size(), generatedKeys, beans);
+		}
+		batch.indexes.clear();
+	}
+
+	/**
+	 * Executes, and then empties, a batch of inserts as one or more multi-row inserts. Each
+	 * statement is sized to stay within {@link #getMaxInsertParameters()} placeholders and an
+	 * estimated {@link #getMaxInsertPacketSize()} bytes.
+	 * 
+	 * @param batch
+	 *            The batch.
+	 * @param beans
+	 *            All of the beans being inserted.
+	 * @param updateCounts
+	 *            The update counts for all of the beans being inserted.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	private void executeMultiRowInsert(StatementBatch<B> batch, List<B> beans, int[] updateCounts) throws SQLException {
+
+		ColumnMetadata[] columns = batch.template.getParameters();
+		String table = EntityMetadata.of(beans.get(batch.indexes.get(0).intValue())).getTable();
+		int maxRows = columns.length == 0 ? 1 : Math.max(1, maxInsertParameters / columns.length);
+		int baseSize = sql.insert(table, columns, 0).length();
+
+		int start = 0;
+		while (start < batch.indexes.size()) {
+
+			// Work out how many rows will fit:
+			int rows = 0;
+			int size = baseSize;
+			while (start + rows < batch.indexes.size() && rows < maxRows) {
+				B bean = beans.get(batch.indexes.get(start + rows).intValue());
+				size += estimateSize(columns, bean);
+				if (rows > 0 && size > maxInsertPacketSize) {
+					break;
+				}
+				rows++;
+			}
+
+			List<Object> generatedKeys = new ArrayList<Object>(rows);
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(sql.insert(table, columns, rows),
+					multiRowGeneratedKeys);
+			try {
+				int offset = 0;
+				for (int i = start; i < start + rows; i++) {
+					B bean = beans.get(batch.indexes.get(i).intValue());
+					offset = jdbc.setParameters(preparedStatement, columns, bean, offset);
+				}
+				int updateCount = jdbc.insert(preparedStatement, generatedKeys);
+
+				// The update count is for the statement, rather than each row:
+				for (int i = start; i < start + rows; i++) {
+					updateCounts[batch.indexes.get(i).intValue()] = updateCount == rows ? 1 : Statement.SUCCESS_NO_INFO;
+				}
+			} finally {
+				jdbc.release(preparedStatement);
+			}
+
+			if (multiRowGeneratedKeys) {
+				setGeneratedKeys(batch.indexes, start, rows, generatedKeys, beans);
+			}
+			start += rows;
+		}
+		batch.indexes.clear();
+	}
+
+	/**
+	 * Estimates the number of bytes a row adds to a multi-row insert.
+	 * 
+	 * @param columns
+	 *            The columns being inserted.
+	 * @param bean
+	 *            The bean being inserted.
+	 * @return The estimated size.
+	 */
+	private static int estimateSize(ColumnMetadata[] columns, Object bean) {
+
+		// Placeholders, separators and brackets:
+		int size = columns.length * 3 + 2;
+		for (ColumnMetadata column : columns) {
+			Object value = column.getValue(bean);
+			if (value instanceof CharSequence) {
+				// Allow for quoting/escaping and multi-byte characters:
+				size += ((CharSequence) value).length() * 3 + 2;
+			} else if (value instanceof byte[]) {
+				size += ((byte[]) value).length * 2 + 3;
+			} else if (value != null) {
+				size += 32;
+			} else {
+				size += 4;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes generated keys back to beans, in order, as long as there's exactly one key per row.
+	 * 
+	 * @param indexes
+	 *            The indexes of the inserted beans.
+	 * @param start
+	 *            The position in indexes of the first inserted bean.
+	 * @param rows
+	 *            The number of rows inserted.
+	 * @param generatedKeys
+	 *            The generated keys returned by the driver.
+	 * @param beans
+	 *            All of the beans being inserted.
+	 */
+	private static <T> void setGeneratedKeys(List<Integer> indexes, int start, int rows, List<Object> generatedKeys,
+			List<T> beans) {
+
+		// Only write keys back if there's exactly one per row:
+		if (generatedKeys.size() != rows) {
+			return;
+		}
+		for (int i = 0; i < generatedKeys.size(); i++) {
+			T bean = beans.get(indexes.get(start + i).intValue());
+			setGeneratedKey(EntityMetadata.of(bean), bean, generatedKeys.get(i));
+		}
+	}
+
+	/**
+	 * Sets a generated key on a bean, if the bean has exactly one key column without a value.
+	 * 
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The bean that was inserted.
+	 * @param key
+	 *            The generated key.
+	 */
+	private static <T> void setGeneratedKey(EntityMetadata<T> metadata, T bean, Object key) {
+
+		ColumnMetadata generated = null;
+		for (ColumnMetadata column : metadata.getKeys()) {
+			if (column.getValue(bean) == null) {
+				if (generated != null) {
+					// Can't tell which key was generated
+					return;
+				}
+				generated = column;
+			}
+		}
+		if (generated != null && key != null) {
+			generated.setValue(bean, toKeyType(generated.getType(), key));
+		}
+	}
+
+	/**
+	 * Drivers return generated keys as various numeric types (e.g. MySQL returns
+	 * {@link BigInteger}), so this converts a key to the type of the key field.
+	 * 
+	 * @param type
+	 *            The type of the key field.
+	 * @param key
+	 *            The generated key.
+	 * @return The key, as the given type if a numeric conversion is possible.
+	 */
+	private static Object toKeyType(Class<?> type, Object key) {
+
+		if (type.isInstance(key) || !(key instanceof Number)) {
+			return key;
+		}
+		Number number = (Number) key;
+		if (Integer.class.equals(type)) {
+			return Integer.valueOf(number.intValue());
+		} else if (Long.class.equals(type)) {
+			return Long.valueOf(number.longValue());
+		} else if (Short.class.equals(type)) {
+			return Short.valueOf(number.shortValue());
+		} else if (Byte.class.equals(type)) {
+			return Byte.valueOf(number.byteValue());
+		} else if (BigInteger.class.equals(type)) {
+			return new BigDecimal(number.toString()).toBigInteger();
+		} else if (BigDecimal.class.equals(type)) {
+			return new BigDecimal(number.toString());
+		} else if (String.class.equals(type)) {
+			return number.toString();
+		}
+		return key;
+	}
+
+	/**
+	 * The operations that can be batched.
+	 */
+	private enum BatchOperation {
+		INSERT, UPDATE, DELETE;
+	}
+
+	/**
+	 * A group of beans that share the same statement.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 */
+	private static final class StatementBatch<B> {
+
+		private final Class<?> beanClass;
+		private final BatchOperation operation;
+		private final String query;
+		private final CompiledMapper<B> mapper;
+		private final SqlTemplate template;
+		private final List<Integer> indexes = new ArrayList<Integer>();
+
+		StatementBatch(Class<?> beanClass, BatchOperation operation, String query, CompiledMapper<B> mapper,
+				SqlTemplate template) {
+			this.beanClass = beanClass;
+			this.operation = operation;
+			this.query = query;
+			this.mapper = mapper;
+			this.template = template;
 		}
 	}
 
@@ -182,20 +680,29 @@ public class Orm<B> {
 	 */
 	public B read(B bean) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> keys = reflection.listKeys(bean);
-		List<Field> all = reflection.listAll(bean);
+		CompiledMapper<B> mapper = compiledMapper(bean);
+		if (mapper != null) {
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(mapper.getSelectSql());
+			try {
+				mapper.setKeyParameters(preparedStatement, bean);
+				return jdbc.selectOne(preparedStatement, mapper);
+			} finally {
+				jdbc.release(preparedStatement);
+			}
+		}
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		SqlTemplate template = sqlTemplates.select(metadata);
 
-		String query = sql.select(table, keys);
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
 
 		try {
 
-			jdbc.setParameters(preparedStatement, keys, bean);
-			return read(bean, preparedStatement, all);
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			return jdbc.selectOne(preparedStatement, rowMapper(metadata));
 
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
 		}
 	}
 
@@ -218,25 +725,29 @@ public class Orm<B> {
 	 */
 	protected B read(B bean, PreparedStatement preparedStatement, List<Field> fields) throws SQLException {
 
-		Map<Field, Object> row = jdbc.selectOne(preparedStatement, fields);
-
-		// If the row was not found, return null
-		if (row == null) {
-			return null;
-		}
-
-		// If the row was found, populate a new bean
-		B read = reflection.newInstance(bean);
-		for (Field field : row.keySet()) {
-			Object value = row.get(field);
-			value = Jdbc.doJdbcStandardConversions(field, value);
-			// Now that we have the right type, set the field:
-			reflection.setFieldValue(field, read, value);
-		}
+		return read(bean, preparedStatement, EntityMetadata.of(bean).getColumns(fields));
+	}
 
-		// System.out.println(preparedStatement);
+	/**
+	 * 
+	 * Reads a row from the database. The values from the row are placed into a new instance of the
+	 * type of the given bean. If the row was not found, null is returned. In both cases, the bean
+	 * passed in remains unchanged.
+	 * 
+	 * @param bean
+	 *            The bean whose type will be returned.
+	 * @param preparedStatement
+	 *            A {@link PreparedStatement} with all parameters set, ready to be run. It is the
+	 *            caller's responsibility to close the statement.
+	 * @param columns
+	 *            The columns to be set in the returned bean from the result of the query.
+	 * @return A populated instance of the given bean class, or null if no row was returned.
+	 * @throws SQLException
+	 *             If an error occurs in running the query, or if more than one row is returned.
+	 */
+	protected B read(B bean, PreparedStatement preparedStatement, ColumnMetadata[] columns) throws SQLException {
 
-		return read;
+		return jdbc.selectOne(preparedStatement, new ReflectionRowMapper<B>(EntityMetadata.of(bean), columns));
 	}
 
 	/**
@@ -256,16 +767,15 @@ public class Orm<B> {
 	 */
 	public int update(B bean) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listUpdateFields(bean);
-		List<Field> keys = reflection.listKeys(bean);
-
-		// Create a combined list of fields and keys
-		List<Field> parameters = new ArrayList<Field>();
-		parameters.addAll(fields);
-		parameters.addAll(keys);
-
-		String query = sql.update(table, fields, keys);
+		CompiledMapper<B> mapper = compiledMapper(bean);
+		SqlTemplate template = null;
+		String query;
+		if (mapper != null) {
+			query = mapper.getUpdateSql();
+		} else {
+			template = sqlTemplates.update(EntityMetadata.of(bean));
+			query = template.getSql();
+		}
 
 		if (query == null) {
 			throw new SQLException("Bean " + bean.getClass().getSimpleName() + " has no updateable fields.");
@@ -275,7 +785,12 @@ public class Orm<B> {
 
 		try {
 
-			jdbc.setParameters(preparedStatement, parameters, bean);
+			if (mapper != null) {
+				mapper.setUpdateParameters(preparedStatement, bean);
+			} else {
+				// Set the fields, followed by the keys
+				jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			}
 			int updateCount = jdbc.update(preparedStatement);
 			if (updateCount != 1) {
 				throw new SQLException("Update count was " + updateCount + ". Expected exatly 1.");
@@ -286,10 +801,48 @@ public class Orm<B> {
 			return updateCount;
 
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
 		}
 	}
 
+	/**
+	 * Updates a number of rows, reusing one {@link PreparedStatement} per bean class with JDBC
+	 * batches of up to {@link #DEFAULT_BATCH_SIZE} rows.
+	 * 
+	 * @param beans
+	 *            Beans containing the key(s) that identify the rows to be updated and the values
+	 *            that the rows will contain after the update.
+	 * @return The beans, in the order given, with the update count for each row. Unlike
+	 *         {@link #update(Object)}, an update count other than 1 is not an error: use
+	 *         {@link BatchResult#getMissed()} and {@link BatchResult#getMultiple()} to find beans
+	 *         that updated 0 or more than one row.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, or if the bean has no updatable fields.
+	 */
+	public BatchResult<B> updateAll(Iterable<B> beans) throws SQLException {
+
+		return updateAll(beans, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Updates a number of rows, reusing one {@link PreparedStatement} per bean class with JDBC
+	 * batches.
+	 * 
+	 * @param beans
+	 *            Beans containing the key(s) that identify the rows to be updated and the values
+	 *            that the rows will contain after the update.
+	 * @param batchSize
+	 *            The maximum number of rows to send in a single batch.
+	 * @return The beans, in the order given, with the update count for each row.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, or if the bean has no updatable fields.
+	 * @see #updateAll(Iterable)
+	 */
+	public BatchResult<B> updateAll(Iterable<B> beans, int batchSize) throws SQLException {
+
+		return executeAll(beans, batchSize, BatchOperation.UPDATE);
+	}
+
 	/**
 	 * Deletes a row from the database. This method throws an exception if the update count is not
 	 * 1.
@@ -319,15 +872,24 @@ public class Orm<B> {
 	 */
 	public int deleteMany(B bean) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> keys = reflection.listKeys(bean);
-
-		String query = sql.delete(table, keys);
+		CompiledMapper<B> mapper = compiledMapper(bean);
+		SqlTemplate template = null;
+		String query;
+		if (mapper != null) {
+			query = mapper.getDeleteSql();
+		} else {
+			template = sqlTemplates.delete(EntityMetadata.of(bean));
+			query = template.getSql();
+		}
 		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
 
 		try {
 
-			jdbc.setParameters(preparedStatement, keys, bean);
+			if (mapper != null) {
+				mapper.setKeyParameters(preparedStatement, bean);
+			} else {
+				jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			}
 			int deleteCount = jdbc.delete(preparedStatement);
 			return deleteCount;
 
@@ -336,96 +898,388 @@ public class Orm<B> {
 		} catch (SQLException e) {
 			throw new SQLException(e.getMessage() + " (query: " + query + ")");
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
 		}
 	}
 
 	/**
-	 * This method lists records from the bean table in the database. Any non-null fields in the
-	 * bean are used to filter the results using a where clause.
+	 * Deletes a number of rows, reusing one {@link PreparedStatement} per bean class with JDBC
+	 * batches of up to {@link #DEFAULT_BATCH_SIZE} rows.
 	 * 
-	 * @param bean
-	 *            A bean instance whose field values provide the filter for returned rows.
-	 * @return A list of bean instances that match the criteria specified in the parameter instance.
+	 * @param beans
+	 *            Beans containing the key(s) that identify the rows to be deleted.
+	 * @return The beans, in the order given, with the delete count for each row. Unlike
+	 *         {@link #delete(Object)}, a count other than 1 is not an error: use
+	 *         {@link BatchResult#getMissed()} and {@link BatchResult#getMultiple()} to find beans
+	 *         that deleted 0 or more than one row.
 	 * @throws SQLException
-	 *             If an error occurs at the database level, it is passed up directly.
+	 *             If an error occurs at the database level.
 	 */
-	public int count(B bean) throws SQLException {
-
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listAll(bean);
-
-		// Check all fields for values. Populated fields will be used in the
-		// where clause.
+	public BatchResult<B> deleteAll(Iterable<B> beans) throws SQLException {
 
-		List<Field> filters = new ArrayList<Field>();
-		for (Field field : fields) {
-			Object value = reflection.getFieldValue(field, bean);
-			if (value != null) {
-				filters.add(field);
-			}
-		}
-
-		String query = sql.count(table, filters);
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
-
-		try {
+		return deleteAll(beans, DEFAULT_BATCH_SIZE);
+	}
 
-			jdbc.setParameters(preparedStatement, filters, bean);
+	/**
+	 * Deletes a number of rows, reusing one {@link PreparedStatement} per bean class with JDBC
+	 * batches.
+	 * 
+	 * @param beans
+	 *            Beans containing the key(s) that identify the rows to be deleted.
+	 * @param batchSize
+	 *            The maximum number of rows to send in a single batch.
+	 * @return The beans, in the order given, with the delete count for each row.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 * @see #deleteAll(Iterable)
+	 */
+	public BatchResult<B> deleteAll(Iterable<B> beans, int batchSize) throws SQLException {
 
-			preparedStatement.execute();
-			ResultSet resultSet = preparedStatement.getResultSet();
+		return executeAll(beans, batchSize, BatchOperation.DELETE);
+	}
 
-			int result = 0;
-			if (resultSet.next()) {
-				result = resultSet.getInt(0);
+	/**
+	 * Deletes rows by key, using <code>delete from t where id in (?, ?, ...)</code> statements of
+	 * up to {@link #getInListSize()} keys each.
+	 * <p>
+	 * For beans with a composite key, each id can be given as an <code>Object[]</code> or
+	 * {@link List} of values, in the order of {@link EntityMetadata#getKeys()}, or as a bean with
+	 * its keys set. Composite keys are matched with an OR of ANDs, or a row-value comparison if
+	 * {@link #setRowValueComparison(boolean)} has been enabled.
+	 * 
+	 * @param beanClass
+	 *            The bean class.
+	 * @param ids
+	 *            The keys of the rows to be deleted.
+	 * @return The total number of rows deleted.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	public int deleteByIds(Class<B> beanClass, Collection<?> ids) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(beanClass);
+		ColumnMetadata[] keys = keys(metadata);
+
+		int result = 0;
+		Iterator<?> iterator = ids.iterator();
+		int remaining = ids.size();
+		while (remaining > 0) {
+			int count = Math.min(remaining, inListSize);
+			String query = sql.deleteIn(metadata.getTable(), keys, count, rowValueComparison);
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
+			try {
+				setKeyParameters(preparedStatement, metadata, iterator, count);
+				result += jdbc.delete(preparedStatement);
+			} finally {
+				jdbc.release(preparedStatement);
 			}
-
-			System.out.println(preparedStatement);
-
-			return result;
-
-		} finally {
-			preparedStatement.close();
+			remaining -= count;
 		}
+		return result;
 	}
 
 	/**
-	 * Gets the record with the maximum value if the field defined by maxValueField and with the
-	 * filters defined by the values in the given bean.
+	 * Reads rows by key, using <code>select ... from t where id in (?, ?, ...)</code> queries of up to
+	 * {@link #getInListSize()} keys each. Ids can be given as for
+	 * {@link #deleteByIds(Class, Collection)}.
 	 * 
-	 * @param bean
+	 * @param beanClass
+	 *            The bean class.
+	 * @param ids
+	 *            The keys of the rows to be read.
+	 * @return The beans that were found, keyed by their key value. For a composite key, the map key
+	 *         is a {@link List} of the key values, in the order of {@link EntityMetadata#getKeys()}.
+	 *         Ids that were not found are not present in the map.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	public Map<Object, B> readAll(Class<B> beanClass, Collection<?> ids) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(beanClass);
+		ColumnMetadata[] keys = keys(metadata);
+		RowMapper<B> rowMapper = rowMapper(metadata);
+
+		Map<Object, B> result = new HashMap<Object, B>();
+		Iterator<?> iterator = ids.iterator();
+		int remaining = ids.size();
+		while (remaining > 0) {
+			int count = Math.min(remaining, inListSize);
+			String query = sql.selectIn(metadata.getTable(), metadata.getAll(), keys, count, rowValueComparison);
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
+			try {
+				setKeyParameters(preparedStatement, metadata, iterator, count);
+				for (B bean : jdbc.selectMany(preparedStatement, rowMapper)) {
+					result.put(mapKey(keys, keyValues(metadata, bean)), bean);
+				}
+			} finally {
+				jdbc.release(preparedStatement);
+			}
+			remaining -= count;
+		}
+		return result;
+	}
+
+	/**
+	 * Reads rows by key, as per {@link #readAll(Class, Collection)}, returning the beans in the
+	 * order of the given ids.
+	 * <p>
+	 * NB: key values are compared using {@link Object#equals(Object)}, so ids need to be of the
+	 * same type as the key field(s), e.g. {@link Integer} rather than {@link Long}.
+	 * 
+	 * @param beanClass
+	 *            The bean class.
+	 * @param ids
+	 *            The keys of the rows to be read.
+	 * @return A list with one entry for each id, which is null if the row was not found.
+	 * @throws SQLException
+	 *             If an error occurs at the database level.
+	 */
+	public List<B> readAllInOrder(Class<B> beanClass, List<?> ids) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(beanClass);
+		ColumnMetadata[] keys = keys(metadata);
+		Map<Object, B> read = readAll(beanClass, ids);
+
+		List<B> result = new ArrayList<B>(ids.size());
+		for (Object id : ids) {
+			result.add(read.get(mapKey(keys, keyValues(metadata, id))));
+		}
+		return result;
+	}
+
+	/**
+	 * @param metadata
+	 *            The bean metadata.
+	 * @return The key columns.
+	 * @throws SQLException
+	 *             If the bean has no keys.
+	 */
+	private static ColumnMetadata[] keys(EntityMetadata<?> metadata) throws SQLException {
+
+		ColumnMetadata[] keys = metadata.getKeys();
+		if (keys.length == 0) {
+			throw new SQLException("Bean " + metadata.getBeanClass().getSimpleName() + " has no key fields.");
+		}
+		return keys;
+	}
+
+	/**
+	 * @param keys
+	 *            The key columns.
+	 * @param values
+	 *            The key values.
+	 * @return The value, for a single key, or a list of the values for a composite key.
+	 */
+	private static Object mapKey(ColumnMetadata[] keys, Object[] values) {
+
+		return keys.length == 1 ? values[0] : Arrays.asList(values);
+	}
+
+	/**
+	 * Sets the parameters for a number of keys.
+	 * 
+	 * @param preparedStatement
+	 *            The statement, generated by {@link Sql#inClause(ColumnMetadata[], int, boolean)}.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param ids
+	 *            The keys.
+	 * @param count
+	 *            The number of keys to take from the iterator.
+	 * @throws SQLException
+	 *             If an error occurs in setting a parameter.
+	 */
+	private void setKeyParameters(PreparedStatement preparedStatement, EntityMetadata<B> metadata, Iterator<?> ids,
+			int count) throws SQLException {
+
+		ColumnMetadata[] keys = metadata.getKeys();
+		int parameterIndex = 1;
+		for (int i = 0; i < count; i++) {
+			Object[] values = keyValues(metadata, ids.next());
+			for (int k = 0; k < keys.length; k++) {
+				jdbc.setParameterValue(preparedStatement, keys[k], values[k], parameterIndex++);
+			}
+		}
+	}
+
+	/**
+	 * Gets the key values from an id, as passed to {@link #deleteByIds(Class, Collection)} or
+	 * {@link #readAll(Class, Collection)}.
+	 * 
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param id
+	 *            A key value, a list or array of key values, or a bean.
+	 * @return The key values, in the order of {@link EntityMetadata#getKeys()}.
+	 */
+	private Object[] keyValues(EntityMetadata<B> metadata, Object id) {
+
+		ColumnMetadata[] keys = metadata.getKeys();
+		if (metadata.getBeanClass().isInstance(id)) {
+			Object[] values = new Object[keys.length];
+			for (int k = 0; k < keys.length; k++) {
+				values[k] = keys[k].getValue(id);
+			}
+			return values;
+		} else if (keys.length == 1) {
+			return new Object[] { id };
+		} else if (id instanceof Object[] && ((Object[]) id).length == keys.length) {
+			return (Object[]) id;
+		} else if (id instanceof List && ((List<?>) id).size() == keys.length) {
+			return ((List<?>) id).toArray();
+		}
+		throw new IllegalArgumentException("The composite key of " + metadata.getBeanClass().getSimpleName()
+				+ " must be given as an array or list of " + keys.length + " values, or a bean: " + id);
+	}
+
+	/**
+	 * Counts records in the bean table in the database. Any non-null fields in the bean are used to
+	 * filter the rows counted using a where clause. Only the count is returned by the database.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for counted rows.
+	 * @return The number of rows that match the criteria specified in the parameter instance.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public long count(B bean) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		SqlTemplate template = sqlTemplates.count(metadata, bean);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+
+		try {
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			return jdbc.selectLong(preparedStatement);
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Checks whether there are any records in the bean table in the database that match the
+	 * non-null fields in the bean. This is cheaper than {@link #count(Object)}, because the
+	 * database can stop at the first matching row and no columns are read.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter.
+	 * @return true if at least one row matches the criteria specified in the parameter instance.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public boolean exists(B bean) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		Dialect dialect = Dialect.forQuery(getDialect(), false);
+		SqlTemplate template = sqlTemplates.exists(metadata, bean, dialect);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+
+		try {
+			setLimitedParameters(preparedStatement, template, bean, dialect, FIRST_ROW);
+			return jdbc.selectAny(preparedStatement);
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Gets the record with the maximum value if the field defined by maxValueField and with the
+	 * filters defined by the values in the given bean.
+	 * <p>
+	 * Where the {@link #getDialect()} is known, this is a single query ordered by the field,
+	 * descending, and limited to one row, which the database can answer from an index on the
+	 * field. Otherwise the maximum is found with a subquery, with the same filters. If several
+	 * rows share the maximum value, the single query returns one of them, whereas the subquery
+	 * form fails.
+	 * 
+	 * @param bean
 	 *            the bean with filter values added
 	 * @param maxValueField
 	 *            the field for the max value
-	 * @return the top record ever
+	 * @return the top record ever, or null if no rows match (or the field is null in every row)
 	 * @throws SQLException
 	 *             An {@link SQLException}
 	 */
 	public B getMax(B bean, Field maxValueField) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listAll(bean);
+		return getExtremum(bean, maxValueField, true);
+	}
+
+	/**
+	 * Gets the record with the minimum value of the field defined by minValueField and with the
+	 * filters defined by the values in the given bean. See {@link #getMax(Object, Field)}.
+	 * 
+	 * @param bean
+	 *            the bean with filter values added
+	 * @param minValueField
+	 *            the field for the min value
+	 * @return the bottom record, or null if no rows match (or the field is null in every row)
+	 * @throws SQLException
+	 *             An {@link SQLException}
+	 */
+	public B getMin(B bean, Field minValueField) throws SQLException {
+
+		return getExtremum(bean, minValueField, false);
+	}
+
+	private B getExtremum(B bean, Field field, boolean max) throws SQLException {
 
-		// Check all fields for values. Populated fields will be used in the
-		// where clause.
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		ColumnMetadata column = metadata.getColumn(field);
+		Dialect dialect = getDialect();
 
-		List<Field> filters = new ArrayList<Field>();
-		for (Field field : fields) {
-			Object value = reflection.getFieldValue(field, bean);
-			if (value != null) {
-				filters.add(field);
+		if (dialect != null) {
+			SqlTemplate template = sqlTemplates.first(metadata, bean, column, max, dialect);
+			PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+			try {
+				setLimitedParameters(preparedStatement, template, bean, dialect, FIRST_ROW);
+				return jdbc.selectOne(preparedStatement, rowMapper(metadata));
+			} finally {
+				jdbc.release(preparedStatement);
 			}
 		}
 
-		String query = sql.max(table, filters, maxValueField);
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
+		SqlTemplate template = max ? sqlTemplates.max(metadata, bean, column) : sqlTemplates.min(metadata, bean,
+				column);
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+		try {
+			jdbc.setParametersRepeat(preparedStatement, template.getParameters(), bean, 2);
+			return jdbc.selectOne(preparedStatement, rowMapper(metadata));
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Computes an aggregate (count, sum, average, min or max) of a field over the records that
+	 * match the non-null fields in the bean. Only the aggregate value is returned by the database
+	 * and no beans are created.
+	 * 
+	 * @param bean
+	 *            the bean with filter values added
+	 * @param function
+	 *            the aggregate function
+	 * @param field
+	 *            the field to be aggregated
+	 * @return the aggregate value: see {@link Aggregate} for the type returned by each function
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public Object aggregate(B bean, Aggregate function, Field field) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		ColumnMetadata column = metadata.getColumn(field);
+		SqlTemplate template = sqlTemplates.aggregate(metadata, bean, column, function);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
 
 		try {
-			jdbc.setParametersRepeat(preparedStatement, filters, bean, 2);
-			return read(bean, preparedStatement, fields);
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			return jdbc.selectAggregate(preparedStatement, function, column);
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
 		}
 	}
 
@@ -443,64 +1297,438 @@ public class Orm<B> {
 	 */
 	public List<B> list(B bean, Field... orderBy) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listAll(bean);
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		SqlTemplate template = sqlTemplates.list(metadata, bean, metadata.getColumns(orderBy));
 
-		// Check all fields for values. Populated fields will be used in the
-		// where clause.
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
 
-		List<Field> filters = new ArrayList<Field>();
-		for (Field field : fields) {
-			Object value = reflection.getFieldValue(field, bean);
-			if (value != null) {
-				filters.add(field);
-			}
+		try {
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			return jdbc.selectMany(preparedStatement, rowMapper(metadata));
+		} finally {
+			jdbc.release(preparedStatement);
 		}
+	}
 
-		String query = sql.list(table, filters, Arrays.asList(orderBy));
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
+	/**
+	 * Lists records from the bean table in the database, as per {@link #list(Object, Field...)},
+	 * but only returns the rows within the given limit. Where the {@link #getDialect()} is known,
+	 * the limit and offset are part of the SQL, so the database only does the work for the rows
+	 * that are returned. Otherwise the rows are capped with {@link Statement#setMaxRows(int)} and
+	 * rows before the offset are skipped without being mapped. An ORDER BY is needed for the rows
+	 * within the limit to be well defined. Without one, a {@link Dialect#FETCH} database is also
+	 * limited with {@link Statement#setMaxRows(int)} (see {@link Dialect#forQuery(Dialect, boolean)}).
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param limit
+	 *            The rows to be returned, or null for all rows.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return A list of bean instances that match the criteria specified in the parameter instance,
+	 *         within the limit.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public List<B> list(B bean, Limit limit, Field... orderBy) throws SQLException {
+
+		if (limit == null) {
+			return list(bean, orderBy);
+		}
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		Dialect dialect = Dialect.forQuery(getDialect(), orderBy.length > 0);
+		SqlTemplate template = sqlTemplates.limit(metadata, bean, metadata.getColumns(orderBy), dialect,
+				limit.getOffset() > 0);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
 
 		try {
-			jdbc.setParameters(preparedStatement, filters, bean);
-			return list(preparedStatement, fields, bean);
+			setLimitedParameters(preparedStatement, template, bean, dialect, limit);
+			return jdbc.selectMany(preparedStatement, rowMapper(metadata), skipped(dialect, limit));
 		} finally {
-			preparedStatement.close();
+			jdbc.release(preparedStatement);
 		}
 	}
 
 	/**
-	 * This method lists records from the bean table in the database. Any non-null fields in the
-	 * bean are used to filter the results using a where clause.
+	 * Lists records from the bean table in the database, as per {@link #list(Object, Field...)},
+	 * but only reads the columns of the given projection. Only the projected fields are set in the
+	 * returned beans, so the database doesn't need to send columns that aren't needed.
 	 * 
 	 * @param bean
 	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param projection
+	 *            The fields to be read.
 	 * @param orderBy
 	 *            Zero or more fields of the bean, which will be used to order the results.
-	 * @return A list of bean instances that match the criteria specified in the parameter instance.
+	 * @return A list of bean instances that match the criteria specified in the parameter instance,
+	 *         with the projected fields set.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public List<B> list(B bean, Projection projection, Field... orderBy) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		SqlTemplate template = sqlTemplates.list(metadata, bean, metadata.getColumns(orderBy), projection);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+
+		try {
+			jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			return jdbc.selectMany(preparedStatement, new ReflectionRowMapper<B>(metadata, template.getColumns()));
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Iterates records from the bean table in the database. Any non-null fields in the bean are
+	 * used to filter the results using a where clause.
+	 * <p>
+	 * The statement is prepared and configured with the current {@link IterationOptions} (cursor
+	 * type, fetch size and max rows) before it is executed.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return An iterator over bean instances that match the criteria specified in the parameter
+	 *         instance. This holds a database statement open until it is read to the end or closed.
 	 * @throws SQLException
 	 *             If an error occurs at the database level, it is passed up directly.
 	 */
 	public OrmIterator<B> iterate(B bean, Field... orderBy) throws SQLException {
 
-		String table = reflection.getTable(bean);
-		List<Field> fields = reflection.listAll(bean);
+		return iterate(bean, null, orderBy);
+	}
+
+	/**
+	 * Iterates records from the bean table in the database, as per
+	 * {@link #iterate(Object, Field...)}, but only returns the rows within the given limit. See
+	 * {@link #list(Object, Limit, Field...)}.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param limit
+	 *            The rows to be returned, or null for all rows.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return An iterator over bean instances that match the criteria specified in the parameter
+	 *         instance, within the limit. This holds a database statement open until it is read to
+	 *         the end or closed.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public OrmIterator<B> iterate(B bean, Limit limit, Field... orderBy) throws SQLException {
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		ColumnMetadata[] orderByColumns = metadata.getColumns(orderBy);
+		Dialect dialect = null;
+		SqlTemplate template;
+		if (limit == null) {
+			template = sqlTemplates.list(metadata, bean, orderByColumns);
+		} else {
+			dialect = Dialect.forQuery(getDialect(), orderByColumns.length > 0);
+			template = sqlTemplates.limit(metadata, bean, orderByColumns, dialect, limit.getOffset() > 0);
+		}
 
-		// Check all fields for values. Populated fields will be used in the
-		// where clause.
+		IterationOptions options = iterationOptions;
+		PreparedStatement preparedStatement = jdbc.newUncachedPreparedStatement(template.getSql(),
+				options.getResultSetType(), options.getResultSetConcurrency());
+		try {
+			options.apply(preparedStatement);
+			if (limit == null) {
+				jdbc.setParameters(preparedStatement, template.getParameters(), bean);
+			} else {
+				setLimitedParameters(preparedStatement, template, bean, dialect, limit);
+			}
+		} catch (SQLException e) {
+			DbUtils.closeQuietly(preparedStatement);
+			throw e;
+		}
 
-		List<Field> filters = new ArrayList<Field>();
-		for (Field field : fields) {
-			Object value = reflection.getFieldValue(field, bean);
-			if (value != null) {
-				filters.add(field);
+		OrmIterator<B> iterator = new OrmIterator<B>(preparedStatement, rowMapper(metadata));
+		if (limit != null) {
+			try {
+				for (int i = skipped(dialect, limit); i > 0; i--) {
+					iterator.skip();
+				}
+			} catch (RuntimeException e) {
+				iterator.close();
+				throw e;
 			}
 		}
+		return iterator;
+	}
 
-		String query = sql.list(table, filters, Arrays.asList(orderBy));
-		PreparedStatement preparedStatement = jdbc.newPreparedStatement(query);
-		jdbc.setParameters(preparedStatement, filters, bean);
+	/**
+	 * Passes each record from the bean table in the database to the given action. Any non-null
+	 * fields in the bean are used to filter the results using a where clause.
+	 * <p>
+	 * This is intended for scanning jobs (e.g. aggregation) that read each bean once. A single
+	 * bean instance is refilled for every row (see {@link OrmIterator#setFlyweight(Object)}), so
+	 * the action must not retain the bean it is given. The statement is closed before this method
+	 * returns, even if the action throws an exception.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param action
+	 *            The action to be performed on each row.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public void forEach(B bean, Consumer<? super B> action, Field... orderBy) throws SQLException {
+
+		OrmIterator<B> iterator = iterate(bean, orderBy);
+		iterator.setFlyweight(EntityMetadata.of(bean).newInstance());
+		iterator.forEach(action);
+	}
+
+	/**
+	 * Iterates records from the bean table in the database, as per
+	 * {@link #iterate(Object, Field...)}, but reads ahead on a separate thread so that fetching
+	 * and mapping rows overlaps with the caller's processing. See {@link PrefetchingOrmIterator}.
+	 * <p>
+	 * The connection is in use by the prefetching thread until the iterator has been read to the
+	 * end or closed.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param capacity
+	 *            The maximum number of beans to read ahead.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return A prefetching iterator over bean instances that match the criteria specified in the
+	 *         parameter instance.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public PrefetchingOrmIterator<B> iteratePrefetched(B bean, int capacity, Field... orderBy) throws SQLException {
+		return new PrefetchingOrmIterator<B>(iterate(bean, orderBy), capacity);
+	}
+
+	/**
+	 * Streams records from the bean table in the database. Any non-null fields in the bean are used
+	 * to filter the results using a where clause.
+	 * <p>
+	 * Rows are read from the live {@link ResultSet} and mapped as the stream is consumed, so large
+	 * tables can be processed without loading them into memory (see
+	 * {@link #setIterationOptions(IterationOptions)}).
+	 * The returned stream holds a database statement open until it is read to the end or closed,
+	 * so it should be used in a try-with-resources block.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return A sequential stream of bean instances that match the criteria specified in the
+	 *         parameter instance.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public Stream<B> stream(B bean, Field... orderBy) throws SQLException {
+		return OrmSpliterator.stream(iterate(bean, orderBy));
+	}
+
+	/**
+	 * Streams records from the bean table in the database, as per {@link #stream(Object, Field...)},
+	 * but only returns the rows within the given limit. See {@link #list(Object, Limit, Field...)}.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param limit
+	 *            The rows to be returned.
+	 * @param orderBy
+	 *            Zero or more fields of the bean, which will be used to order the results.
+	 * @return A sequential stream of bean instances that match the criteria specified in the
+	 *         parameter instance, within the limit.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public Stream<B> stream(B bean, Limit limit, Field... orderBy) throws SQLException {
+		return OrmSpliterator.stream(iterate(bean, limit, orderBy));
+	}
+
+	/**
+	 * Reads a page of records from the bean table in the database, using keyset (or "seek")
+	 * pagination. Any non-null fields in the bean are used to filter the results using a where
+	 * clause. Rather than skipping the rows of earlier pages, each page selects the rows after the
+	 * order-by values of the last row of the previous page, so the cost of a page doesn't grow with
+	 * its depth, provided there is an index on the order-by columns.
+	 * <p>
+	 * The order-by fields must identify a row uniquely (e.g. by ending with the key fields),
+	 * otherwise rows with the same values either side of a page boundary may be missed. The rows
+	 * are limited with the syntax of the {@link #getDialect()}.
+	 * 
+	 * @param bean
+	 *            A bean instance whose field values provide the filter for returned rows.
+	 * @param orderBy
+	 *            One or more fields of the bean, which will be used to order the results.
+	 * @param afterKey
+	 *            The values of the order-by fields after which the page starts, as returned by
+	 *            {@link Page#getNextKey()}, or null for the first page.
+	 * @param limit
+	 *            The maximum number of rows in the page.
+	 * @return A page of bean instances that match the criteria specified in the parameter instance.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	public Page<B> page(B bean, Field[] orderBy, Object[] afterKey, int limit) throws SQLException {
+
+		if (orderBy.length == 0) {
+			throw new IllegalArgumentException("A page needs at least one order-by field");
+		} else if (afterKey != null && afterKey.length != orderBy.length) {
+			throw new IllegalArgumentException("Expected " + orderBy.length + " values after which to start the page: "
+					+ Arrays.toString(afterKey));
+		} else if (limit < 1) {
+			throw new IllegalArgumentException("The page limit must be at least 1: " + limit);
+		}
+
+		EntityMetadata<B> metadata = EntityMetadata.of(bean);
+		ColumnMetadata[] keys = metadata.getColumns(orderBy);
+		Dialect dialect = getDialect();
+		SqlTemplate template = sqlTemplates.page(metadata, bean, keys, afterKey != null, rowValueComparison,
+				dialect);
+
+		PreparedStatement preparedStatement = jdbc.newPreparedStatement(template.getSql());
+
+		try {
 
-		return new OrmIterator<B>(preparedStatement, fields, bean);
+			Limit rows = Limit.of(limit);
+			int parameterIndex = setLeadingLimit(preparedStatement, dialect, rows);
+			parameterIndex = jdbc.setParameters(preparedStatement, template.getParameters(), bean, parameterIndex);
+			if (afterKey != null) {
+				parameterIndex = setKeysetParameters(preparedStatement, keys, afterKey, parameterIndex);
+			}
+			setTrailingLimit(preparedStatement, dialect, rows, parameterIndex);
+
+			List<B> items = jdbc.selectMany(preparedStatement, rowMapper(metadata));
+			Object[] nextKey = null;
+			if (items.size() >= limit) {
+				B last = items.get(items.size() - 1);
+				nextKey = new Object[keys.length];
+				for (int i = 0; i < keys.length; i++) {
+					nextKey[i] = keys[i].getValue(last);
+				}
+			}
+			return new Page<B>(items, nextKey);
+
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
+
+	/**
+	 * Sets the parameters of a query generated by {@link SqlTemplates#limit(EntityMetadata, Object,
+	 * ColumnMetadata[], Dialect, boolean)}.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param template
+	 *            The template from which the statement was prepared.
+	 * @param bean
+	 *            The example bean.
+	 * @param dialect
+	 *            The dialect of the template.
+	 * @param limit
+	 *            The limit.
+	 * @throws SQLException
+	 *             If an error occurs in setting a parameter.
+	 */
+	private void setLimitedParameters(PreparedStatement preparedStatement, SqlTemplate template, B bean,
+			Dialect dialect, Limit limit) throws SQLException {
+
+		int parameterIndex = setLeadingLimit(preparedStatement, dialect, limit);
+		parameterIndex = jdbc.setParameters(preparedStatement, template.getParameters(), bean, parameterIndex);
+		setTrailingLimit(preparedStatement, dialect, limit, parameterIndex);
+	}
+
+	/**
+	 * Sets the limit parameter that comes before the other parameters (see
+	 * {@link Sql#limit(String, Dialect, boolean)}), if there is one.
+	 * 
+	 * @return The number of parameters set.
+	 */
+	private static int setLeadingLimit(PreparedStatement preparedStatement, Dialect dialect, Limit limit)
+			throws SQLException {
+
+		if (dialect != null && dialect.isLimitFirst()) {
+			preparedStatement.setInt(1, limit.getEnd());
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Sets the limit and offset parameters that come after the other parameters (see
+	 * {@link Sql#limit(String, Dialect, boolean)}) or, if the dialect isn't known, caps the
+	 * statement with {@link Statement#setMaxRows(int)}. A lower max rows already set on the
+	 * statement (see {@link IterationOptions#setMaxRows(int)}) is kept.
+	 */
+	private static void setTrailingLimit(PreparedStatement preparedStatement, Dialect dialect, Limit limit,
+			int offset) throws SQLException {
+
+		int parameterIndex = offset;
+		if (dialect == null) {
+			int maxRows = preparedStatement.getMaxRows();
+			preparedStatement.setMaxRows(maxRows > 0 ? Math.min(maxRows, limit.getEnd()) : limit.getEnd());
+		} else if (dialect == Dialect.LIMIT) {
+			preparedStatement.setInt(++parameterIndex, limit.getLimit());
+			if (limit.getOffset() > 0) {
+				preparedStatement.setInt(++parameterIndex, limit.getOffset());
+			}
+		} else if (dialect == Dialect.FETCH) {
+			if (limit.getOffset() > 0) {
+				preparedStatement.setInt(++parameterIndex, limit.getOffset());
+			}
+			preparedStatement.setInt(++parameterIndex, limit.getLimit());
+		}
+	}
+
+	/**
+	 * @return The number of rows that the client needs to skip, because the offset couldn't be
+	 *         part of the SQL.
+	 */
+	private static int skipped(Dialect dialect, Limit limit) {
+		return dialect != null && dialect.isOffsetSupported() ? 0 : limit.getOffset();
+	}
+
+	/**
+	 * Sets the parameters of a keyset condition, generated by
+	 * {@link Sql#keysetClause(ColumnMetadata[], boolean)}.
+	 * 
+	 * @param preparedStatement
+	 *            The statement.
+	 * @param keys
+	 *            The order-by columns.
+	 * @param values
+	 *            The order-by values after which to start.
+	 * @param offset
+	 *            The number of parameters that have already been set.
+	 * @return The last parameter index that was set.
+	 * @throws SQLException
+	 *             If an error occurs in setting a parameter.
+	 */
+	private int setKeysetParameters(PreparedStatement preparedStatement, ColumnMetadata[] keys, Object[] values,
+			int offset) throws SQLException {
+
+		int parameterIndex = offset;
+		if (keys.length == 1 || rowValueComparison) {
+			for (int k = 0; k < keys.length; k++) {
+				jdbc.setParameterValue(preparedStatement, keys[k], values[k], ++parameterIndex);
+			}
+		} else {
+			// (a>? or (a=? and b>?) or ...)
+			for (int i = 0; i < keys.length; i++) {
+				for (int k = 0; k <= i; k++) {
+					jdbc.setParameterValue(preparedStatement, keys[k], values[k], ++parameterIndex);
+				}
+			}
+		}
+		return parameterIndex;
 	}
 
 	/**
@@ -519,29 +1747,293 @@ public class Orm<B> {
 	 */
 	protected List<B> list(PreparedStatement preparedStatement, List<Field> fields, B bean) throws SQLException {
 
+		return list(preparedStatement, EntityMetadata.of(bean).getColumns(fields), bean);
+	}
+
+	/**
+	 * Does the work of executing a {@link PreparedStatement} and mapping the resuls to a bean
+	 * instance.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} to run.
+	 * @param columns
+	 *            The columns to be mapped into the returned beans.
+	 * @param bean
+	 *            An instance of the bean type.
+	 * @return A list of beans, populated with the selected data.
+	 * @throws SQLException
+	 *             If an error occurs at the database level, it is passed up directly.
+	 */
+	protected List<B> list(PreparedStatement preparedStatement, ColumnMetadata[] columns, B bean)
+			throws SQLException {
+
 		try {
 
-			List<Map<Field, Object>> rows = jdbc.selectMany(preparedStatement, fields);
-			List<B> result = new ArrayList<B>();
+			return jdbc.selectMany(preparedStatement, new ReflectionRowMapper<B>(EntityMetadata.of(bean), columns));
 
-			for (Map<Field, Object> row : rows) {
+		} finally {
+			jdbc.release(preparedStatement);
+		}
+	}
 
-				B item = reflection.newInstance(bean);
-				for (Field field : row.keySet()) {
-					Object value = row.get(field);
-					value = Jdbc.doJdbcStandardConversions(field, value);
-					reflection.setFieldValue(field, item, value);
-				}
-				result.add(item);
-			}
+	/**
+	 * @param metadata
+	 *            The bean metadata.
+	 * @return The {@link RowMapper} that maps all columns of the bean class: a generated class if
+	 *         {@link #isGeneratedMappers()}, otherwise the {@link ReflectionRowMapper} held by the
+	 *         metadata.
+	 */
+	private RowMapper<B> rowMapper(EntityMetadata<B> metadata) {
 
-			// System.out.println(preparedStatement);
+		if (generatedMappers) {
+			return RowMapperGenerator.forClass(metadata);
+		}
+		return metadata.getRowMapper();
+	}
 
-			return result;
+	/**
+	 * @param bean
+	 *            A bean instance.
+	 * @return The {@link CompiledMapper} for the class of the bean, or null if there isn't one or
+	 *         compiled mappers have been disabled.
+	 */
+	private CompiledMapper<B> compiledMapper(B bean) {
 
-		} finally {
-			preparedStatement.close();
+		if (!compiledMappers) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		Class<B> beanClass = (Class<B>) bean.getClass();
+		return CompiledMappers.get(beanClass);
+	}
+
+	/**
+	 * @return true if query results are mapped with generated {@link RowMapper} classes
+	 */
+	public boolean isGeneratedMappers() {
+		return generatedMappers;
+	}
+
+	/**
+	 * Enables or disables generated row mappers. When enabled, {@link #read(Object)},
+	 * {@link #list(Object, Field...)}, {@link #iterate(Object, Field...)} and
+	 * {@link #getMax(Object, Field)} map rows with a class generated for each bean type by
+	 * {@link RowMapperGenerator}, which falls back to reflection if a class can't be generated.
+	 * 
+	 * @param generatedMappers
+	 *            true to use generated row mappers. The default is false.
+	 */
+	public void setGeneratedMappers(boolean generatedMappers) {
+		this.generatedMappers = generatedMappers;
+	}
+
+	/**
+	 * @return true if a {@link CompiledMapper} is used where one is available
+	 */
+	public boolean isCompiledMappers() {
+		return compiledMappers;
+	}
+
+	/**
+	 * Enables or disables compiled mappers. When enabled (the default), {@link #create(Object)},
+	 * {@link #read(Object)}, {@link #update(Object)}, {@link #delete(Object)} and
+	 * {@link #deleteMany(Object)} use the constant SQL and direct field access of a
+	 * {@link CompiledMapper} generated by the <code>cheep-orm-processor</code> annotation processor,
+	 * if there is one for the bean class.
+	 * 
+	 * @param compiledMappers
+	 *            false to always use reflection.
+	 */
+	public void setCompiledMappers(boolean compiledMappers) {
+		this.compiledMappers = compiledMappers;
+	}
+
+	/**
+	 * @return the maximum number of keys in an IN-list
+	 */
+	public int getInListSize() {
+		return inListSize;
+	}
+
+	/**
+	 * @param inListSize
+	 *            the maximum number of keys in an IN-list, e.g. for
+	 *            {@link #deleteByIds(Class, Collection)} and {@link #readAll(Class, Collection)}.
+	 *            Larger collections of keys are split across several statements. The default is
+	 *            {@link #DEFAULT_IN_LIST_SIZE}.
+	 */
+	public void setInListSize(int inListSize) {
+		if (inListSize < 1) {
+			throw new IllegalArgumentException("IN-list size must be at least 1: " + inListSize);
+		}
+		this.inListSize = inListSize;
+	}
+
+	/**
+	 * @return true if composite keys in an IN-list are matched with a row-value comparison
+	 */
+	public boolean isRowValueComparison() {
+		return rowValueComparison;
+	}
+
+	/**
+	 * @param rowValueComparison
+	 *            true to match composite keys in an IN-list with <code>(a, b) in ((?, ?), ...)</code>
+	 *            (e.g. for MySQL or PostgreSQL), false to use the portable
+	 *            <code>(a=? and b=?) or ...</code>. The default is false.
+	 */
+	public void setRowValueComparison(boolean rowValueComparison) {
+		this.rowValueComparison = rowValueComparison;
+	}
+
+	/**
+	 * @return true if {@link #createAll(Iterable, int)} sends multi-row inserts
+	 */
+	public boolean isMultiRowInsert() {
+		return multiRowInsert;
+	}
+
+	/**
+	 * Enables or disables multi-row inserts. When enabled, {@link #createAll(Iterable, int)} sends
+	 * each group of beans as <code>insert into t (a, b) values (?, ?), (?, ?), ...</code>, rather
+	 * than as a JDBC batch. This helps with drivers that send each batch entry separately (e.g.
+	 * MySQL without <code>rewriteBatchedStatements</code>).
+	 * <p>
+	 * Statements are sized to stay within {@link #getMaxInsertParameters()} and
+	 * {@link #getMaxInsertPacketSize()}. Generated keys are not written back to the beans, so
+	 * their generated id fields are left unset, unless {@link #setMultiRowGeneratedKeys(boolean)}
+	 * is turned on.
+	 * 
+	 * @param multiRowInsert
+	 *            true to send multi-row inserts. The default is false.
+	 */
+	public void setMultiRowInsert(boolean multiRowInsert) {
+		this.multiRowInsert = multiRowInsert;
+	}
+
+	/**
+	 * @return true if the keys generated by a multi-row insert are written back to the beans
+	 */
+	public boolean isMultiRowGeneratedKeys() {
+		return multiRowGeneratedKeys;
+	}
+
+	/**
+	 * Enables or disables writing generated keys back to beans after a multi-row insert (see
+	 * {@link #setMultiRowInsert(boolean)}). The driver reports the keys of a multi-row insert,
+	 * rather than the database, and MySQL Connector/J works them out from the first key, assuming
+	 * the server gave the statement consecutive auto-increment values. That only holds for
+	 * <code>innodb_autoinc_lock_mode</code> 0 or 1. With the MySQL 8 default of 2, inserts running
+	 * at the same time can interleave, and beans would be given the keys of other rows. Only turn
+	 * this on where the database is known to allocate consecutive keys to a single statement.
+	 * 
+	 * @param multiRowGeneratedKeys
+	 *            true to write generated keys back, in order, when the driver returns one per row.
+	 *            The default is false, which leaves generated key fields unset.
+	 */
+	public void setMultiRowGeneratedKeys(boolean multiRowGeneratedKeys) {
+		this.multiRowGeneratedKeys = multiRowGeneratedKeys;
+	}
+
+	/**
+	 * @return the maximum number of placeholders in a multi-row insert
+	 */
+	public int getMaxInsertParameters() {
+		return maxInsertParameters;
+	}
+
+	/**
+	 * @param maxInsertParameters
+	 *            the maximum number of placeholders in a multi-row insert. The default is
+	 *            {@link #DEFAULT_MAX_INSERT_PARAMETERS}.
+	 */
+	public void setMaxInsertParameters(int maxInsertParameters) {
+		if (maxInsertParameters < 1) {
+			throw new IllegalArgumentException("Maximum insert parameters must be at least 1: " + maxInsertParameters);
 		}
+		this.maxInsertParameters = maxInsertParameters;
+	}
+
+	/**
+	 * @return the maximum estimated size, in bytes, of a multi-row insert
+	 */
+	public int getMaxInsertPacketSize() {
+		return maxInsertPacketSize;
+	}
+
+	/**
+	 * @param maxInsertPacketSize
+	 *            the maximum estimated size, in bytes, of a multi-row insert. This should be
+	 *            comfortably below the server's limit (e.g. MySQL <code>max_allowed_packet</code>),
+	 *            because parameter sizes are estimated. A statement always contains at least one row.
+	 *            The default is {@link #DEFAULT_MAX_INSERT_PACKET_SIZE}.
+	 */
+	public void setMaxInsertPacketSize(int maxInsertPacketSize) {
+		this.maxInsertPacketSize = maxInsertPacketSize;
+	}
+
+	/**
+	 * @return the syntax used to limit the rows returned by a query, e.g. for
+	 *         {@link #page(Object, Field[], Object[], int)}. Unless it has been set, this is
+	 *         detected from the connection the first time it is needed. If it is null, rows are
+	 *         limited with {@link Statement#setMaxRows(int)}.
+	 * @throws SQLException
+	 *             If the dialect can't be detected.
+	 */
+	public Dialect getDialect() throws SQLException {
+		if (!dialectKnown) {
+			dialect = Dialect.detect(jdbc.getConnection());
+			dialectKnown = true;
+		}
+		return dialect;
+	}
+
+	/**
+	 * @param dialect
+	 *            the syntax used to limit the rows returned by a query, or null to limit rows with
+	 *            {@link Statement#setMaxRows(int)}. This overrides the dialect detected from the
+	 *            connection.
+	 */
+	public void setDialect(Dialect dialect) {
+		this.dialect = dialect;
+		dialectKnown = true;
+	}
+
+	/**
+	 * @return the statement settings used by {@link #iterate(Object, Field...)} and
+	 *         {@link #stream(Object, Field...)}
+	 */
+	public IterationOptions getIterationOptions() {
+		return iterationOptions;
+	}
+
+	/**
+	 * @param iterationOptions
+	 *            the statement settings to be used by {@link #iterate(Object, Field...)} and
+	 *            {@link #stream(Object, Field...)}
+	 */
+	public void setIterationOptions(IterationOptions iterationOptions) {
+		this.iterationOptions = iterationOptions;
+	}
+
+	/**
+	 * @return the fetch size hint given to the driver for {@link #iterate(Object, Field...)} and
+	 *         {@link #stream(Object, Field...)}. Zero (the default) leaves the driver default.
+	 * @see IterationOptions#getFetchSize()
+	 */
+	public int getFetchSize() {
+		return iterationOptions.getFetchSize();
+	}
+
+	/**
+	 * @param fetchSize
+	 *            the number of rows the driver should fetch from the database at a time for
+	 *            {@link #iterate(Object, Field...)} and {@link #stream(Object, Field...)}, zero for
+	 *            the driver default, or {@link IterationOptions#STREAMING}.
+	 * @see IterationOptions#setFetchSize(int)
+	 */
+	public void setFetchSize(int fetchSize) {
+		iterationOptions.setFetchSize(fetchSize);
 	}
 
 	/**
@@ -572,6 +2064,7 @@ public class Orm<B> {
 	 */
 	public void setSql(Sql sql) {
 		this.sql = sql;
+		sqlTemplates = sql.getClass() == Sql.class ? SqlTemplates.shared() : new SqlTemplates(sql);
 	}
 
 	/**
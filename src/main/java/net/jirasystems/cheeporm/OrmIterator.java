@@ -5,10 +5,9 @@ import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.commons.dbutils.DbUtils;
 
@@ -23,8 +22,15 @@ import org.apache.commons.dbutils.DbUtils;
  * <p>
  * It is safe to only use the {@link Iterator} interface, providing you iterate all the way to the
  * end. Reaching the end of the iterator (when {@link #hasNext()} returns false) will automatically
- * release resources. As a fallback, a {@link #finalize()} implementation is provided to ensure
- * these are released, but it's probably best not to rely on it.
+ * release resources. As a fallback, the statement of an iterator that is garbage collected without
+ * being closed is closed by a background thread and logged as a leak, but it's probably best not
+ * to rely on this: the statement may hold server resources for a long time before that happens.
+ * {@link #setLeakDetection(boolean)} records where each iterator was created, so that leaks can be
+ * traced.
+ * <p>
+ * For jobs that read each bean once and then discard it, {@link #setFlyweight(Object)} switches
+ * to refilling a single bean instance on every row, rather than creating a new one, and
+ * {@link #forEach(Consumer)} processes the remaining rows and closes the iterator.
  * 
  * @author David Carboni
  * 
@@ -33,15 +39,20 @@ import org.apache.commons.dbutils.DbUtils;
  */
 public class OrmIterator<B> implements Iterator<B>, Closeable {
 
-	private final List<Field> fields;
-	private final B bean;
+	private final RowMapper<B> rowMapper;
 	private final ResultSet resultSet;
 	private final PreparedStatement preparedStatement;
-	private Reflection reflection = new Reflection();
+	private final StatementCleaner.Cleanable cleanable;
 
 	// Whether the next row has already been pre-fetched:
 	private boolean prefetched;
 
+	// Column indexes for the rowMapper, resolved on the first row:
+	private int[] indexes;
+
+	// If not null, the instance refilled on each row:
+	private B flyweight;
+
 	/**
 	 * If this constructor completes successfully, the {@link PreparedStatement} passed in will be
 	 * closed automatically once the last row has been iterated. Alternatively, the close method
@@ -61,9 +72,48 @@ public class OrmIterator<B> implements Iterator<B>, Closeable {
 	 */
 	public OrmIterator(PreparedStatement preparedStatement, List<Field> fields, B bean) throws SQLException {
 
-		this.fields = fields;
-		this.bean = bean;
+		this(preparedStatement, new ReflectionRowMapper<B>(EntityMetadata.of(bean), EntityMetadata.of(bean).getColumns(
+				fields)));
+	}
+
+	/**
+	 * If this constructor completes successfully, the {@link PreparedStatement} passed in will be
+	 * closed automatically once the last row has been iterated. Alternatively, the close method
+	 * defined by this class can be called explicitly.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} whose results will be iterated by this instance.
+	 * @param metadata
+	 *            The metadata of the bean class. All columns will be mapped to result beans.
+	 * @throws SQLException
+	 *             If an error occurs calling {@link PreparedStatement#execute()} or
+	 *             {@link PreparedStatement#getResultSet()}. If an exception is thrown, the caller
+	 *             is responsible for catching it and closing the {@link PreparedStatement}.
+	 */
+	public OrmIterator(PreparedStatement preparedStatement, EntityMetadata<B> metadata) throws SQLException {
+
+		this(preparedStatement, metadata.getRowMapper());
+	}
+
+	/**
+	 * If this constructor completes successfully, the {@link PreparedStatement} passed in will be
+	 * closed automatically once the last row has been iterated. Alternatively, the close method
+	 * defined by this class can be called explicitly.
+	 * 
+	 * @param preparedStatement
+	 *            The {@link PreparedStatement} whose results will be iterated by this instance.
+	 * @param rowMapper
+	 *            Maps each row to a result bean (see {@link RowMapperGenerator}).
+	 * @throws SQLException
+	 *             If an error occurs calling {@link PreparedStatement#execute()} or
+	 *             {@link PreparedStatement#getResultSet()}. If an exception is thrown, the caller
+	 *             is responsible for catching it and closing the {@link PreparedStatement}.
+	 */
+	public OrmIterator(PreparedStatement preparedStatement, RowMapper<B> rowMapper) throws SQLException {
+
+		this.rowMapper = rowMapper;
 		this.preparedStatement = preparedStatement;
+		cleanable = StatementCleaner.register(this, preparedStatement);
 
 		// Run the query:
 		try {
@@ -100,6 +150,8 @@ public class OrmIterator<B> implements Iterator<B>, Closeable {
 			}
 		} catch (SQLException e) {
 			throw new RuntimeException("Error checking for next record in " + ResultSet.class.getSimpleName(), e);
+		} finally {
+			StatementCleaner.keepAlive(this);
 		}
 		return result;
 	}
@@ -119,31 +171,78 @@ public class OrmIterator<B> implements Iterator<B>, Closeable {
 			if (prefetched || resultSet.next()) {
 				prefetched = false;
 
-				// Map the row:
-				Map<Field, Object> row = new HashMap<Field, Object>();
-				for (Field field : fields) {
-					Object value = resultSet.getObject(reflection.getColumnName(field));
-					row.put(field, value);
+				// Map the row straight into a new bean:
+				if (indexes == null) {
+					indexes = Jdbc.findColumns(resultSet, rowMapper.getColumns());
 				}
-
-				// Generate the bean:
-				B item = reflection.newInstance(bean);
-				for (Field field : row.keySet()) {
-					Object value = row.get(field);
-					value = Jdbc.doJdbcStandardConversions(field, value);
-					reflection.setFieldValue(field, item, value);
+				if (flyweight == null) {
+					result = rowMapper.mapRow(resultSet, indexes);
+				} else {
+					result = refill(flyweight);
 				}
-				result = item;
 			} else {
 				close();
 			}
 		} catch (SQLException e) {
 			throw new RuntimeException("Error getting next record from " + ResultSet.class.getSimpleName(), e);
+		} finally {
+			StatementCleaner.keepAlive(this);
 		}
 
 		return result;
 	}
 
+	/**
+	 * Sets every mapped column of the given bean from the current row, including columns that are
+	 * null, so nothing is left over from the previous row. This goes through the same
+	 * {@link RowMapper} (which may be a generated one) as new beans.
+	 */
+	private B refill(B bean) throws SQLException {
+		rowMapper.mapInto(resultSet, indexes, bean);
+		return bean;
+	}
+
+	/**
+	 * Switches this iterator into flyweight mode, in which {@link #next()} refills and returns the
+	 * given instance, rather than creating a new bean for each row. This avoids allocating a bean
+	 * per row when each bean is processed once and then discarded. The returned bean is
+	 * overwritten by the following call to {@link #next()}, so it must not be retained (e.g. added
+	 * to a collection) by the caller.
+	 * 
+	 * @param bean
+	 *            The instance to be refilled on each row, or null to go back to creating a new bean
+	 *            per row.
+	 */
+	public void setFlyweight(B bean) {
+		flyweight = bean;
+	}
+
+	/**
+	 * @return The instance refilled on each row, or null if this iterator creates a new bean per
+	 *         row.
+	 */
+	public B getFlyweight() {
+		return flyweight;
+	}
+
+	/**
+	 * Passes each of the remaining rows to the given action and then closes this iterator, even if
+	 * the action throws an exception. In flyweight mode (see {@link #setFlyweight(Object)}) the
+	 * action receives the same, refilled, instance each time.
+	 * 
+	 * @param action
+	 *            The action to be performed on each bean.
+	 */
+	public void forEach(Consumer<? super B> action) {
+		try {
+			while (hasNext()) {
+				action.accept(next());
+			}
+		} finally {
+			close();
+		}
+	}
+
 	/**
 	 * Skips the next record in {@link #resultSet}. This allown you to avoid constructing bean
 	 * instances for rows you're not interested in (e.g. if you're implementing pagination). This
@@ -167,14 +266,6 @@ public class OrmIterator<B> implements Iterator<B>, Closeable {
 		// No implementation.
 	}
 
-	/**
-	 * As a fallback, this <code>finalize()</code> implementation will call {@link #close()}.
-	 */
-	@Override
-	protected void finalize() {
-		close();
-	}
-
 	/**
 	 * Quitetly closes the {@link PreparedStatement} and thereforen the {@link ResultSet} as well.
 	 * 
@@ -184,7 +275,44 @@ public class OrmIterator<B> implements Iterator<B>, Closeable {
 	@Override
 	public void close() {
 		// This will also close the result set:
-		DbUtils.closeQuietly(preparedStatement);
+		cleanable.clean();
+		StatementCleaner.keepAlive(this);
+	}
+
+	/**
+	 * Asks the driver to cancel the query, from another thread, so that a thread blocked reading the
+	 * {@link ResultSet} returns (see {@link PrefetchingOrmIterator#close()}). Errors are ignored: the
+	 * query may already have finished, or the statement been closed.
+	 */
+	void cancel() {
+		try {
+			preparedStatement.cancel();
+		} catch (SQLException e) {
+			// Nothing to cancel
+		}
+	}
+
+	/**
+	 * @return true if the allocation site of each iterator is being recorded, so that it can be
+	 *         logged if the iterator is leaked.
+	 */
+	public static boolean isLeakDetection() {
+		return StatementCleaner.isLeakDetection();
+	}
+
+	/**
+	 * Turns leak detection on or off for iterators created from now on. When it's on, the stack
+	 * trace of the code that created each iterator is recorded and, if the iterator is garbage
+	 * collected without being closed, logged (through <code>java.util.logging</code>) with the
+	 * leak warning. This costs a stack walk per iterator, so it's intended for tracking down leaks
+	 * rather than for normal running. It can also be turned on with the system property
+	 * <code>cheeporm.leakDetection=true</code>.
+	 * 
+	 * @param leakDetection
+	 *            true to record allocation sites.
+	 */
+	public static void setLeakDetection(boolean leakDetection) {
+		StatementCleaner.setLeakDetection(leakDetection);
 	}
 
 }
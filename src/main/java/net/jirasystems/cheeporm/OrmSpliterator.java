@@ -0,0 +1,65 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link Spliterator} over the live {@link ResultSet} of an {@link OrmIterator}, so that
+ * {@link Orm} results can be processed as a {@link Stream}. Rows are fetched and mapped one at a
+ * time, as the stream pulls them, so the result is never held in memory.
+ * <p>
+ * The size of the result isn't known and the {@link ResultSet} can only be read in order, so this
+ * spliterator doesn't split and streams created from it are sequential.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean class to be streamed.
+ */
+final class OrmSpliterator<B> extends Spliterators.AbstractSpliterator<B> {
+
+	private final OrmIterator<B> iterator;
+
+	/**
+	 * @param iterator
+	 *            The iterator whose rows will be streamed.
+	 */
+	OrmSpliterator(OrmIterator<B> iterator) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.iterator = iterator;
+	}
+
+	/**
+	 * Creates a sequential {@link Stream} of the rows of the given iterator. Closing the stream
+	 * closes the iterator, and therefore its {@link PreparedStatement}. This also happens
+	 * automatically if the stream is read to the end.
+	 * 
+	 * @param <B>
+	 *            The bean class to be streamed.
+	 * @param iterator
+	 *            The iterator whose rows will be streamed.
+	 * @return A stream, which should be closed by the caller (e.g. with try-with-resources).
+	 */
+	static <B> Stream<B> stream(final OrmIterator<B> iterator) {
+		return StreamSupport.stream(new OrmSpliterator<B>(iterator), false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				iterator.close();
+			}
+		});
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super B> action) {
+		if (iterator.hasNext()) {
+			action.accept(iterator.next());
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,58 @@
+package net.jirasystems.cheeporm;
+
+import java.util.List;
+
+/**
+ * A page of results from {@link Orm#page(Object, java.lang.reflect.Field[], Object[], int)},
+ * together with the key from which to read the next page.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean type.
+ */
+public final class Page<B> {
+
+	private final List<B> items;
+	private final Object[] nextKey;
+
+	/**
+	 * @param items
+	 *            The beans in the page.
+	 * @param nextKey
+	 *            The order-by values of the last bean in the page, or null if this is the last
+	 *            page.
+	 */
+	Page(List<B> items, Object[] nextKey) {
+		this.items = items;
+		this.nextKey = nextKey;
+	}
+
+	/**
+	 * @return the beans in this page
+	 */
+	public List<B> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return the values of the order-by fields of the last bean in this page, to be passed as the
+	 *         <code>afterKey</code> for the next page, or null if there are no more rows. If the
+	 *         last page is full, the page after it is empty.
+	 */
+	public Object[] getNextKey() {
+		return nextKey == null ? null : nextKey.clone();
+	}
+
+	/**
+	 * @return true if there may be more rows after this page
+	 */
+	public boolean hasNext() {
+		return nextKey != null;
+	}
+
+	@Override
+	public String toString() {
+		return "Page of " + items.size() + (nextKey == null ? " (last)" : "");
+	}
+}
@@ -0,0 +1,235 @@
+package net.jirasystems.cheeporm;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An {@link Iterator} that reads ahead of the caller: a producer thread pulls rows from an
+ * {@link OrmIterator}, maps them to beans and places them in a bounded queue. The caller's own
+ * processing of each bean then overlaps with the driver fetching and mapping the next rows.
+ * <p>
+ * The queue provides backpressure: once it holds <code>capacity</code> beans the producer waits
+ * for the caller to catch up. If reading a row fails, the error is passed to the caller, once the
+ * beans read before it have been consumed, as the {@link RuntimeException} thrown by
+ * {@link OrmIterator}.
+ * <p>
+ * The producer thread owns the underlying statement and closes it when the last row has been read,
+ * when an error occurs, or when {@link #close()} is called. {@link #close()} waits for the producer
+ * to finish, cancelling the query if the producer is blocked in the driver, so the connection can
+ * be used again as soon as it returns. Until then the connection
+ * is in use by the producer thread and must not be used for anything else. It is therefore
+ * important to either iterate to the end or call {@link #close()}.
+ * <p>
+ * Where the JVM supports virtual threads, the producer runs on one. Otherwise it runs on a daemon
+ * platform thread.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean class to be iterated.
+ */
+public class PrefetchingOrmIterator<B> implements Iterator<B>, Closeable {
+
+	private static final Object END = new Object();
+	private static final ThreadFactory threadFactory = threadFactory();
+
+	private final OrmIterator<B> source;
+	private final BlockingQueue<Object> queue;
+	private final Thread producer;
+	private volatile boolean closed;
+	private volatile Throwable error;
+
+	// The next bean, taken from the queue by hasNext:
+	private Object next;
+
+	/**
+	 * Starts the producer thread, which begins reading rows from the given iterator straight away.
+	 * 
+	 * @param source
+	 *            The iterator to read ahead of. This is closed by this instance.
+	 * @param capacity
+	 *            The maximum number of mapped beans to hold in memory.
+	 */
+	public PrefetchingOrmIterator(OrmIterator<B> source, int capacity) {
+
+		this.source = source;
+		queue = new ArrayBlockingQueue<Object>(capacity);
+		producer = threadFactory.newThread(new Runnable() {
+			@Override
+			public void run() {
+				produce();
+			}
+		});
+		producer.setName("cheep-orm-prefetch");
+		producer.start();
+	}
+
+	/**
+	 * Looks for a virtual thread factory through reflection, so this class still runs on JVMs that
+	 * don't have them.
+	 * 
+	 * @return A virtual thread factory, or a factory for daemon platform threads.
+	 */
+	private static ThreadFactory threadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (Exception e) {
+			return new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Runs on the producer thread: reads and maps rows until there are no more, the consumer
+	 * closes this instance, or an error occurs.
+	 */
+	private void produce() {
+		try {
+			while (!closed && source.hasNext()) {
+				queue.put(source.next());
+			}
+		} catch (InterruptedException e) {
+			// close() doesn't interrupt, so the consumer needs to know the rows were cut short:
+			error = e;
+			Thread.currentThread().interrupt();
+		} catch (Throwable e) {
+			error = e;
+		} finally {
+			source.close();
+			if (!closed) {
+				end();
+			}
+		}
+	}
+
+	/**
+	 * Queues {@link #END}, so that the consumer doesn't wait for ever. The interrupt flag is cleared
+	 * first, otherwise <code>put</code> would fail straight away, and set again afterwards. If the
+	 * producer is interrupted again while waiting for room, the beans read ahead are dropped to make
+	 * room, and the consumer gets an error rather than a short result.
+	 */
+	private void end() {
+		boolean interrupted = Thread.interrupted();
+		try {
+			queue.put(END);
+		} catch (InterruptedException e) {
+			interrupted = true;
+			if (error == null) {
+				error = e;
+			}
+			queue.clear();
+			queue.offer(END);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * This implementation waits for the producer thread if the next bean isn't ready yet. If the
+	 * producer failed, its error is thrown: this is the {@link RuntimeException} thrown by
+	 * {@link OrmIterator}, wrapping the {@link java.sql.SQLException}.
+	 */
+	@Override
+	public boolean hasNext() {
+
+		if (closed) {
+			return false;
+		}
+		if (next == null) {
+			try {
+				next = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted waiting for the next record", e);
+			}
+		}
+		if (next == END) {
+			Throwable cause = error;
+			if (cause != null) {
+				error = null;
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new RuntimeException("Error getting next record from " + ResultSet.class.getSimpleName(),
+						cause);
+			}
+			return false;
+		}
+		return next != null;
+	}
+
+	@Override
+	public B next() {
+
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		@SuppressWarnings("unchecked")
+		B result = (B) next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * This optional operation is not supported, as it does not make sense to "remove" a row from a
+	 * {@link ResultSet}.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Stops the producer thread and waits for it to close the underlying statement. Beans that have
+	 * been read ahead are discarded. It is safe to call this more than once.
+	 * <p>
+	 * The producer isn't interrupted, because interrupting a virtual thread that is blocked on a
+	 * socket closes the socket, and with it the connection. Instead the queue is kept clear, so the
+	 * producer can't block on it, until the producer notices it has been closed. If it is still
+	 * running after a short wait, it is probably blocked waiting for the driver to fetch rows from a
+	 * slow cursor, so the query is cancelled with {@link java.sql.Statement#cancel()}.
+	 */
+	@Override
+	public void close() {
+
+		closed = true;
+		next = null;
+		boolean interrupted = false;
+		boolean cancelled = false;
+		while (producer.isAlive()) {
+			queue.clear();
+			try {
+				producer.join(10);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+			if (!cancelled && producer.isAlive()) {
+				source.cancel();
+				cancelled = true;
+			}
+		}
+		queue.clear();
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
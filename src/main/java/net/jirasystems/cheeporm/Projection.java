@@ -0,0 +1,85 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * The fields to be read by a query, for callers (e.g. listing screens) that only need some of the
+ * columns of a bean. Only the projected columns are selected, so the database doesn't send the
+ * others, and only the projected fields are set in the returned beans. Other fields are left with
+ * their default values.
+ * <p>
+ * When the query is cached (see {@link SqlTemplates}), the columns are selected in the order in
+ * which the bean class maps them, so projections of the same fields in a different order share the
+ * same SQL. If it can't be cached (e.g. the bean maps more than 64 columns), they are selected in
+ * the order given to {@link #of(Field...)}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class Projection {
+
+	private final Field[] fields;
+
+	// The columns for the bean class this projection was last used with:
+	private volatile Resolved resolved;
+
+	private Projection(Field[] fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * @param fields
+	 *            The mapped fields to be read.
+	 * @return A projection of the given fields.
+	 * @throws IllegalArgumentException
+	 *             If no fields are given.
+	 */
+	public static Projection of(Field... fields) {
+
+		if (fields == null || fields.length == 0) {
+			throw new IllegalArgumentException("A projection needs at least one field");
+		}
+		return new Projection(fields.clone());
+	}
+
+	/**
+	 * @param metadata
+	 *            The metadata of the bean class.
+	 * @return The projected columns, in the order given to {@link #of(Field...)}, rather than the
+	 *         mapped order. The array is kept for the next call, so must not be modified.
+	 * @throws IllegalArgumentException
+	 *             If a field is not a mapped column of the bean class.
+	 */
+	ColumnMetadata[] getColumns(EntityMetadata<?> metadata) {
+		Resolved resolved = this.resolved;
+		if (resolved == null || resolved.metadata != metadata) {
+			resolved = new Resolved(metadata, metadata.getColumns(fields));
+			this.resolved = resolved;
+		}
+		return resolved.columns;
+	}
+
+	/**
+	 * @return the projected fields
+	 */
+	public Field[] getFields() {
+		return fields.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "Projection " + Arrays.toString(fields);
+	}
+
+	private static final class Resolved {
+
+		private final EntityMetadata<?> metadata;
+		private final ColumnMetadata[] columns;
+
+		Resolved(EntityMetadata<?> metadata, ColumnMetadata[] columns) {
+			this.metadata = metadata;
+			this.columns = columns;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * {@link RowMapper} implementation that reads each column into the bean with
+ * {@link ColumnMetadata#readInto(ResultSet, int, Object)}, so primitive fields aren't boxed. This is
+ * the default mapper (see {@link EntityMetadata#getRowMapper()}) and the fallback when a mapper
+ * class can't be generated.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean type.
+ */
+public class ReflectionRowMapper<B> implements RowMapper<B> {
+
+	private final EntityMetadata<B> metadata;
+	private final ColumnMetadata[] columns;
+
+	/**
+	 * @param metadata
+	 *            The metadata of the bean class.
+	 * @param columns
+	 *            The columns to be mapped.
+	 */
+	public ReflectionRowMapper(EntityMetadata<B> metadata, ColumnMetadata[] columns) {
+		this.metadata = metadata;
+		this.columns = columns;
+	}
+
+	@Override
+	public ColumnMetadata[] getColumns() {
+		return columns;
+	}
+
+	@Override
+	public B mapRow(ResultSet resultSet, int[] indexes) throws SQLException {
+
+		B bean = metadata.newInstance();
+		mapInto(resultSet, indexes, bean);
+		return bean;
+	}
+
+	@Override
+	public void mapInto(ResultSet resultSet, int[] indexes, B bean) throws SQLException {
+
+		for (int i = 0; i < columns.length; i++) {
+			columns[i].readInto(resultSet, indexes[i], bean);
+		}
+	}
+}
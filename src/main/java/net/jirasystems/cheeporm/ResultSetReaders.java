@@ -0,0 +1,196 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Typed, null-aware reads from a {@link ResultSet}. The primitive getters on {@link ResultSet}
+ * return zero for SQL NULL, so each of these methods checks {@link ResultSet#wasNull()} and returns
+ * null where appropriate.
+ * <p>
+ * These are public because generated {@link RowMapper} classes call them.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class ResultSetReaders {
+
+	/**
+	 * No need to instantiate.
+	 */
+	private ResultSetReaders() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Integer getInteger(ResultSet resultSet, int index) throws SQLException {
+		int value = resultSet.getInt(index);
+		return resultSet.wasNull() ? null : Integer.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Long getLong(ResultSet resultSet, int index) throws SQLException {
+		long value = resultSet.getLong(index);
+		return resultSet.wasNull() ? null : Long.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Short getShort(ResultSet resultSet, int index) throws SQLException {
+		short value = resultSet.getShort(index);
+		return resultSet.wasNull() ? null : Short.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Byte getByte(ResultSet resultSet, int index) throws SQLException {
+		byte value = resultSet.getByte(index);
+		return resultSet.wasNull() ? null : Byte.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Double getDouble(ResultSet resultSet, int index) throws SQLException {
+		double value = resultSet.getDouble(index);
+		return resultSet.wasNull() ? null : Double.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Float getFloat(ResultSet resultSet, int index) throws SQLException {
+		float value = resultSet.getFloat(index);
+		return resultSet.wasNull() ? null : Float.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The value, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Boolean getBoolean(ResultSet resultSet, int index) throws SQLException {
+		boolean value = resultSet.getBoolean(index);
+		return resultSet.wasNull() ? null : Boolean.valueOf(value);
+	}
+
+	/**
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The first character of the value, or null if the value is null or empty.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static Character getCharacter(ResultSet resultSet, int index) throws SQLException {
+		String value = resultSet.getString(index);
+		if (value == null || value.length() == 0) {
+			return null;
+		}
+		return Character.valueOf(value.charAt(0));
+	}
+
+	/**
+	 * Reads a primitive char, which can't represent SQL NULL.
+	 * 
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @return The first character of the value, or <code>'\0'</code> if the value is null or empty.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 */
+	public static char getChar(ResultSet resultSet, int index) throws SQLException {
+		String value = resultSet.getString(index);
+		if (value == null || value.length() == 0) {
+			return '\0';
+		}
+		return value.charAt(0);
+	}
+
+	/**
+	 * Reads an enum from its String value, matching {@link Enum#name()} first and then
+	 * {@link Enum#toString()}, as {@link ColumnMetadata#fromResult(Object)} does.
+	 * 
+	 * @param <E>
+	 *            The enum type.
+	 * @param resultSet
+	 *            The {@link ResultSet}.
+	 * @param index
+	 *            The column index.
+	 * @param type
+	 *            The enum class.
+	 * @return The enum constant, or null.
+	 * @throws SQLException
+	 *             If the value can't be read.
+	 * @throws IllegalArgumentException
+	 *             If the value doesn't match a constant of the enum.
+	 */
+	public static <E extends Enum<E>> E getEnum(ResultSet resultSet, int index, Class<E> type) throws SQLException {
+		String value = resultSet.getString(index);
+		if (value == null) {
+			return null;
+		}
+		E[] constants = type.getEnumConstants();
+		for (E constant : constants) {
+			if (constant.name().equals(value)) {
+				return constant;
+			}
+		}
+		for (E constant : constants) {
+			if (constant.toString().equals(value)) {
+				return constant;
+			}
+		}
+		throw new IllegalArgumentException("Unable to set field of type " + type.getSimpleName() + " with value "
+				+ value);
+	}
+}
@@ -0,0 +1,55 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to a new bean instance.
+ * <p>
+ * Column positions are resolved once per query, by {@link Jdbc#findColumns(ResultSet,
+ * ColumnMetadata[])}, and passed in for every row, so implementations read values by index rather
+ * than by label.
+ * 
+ * @author David Carboni
+ * 
+ * @param <B>
+ *            The bean type.
+ */
+public interface RowMapper<B> {
+
+	/**
+	 * @return The columns mapped by this instance. The indexes passed to
+	 *         {@link #mapRow(ResultSet, int[])} are in the same order.
+	 */
+	ColumnMetadata[] getColumns();
+
+	/**
+	 * @param resultSet
+	 *            A {@link ResultSet}, positioned on the row to be mapped.
+	 * @param indexes
+	 *            The {@link ResultSet} column index of each of the columns returned by
+	 *            {@link #getColumns()}.
+	 * @return A new bean, populated from the current row.
+	 * @throws SQLException
+	 *             If an error occurs reading from the {@link ResultSet}.
+	 */
+	B mapRow(ResultSet resultSet, int[] indexes) throws SQLException;
+
+	/**
+	 * Populates an existing bean from the current row, as {@link #mapRow(ResultSet, int[])} does a
+	 * new one. Every mapped column is set, including columns that are SQL NULL, so nothing is left
+	 * over from whatever the bean held before. This is used to refill a flyweight bean (see
+	 * {@link OrmIterator#setFlyweight(Object)}).
+	 * 
+	 * @param resultSet
+	 *            A {@link ResultSet}, positioned on the row to be mapped.
+	 * @param indexes
+	 *            The {@link ResultSet} column index of each of the columns returned by
+	 *            {@link #getColumns()}.
+	 * @param bean
+	 *            The bean to be populated.
+	 * @throws SQLException
+	 *             If an error occurs reading from the {@link ResultSet}.
+	 */
+	void mapInto(ResultSet resultSet, int[] indexes, B bean) throws SQLException;
+}
@@ -0,0 +1,314 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Writes the bytecode for a {@link RowMapper} specific to a single bean class. This is kept apart
+ * from {@link RowMapperGenerator} so that ASM is only loaded if generated mappers are actually
+ * used.
+ * <p>
+ * The generated <code>mapRow</code> method is straight-line code: it instantiates the bean with
+ * <code>new</code> and then, for each column, reads the value with a typed {@link ResultSet} getter
+ * (or {@link ResultSetReaders} for wrapper types) and stores it directly into the field, so
+ * primitive fields are never boxed. The generated <code>mapInto</code> method does the same for an
+ * existing bean. Columns that can't be handled this way (enums, fields declared in a superclass, final fields, or types
+ * with no typed getter) are mapped through {@link ColumnMetadata}, exactly as
+ * {@link ReflectionRowMapper} would.
+ * 
+ * @author David Carboni
+ * 
+ */
+final class RowMapperClassWriter {
+
+	private static final String RESULT_SET = Type.getInternalName(ResultSet.class);
+	private static final String READERS = Type.getInternalName(ResultSetReaders.class);
+	private static final String COLUMN = Type.getInternalName(ColumnMetadata.class);
+	private static final String COLUMNS_DESCRIPTOR = Type.getDescriptor(ColumnMetadata[].class);
+	private static final String METADATA = Type.getInternalName(EntityMetadata.class);
+	private static final String METADATA_DESCRIPTOR = Type.getDescriptor(EntityMetadata.class);
+
+	// Locals in mapRow and mapInto:
+	private static final int THIS = 0;
+	private static final int RESULT_SET_LOCAL = 1;
+	private static final int INDEXES_LOCAL = 2;
+	private static final int BEAN_LOCAL = 3;
+
+	/**
+	 * Typed reads, by field type. Values are {owner, method name, descriptor}. Reads owned by
+	 * {@link ResultSet} are interface calls, the rest are static calls to {@link ResultSetReaders}.
+	 */
+	private static final Map<Class<?>, String[]> reads = new HashMap<Class<?>, String[]>();
+	static {
+		reads.put(String.class, resultSetRead("getString", String.class));
+		reads.put(BigDecimal.class, resultSetRead("getBigDecimal", BigDecimal.class));
+		reads.put(Date.class, resultSetRead("getDate", Date.class));
+		reads.put(Time.class, resultSetRead("getTime", Time.class));
+		reads.put(Timestamp.class, resultSetRead("getTimestamp", Timestamp.class));
+		reads.put(Integer.class, readersRead("getInteger", Integer.class));
+		reads.put(Long.class, readersRead("getLong", Long.class));
+		reads.put(Short.class, readersRead("getShort", Short.class));
+		reads.put(Byte.class, readersRead("getByte", Byte.class));
+		reads.put(Double.class, readersRead("getDouble", Double.class));
+		reads.put(Float.class, readersRead("getFloat", Float.class));
+		reads.put(Boolean.class, readersRead("getBoolean", Boolean.class));
+		reads.put(Character.class, readersRead("getCharacter", Character.class));
+		// Primitives can't be null, so the plain getters (which return zero for SQL NULL) will do:
+		reads.put(int.class, resultSetRead("getInt", int.class));
+		reads.put(long.class, resultSetRead("getLong", long.class));
+		reads.put(short.class, resultSetRead("getShort", short.class));
+		reads.put(byte.class, resultSetRead("getByte", byte.class));
+		reads.put(double.class, resultSetRead("getDouble", double.class));
+		reads.put(float.class, resultSetRead("getFloat", float.class));
+		reads.put(boolean.class, resultSetRead("getBoolean", boolean.class));
+		reads.put(char.class, readersRead("getChar", char.class));
+	}
+
+	private static String[] resultSetRead(String name, Class<?> type) {
+		return new String[] { RESULT_SET, name, "(I)" + Type.getDescriptor(type) };
+	}
+
+	private static String[] readersRead(String name, Class<?> type) {
+		return new String[] { READERS, name,
+				"(" + Type.getDescriptor(ResultSet.class) + "I)" + Type.getDescriptor(type) };
+	}
+
+	/**
+	 * No need to instantiate.
+	 */
+	private RowMapperClassWriter() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * @param metadata
+	 *            The metadata of the bean class to be mapped.
+	 * @return The internal name of the mapper class, in the same package as the bean.
+	 */
+	static String className(EntityMetadata<?> metadata) {
+		return Type.getInternalName(metadata.getBeanClass()) + "$$RowMapper";
+	}
+
+	/**
+	 * Generates a class that implements {@link RowMapper} for all the columns of the given bean
+	 * class. The class has a single constructor, taking the {@link EntityMetadata}.
+	 * 
+	 * @param metadata
+	 *            The metadata of the bean class to be mapped.
+	 * @return The class file bytes.
+	 */
+	static byte[] write(EntityMetadata<?> metadata) {
+
+		Class<?> beanClass = metadata.getBeanClass();
+		String className = className(metadata);
+		String bean = Type.getInternalName(beanClass);
+
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classWriter.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+				"java/lang/Object", new String[] { Type.getInternalName(RowMapper.class) });
+		classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "metadata", METADATA_DESCRIPTOR, null, null)
+				.visitEnd();
+		classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "columns", COLUMNS_DESCRIPTOR, null, null)
+				.visitEnd();
+
+		writeConstructor(classWriter, className);
+		writeGetColumns(classWriter, className);
+		writeMapRow(classWriter, className, bean, metadata);
+		writeMapInto(classWriter, className, bean, metadata);
+
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private static void writeConstructor(ClassWriter classWriter, String className) {
+
+		MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + METADATA_DESCRIPTOR
+				+ ")V", null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, THIS);
+		method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		method.visitVarInsn(Opcodes.ALOAD, THIS);
+		method.visitVarInsn(Opcodes.ALOAD, 1);
+		method.visitFieldInsn(Opcodes.PUTFIELD, className, "metadata", METADATA_DESCRIPTOR);
+		method.visitVarInsn(Opcodes.ALOAD, THIS);
+		method.visitVarInsn(Opcodes.ALOAD, 1);
+		method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METADATA, "getAll", "()" + COLUMNS_DESCRIPTOR, false);
+		method.visitFieldInsn(Opcodes.PUTFIELD, className, "columns", COLUMNS_DESCRIPTOR);
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	private static void writeGetColumns(ClassWriter classWriter, String className) {
+
+		MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "getColumns", "()" + COLUMNS_DESCRIPTOR,
+				null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, THIS);
+		method.visitFieldInsn(Opcodes.GETFIELD, className, "columns", COLUMNS_DESCRIPTOR);
+		method.visitInsn(Opcodes.ARETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	private static void writeMapRow(ClassWriter classWriter, String className, String bean,
+			EntityMetadata<?> metadata) {
+
+		MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "mapRow", "("
+				+ Type.getDescriptor(ResultSet.class) + "[I)Ljava/lang/Object;", null,
+				new String[] { Type.getInternalName(SQLException.class) });
+		method.visitCode();
+
+		// B bean = new B(), or (B) metadata.newInstance():
+		if (hasDefaultConstructor(metadata.getBeanClass())) {
+			method.visitTypeInsn(Opcodes.NEW, bean);
+			method.visitInsn(Opcodes.DUP);
+			method.visitMethodInsn(Opcodes.INVOKESPECIAL, bean, "<init>", "()V", false);
+		} else {
+			method.visitVarInsn(Opcodes.ALOAD, THIS);
+			method.visitFieldInsn(Opcodes.GETFIELD, className, "metadata", METADATA_DESCRIPTOR);
+			method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METADATA, "newInstance", "()Ljava/lang/Object;", false);
+			method.visitTypeInsn(Opcodes.CHECKCAST, bean);
+		}
+		method.visitVarInsn(Opcodes.ASTORE, BEAN_LOCAL);
+
+		writeColumns(method, className, bean, metadata);
+
+		method.visitVarInsn(Opcodes.ALOAD, BEAN_LOCAL);
+		method.visitInsn(Opcodes.ARETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	private static void writeMapInto(ClassWriter classWriter, String className, String bean,
+			EntityMetadata<?> metadata) {
+
+		MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "mapInto", "("
+				+ Type.getDescriptor(ResultSet.class) + "[ILjava/lang/Object;)V", null,
+				new String[] { Type.getInternalName(SQLException.class) });
+		method.visitCode();
+
+		// B bean = (B) bean:
+		method.visitVarInsn(Opcodes.ALOAD, BEAN_LOCAL);
+		method.visitTypeInsn(Opcodes.CHECKCAST, bean);
+		method.visitVarInsn(Opcodes.ASTORE, BEAN_LOCAL);
+
+		writeColumns(method, className, bean, metadata);
+
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	/**
+	 * Sets each column of the bean in {@link #BEAN_LOCAL}.
+	 */
+	private static void writeColumns(MethodVisitor method, String className, String bean,
+			EntityMetadata<?> metadata) {
+
+		ColumnMetadata[] columns = metadata.getAll();
+		for (int i = 0; i < columns.length; i++) {
+			String[] read = reads.get(columns[i].getType());
+			if (read != null && isDirectlyWritable(columns[i].getField(), metadata.getBeanClass())) {
+				writeDirect(method, bean, columns[i].getField(), read, i);
+			} else {
+				writeGeneric(method, className, i);
+			}
+		}
+	}
+
+	/**
+	 * bean.field = read(resultSet, indexes[i]);
+	 */
+	private static void writeDirect(MethodVisitor method, String bean, Field field, String[] read, int i) {
+
+		method.visitVarInsn(Opcodes.ALOAD, BEAN_LOCAL);
+		method.visitVarInsn(Opcodes.ALOAD, RESULT_SET_LOCAL);
+		pushIndex(method, i);
+		if (RESULT_SET.equals(read[0])) {
+			method.visitMethodInsn(Opcodes.INVOKEINTERFACE, read[0], read[1], read[2], true);
+		} else {
+			method.visitMethodInsn(Opcodes.INVOKESTATIC, read[0], read[1], read[2], false);
+		}
+		method.visitFieldInsn(Opcodes.PUTFIELD, bean, field.getName(), Type.getDescriptor(field.getType()));
+	}
+
+	/**
+	 * columns[i].readInto(resultSet, indexes[i], bean);
+	 */
+	private static void writeGeneric(MethodVisitor method, String className, int i) {
+
+		pushColumn(method, className, i);
+		method.visitVarInsn(Opcodes.ALOAD, RESULT_SET_LOCAL);
+		pushIndex(method, i);
+		method.visitVarInsn(Opcodes.ALOAD, BEAN_LOCAL);
+		method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, COLUMN, "readInto", "(" + Type.getDescriptor(ResultSet.class)
+				+ "ILjava/lang/Object;)V", false);
+	}
+
+	/**
+	 * Pushes columns[i].
+	 */
+	private static void pushColumn(MethodVisitor method, String className, int i) {
+		method.visitVarInsn(Opcodes.ALOAD, THIS);
+		method.visitFieldInsn(Opcodes.GETFIELD, className, "columns", COLUMNS_DESCRIPTOR);
+		pushInt(method, i);
+		method.visitInsn(Opcodes.AALOAD);
+	}
+
+	/**
+	 * Pushes indexes[i].
+	 */
+	private static void pushIndex(MethodVisitor method, int i) {
+		method.visitVarInsn(Opcodes.ALOAD, INDEXES_LOCAL);
+		pushInt(method, i);
+		method.visitInsn(Opcodes.IALOAD);
+	}
+
+	private static void pushInt(MethodVisitor method, int value) {
+		if (value <= 5) {
+			method.visitInsn(Opcodes.ICONST_0 + value);
+		} else if (value <= Byte.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.BIPUSH, value);
+		} else if (value <= Short.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.SIPUSH, value);
+		} else {
+			method.visitLdcInsn(Integer.valueOf(value));
+		}
+	}
+
+	/**
+	 * A field can be written with <code>putfield</code> if it's declared by the bean class itself
+	 * (so it's accessible to a nestmate of the bean) and is neither static nor final.
+	 */
+	private static boolean isDirectlyWritable(Field field, Class<?> beanClass) {
+		int modifiers = field.getModifiers();
+		return field.getDeclaringClass() == beanClass && !Modifier.isStatic(modifiers)
+				&& !Modifier.isFinal(modifiers);
+	}
+
+	private static boolean hasDefaultConstructor(Class<?> beanClass) {
+		if (Modifier.isAbstract(beanClass.getModifiers())) {
+			return false;
+		}
+		try {
+			beanClass.getDeclaredConstructor();
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Provides a {@link RowMapper} for each bean class, generating a dedicated mapper class at runtime
+ * where possible. Generated mappers avoid the per-column dispatch through {@link ColumnMetadata}
+ * and the boxing of {@link java.sql.ResultSet#getObject(int)}, which matters when mapping large
+ * result sets.
+ * <p>
+ * Mapper classes are defined as hidden nestmates of the bean class, so they can write private
+ * fields directly. This needs ASM on the classpath (it's an optional dependency) and a JVM that
+ * supports {@link Lookup}<code>.defineHiddenClass</code> (Java 15 or later). Where either is
+ * missing, or generation fails for any other reason, a {@link ReflectionRowMapper} is returned
+ * instead, so callers always get a working mapper.
+ * <p>
+ * Mappers are created once per bean class and held in a {@link ClassValue}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class RowMapperGenerator {
+
+	private static final ClassValue<RowMapper<?>> mappers = new ClassValue<RowMapper<?>>() {
+		@Override
+		protected RowMapper<?> computeValue(Class<?> type) {
+			return generate(EntityMetadata.of(type));
+		}
+	};
+
+	/**
+	 * No need to instantiate.
+	 */
+	private RowMapperGenerator() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * Gets the mapper for the given bean class, generating it if this is the first request.
+	 * 
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The metadata of the bean class.
+	 * @return A {@link RowMapper} for all of the columns of the bean class.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <B> RowMapper<B> forClass(EntityMetadata<B> metadata) {
+		return (RowMapper<B>) mappers.get(metadata.getBeanClass());
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The metadata of the bean class.
+	 * @return A generated mapper, or a {@link ReflectionRowMapper} if one can't be generated.
+	 */
+	static <B> RowMapper<B> generate(EntityMetadata<B> metadata) {
+
+		try {
+			byte[] bytes = RowMapperClassWriter.write(metadata);
+			Lookup lookup = defineHiddenClass(metadata.getBeanClass(), bytes);
+			MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+					MethodType.methodType(void.class, EntityMetadata.class)).asType(
+					MethodType.methodType(RowMapper.class, EntityMetadata.class));
+			@SuppressWarnings("unchecked")
+			RowMapper<B> result = (RowMapper<B>) constructor.invokeExact(metadata);
+			return result;
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			// E.g. ASM isn't on the classpath, defineHiddenClass isn't available on this JVM or the
+			// generated class doesn't verify. Fall back to reflection.
+		}
+		return new ReflectionRowMapper<B>(metadata, metadata.getAll());
+	}
+
+	/**
+	 * Defines the given class bytes as a hidden nestmate of the bean class. This is done
+	 * reflectively so that this library can still be compiled for, and run on, Java 8.
+	 * 
+	 * @param beanClass
+	 *            The bean class.
+	 * @param bytes
+	 *            The class bytes, which must describe a class in the same package as the bean.
+	 * @return A full-privilege {@link Lookup} on the new class.
+	 * @throws NoSuchMethodException
+	 *             If the JVM doesn't support hidden classes.
+	 * @throws ClassNotFoundException
+	 *             If the JVM doesn't support hidden classes.
+	 * @throws IllegalAccessException
+	 *             If the JVM doesn't allow a private lookup on the bean class.
+	 * @throws InvocationTargetException
+	 *             If the class can't be defined.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Lookup defineHiddenClass(Class<?> beanClass, byte[] bytes) throws NoSuchMethodException,
+			ClassNotFoundException, IllegalAccessException, InvocationTargetException {
+
+		Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+		Lookup beanLookup = (Lookup) privateLookupIn.invoke(null, beanClass, MethodHandles.lookup());
+
+		Class optionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+		Object options = Array.newInstance(optionClass, 1);
+		Array.set(options, 0, Enum.valueOf(optionClass, "NESTMATE"));
+
+		Method define = Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, options.getClass());
+		return (Lookup) define.invoke(beanLookup, bytes, Boolean.TRUE, options);
+	}
+
+	/**
+	 * @param mapper
+	 *            A mapper returned by this class.
+	 * @return true if the mapper is a generated class, false if it's a {@link ReflectionRowMapper}.
+	 */
+	public static boolean isGenerated(RowMapper<?> mapper) {
+		return !(mapper instanceof ReflectionRowMapper);
+	}
+}
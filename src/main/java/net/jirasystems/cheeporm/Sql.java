@@ -4,6 +4,7 @@
 package net.jirasystems.cheeporm;
 
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.Column;
@@ -36,11 +37,68 @@ public class Sql {
 	 */
 	public String insert(String table, List<Field> fields) {
 
-		String sql = "insert into " + table + " (" + fieldList(fields) + ") values (" + placeholderList(fields) + ")";
+		return insert(table, columns(fields));
+	}
+
+	/**
+	 * Generates an "insert into ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be inserted into.
+	 * @param columns
+	 *            The columns to be inserted.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String insert(String table, ColumnMetadata[] columns) {
+
+		String sql = "insert into " + table + " (" + fieldList(columns) + ") values (" + placeholderList(columns)
+				+ ")";
 
 		return sql;
 	}
 
+	/**
+	 * Generates a multi-row "insert into ... values (...), (...)" statement.
+	 * 
+	 * @param table
+	 *            The table to be inserted into.
+	 * @param columns
+	 *            The columns to be inserted.
+	 * @param rows
+	 *            The number of rows to be inserted.
+	 * @return A suitable SQL String, based on the given parameters. The parameters for each row
+	 *         follow those of the previous row.
+	 */
+	public String insert(String table, ColumnMetadata[] columns, int rows) {
+
+		String row = "(" + placeholderList(columns) + ")";
+		StringBuilder sql = new StringBuilder("insert into " + table + " (" + fieldList(columns) + ") values ");
+		for (int i = 0; i < rows; i++) {
+			if (i > 0) {
+				sql.append(", ");
+			}
+			sql.append(row);
+		}
+
+		return sql.toString();
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ..." statement, naming the mapped columns of the given bean
+	 * class.
+	 * 
+	 * @param beanClass
+	 *            The bean class, which gives the table and the columns to be selected.
+	 * @param filters
+	 *            The fields for the WHERE clause, or an empty list if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String select(Class<?> beanClass, List<Field> filters) {
+
+		EntityMetadata<?> metadata = EntityMetadata.of(beanClass);
+		return select(metadata.getTable(), metadata.getAll(), metadata.getColumns(filters));
+	}
+
 	/**
 	 * Generates a "select * from ..." statement.
 	 * 
@@ -49,11 +107,70 @@ public class Sql {
 	 * @param filters
 	 *            The fields for the WHERE clause, or an empty list if none.
 	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use {@link #select(Class, List)}, which names the
+	 *             mapped columns, so the database doesn't send any others.
 	 */
+	@Deprecated
 	public String select(String table, List<Field> filters) {
 
+		return select(table, columns(filters));
+	}
+
+	/**
+	 * Generates a "select * from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be selected from.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #select(String, ColumnMetadata[], ColumnMetadata[])}, which names the
+	 *             columns to be selected.
+	 */
+	@Deprecated
+	public String select(String table, ColumnMetadata[] filters) {
+
+		return select(table, null, filters);
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be selected from.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String select(String table, ColumnMetadata[] columns, ColumnMetadata[] filters) {
+
 		String whereClause = whereClause(filters);
-		return select(table, whereClause);
+		return select(table, columns, whereClause);
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ... where key in (...)" statement for a number of keys.
+	 * 
+	 * @param table
+	 *            The table to be selected from.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param keys
+	 *            The key columns.
+	 * @param count
+	 *            The number of keys (i.e. rows) to be matched.
+	 * @param rowValues
+	 *            For composite keys, true to use a row-value comparison, false to use an OR of ANDs.
+	 *            See {@link #inClause(ColumnMetadata[], int, boolean)}.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String selectIn(String table, ColumnMetadata[] columns, ColumnMetadata[] keys, int count,
+			boolean rowValues) {
+
+		return select(table, columns, inClause(keys, count, rowValues));
 	}
 
 	/**
@@ -67,7 +184,23 @@ public class Sql {
 	 */
 	protected String select(String table, String whereClause) {
 
-		String sql = "select * from " + table;
+		return select(table, null, whereClause);
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be selected from.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param whereClause
+	 *            The where clause. If empty or null, no WHERE will be added.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	protected String select(String table, ColumnMetadata[] columns, String whereClause) {
+
+		String sql = "select " + selectList(columns) + " from " + table;
 		if (!StringUtils.isEmpty(whereClause)) {
 			sql += " where " + whereClause;
 		}
@@ -88,7 +221,23 @@ public class Sql {
 	 */
 	public String update(String table, List<Field> fields, List<Field> filters) {
 
-		if (fields.size() == 0) {
+		return update(table, columns(fields), columns(filters));
+	}
+
+	/**
+	 * Generates an "update" statement.
+	 * 
+	 * @param table
+	 *            The table to be updated.
+	 * @param fields
+	 *            The columns to be updated.
+	 * @param filters
+	 *            The filter columns for the "where" clause.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String update(String table, ColumnMetadata[] fields, ColumnMetadata[] filters) {
+
+		if (fields.length == 0) {
 			return null;
 		}
 
@@ -113,12 +262,47 @@ public class Sql {
 	 */
 	public String delete(String table, List<Field> filters) {
 
+		return delete(table, columns(filters));
+	}
+
+	/**
+	 * Generates a "delete from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to delete from.
+	 * @param filters
+	 *            The columns for the WHERE clause.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String delete(String table, ColumnMetadata[] filters) {
+
 		String whereClause = whereClause(filters);
 		String sql = "delete from " + table + " where " + whereClause;
 
 		return sql;
 	}
 
+	/**
+	 * Generates a "delete from ... where key in (...)" statement for a number of keys.
+	 * 
+	 * @param table
+	 *            The table to delete from.
+	 * @param keys
+	 *            The key columns.
+	 * @param count
+	 *            The number of keys (i.e. rows) to be matched.
+	 * @param rowValues
+	 *            For composite keys, true to use a row-value comparison, false to use an OR of ANDs.
+	 *            See {@link #inClause(ColumnMetadata[], int, boolean)}.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String deleteIn(String table, ColumnMetadata[] keys, int count, boolean rowValues) {
+
+		String sql = "delete from " + table + " where " + inClause(keys, count, rowValues);
+
+		return sql;
+	}
+
 	/**
 	 * Generates a "select count(*) from ..." statement.
 	 * 
@@ -130,14 +314,67 @@ public class Sql {
 	 */
 	public String count(String table, List<Field> filters) {
 
+		return count(table, columns(filters));
+	}
+
+	/**
+	 * Generates a "select count(*) from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String count(String table, ColumnMetadata[] filters) {
+
 		String sql = "select count(*) from " + table;
-		if (filters.size() > 0) {
+		if (filters.length > 0) {
 			sql += " where " + whereClause(filters);
 		}
 
 		return sql;
 	}
 
+	/**
+	 * Generates a "select 1 from ..." statement, which returns a row for each matching row without
+	 * reading any columns. Use {@link #limit(String, Dialect)} to stop at the first row.
+	 * 
+	 * @param table
+	 *            The table to be checked.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String exists(String table, ColumnMetadata[] filters) {
+
+		String sql = "select 1 from " + table;
+		if (filters.length > 0) {
+			sql += " where " + whereClause(filters);
+		}
+
+		return sql;
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ..." statement, naming the mapped columns of the given bean
+	 * class.
+	 * 
+	 * @param beanClass
+	 *            The bean class, which gives the table and the columns to be selected.
+	 * @param filters
+	 *            The fields for the WHERE clause, or an empty list if none.
+	 * @param orderBy
+	 *            The fields for the ORDER BY clause, or an empty list if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String list(Class<?> beanClass, List<Field> filters, List<Field> orderBy) {
+
+		EntityMetadata<?> metadata = EntityMetadata.of(beanClass);
+		return list(metadata.getTable(), metadata.getAll(), metadata.getColumns(filters), metadata
+				.getColumns(orderBy));
+	}
+
 	/**
 	 * Generates a "select * from ..." statement.
 	 * 
@@ -148,20 +385,154 @@ public class Sql {
 	 * @param orderBy
 	 *            The fields for the ORDER BY clause, or an empty list if none.
 	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use {@link #list(Class, List, List)}, which names the
+	 *             mapped columns, so the database doesn't send any others.
 	 */
+	@Deprecated
 	public String list(String table, List<Field> filters, List<Field> orderBy) {
 
-		String sql = "select * from " + table;
-		if (filters.size() > 0) {
+		return list(table, columns(filters), columns(orderBy));
+	}
+
+	/**
+	 * Generates a "select * from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param orderBy
+	 *            The columns for the ORDER BY clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #list(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata[])}, which
+	 *             names the columns to be selected.
+	 */
+	@Deprecated
+	public String list(String table, ColumnMetadata[] filters, ColumnMetadata[] orderBy) {
+
+		return list(table, null, filters, orderBy);
+	}
+
+	/**
+	 * Generates a "select a, b, ... from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param orderBy
+	 *            The columns for the ORDER BY clause, or an empty array if none.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String list(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata[] orderBy) {
+
+		String sql = "select " + selectList(columns) + " from " + table;
+		if (filters.length > 0) {
 			sql += " where " + whereClause(filters);
 		}
-		if (orderBy.size() > 0) {
+		if (orderBy.length > 0) {
 			sql += " order by " + orderByClause(orderBy);
 		}
 
 		return sql;
 	}
 
+	/**
+	 * Generates a "select a, b, ... from ..." statement for a page of rows, ordered by the given
+	 * columns and, optionally, starting after a given set of values of those columns (keyset, or
+	 * "seek", pagination). Unlike skipping rows, the database can go straight to the start of the
+	 * page through an index on the order-by columns, however deep the page is. Use
+	 * {@link #limit(String, Dialect)} to limit the number of rows.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param orderBy
+	 *            The columns for the ORDER BY clause. These should identify a row uniquely.
+	 * @param after
+	 *            true to only select rows after a set of order-by values. The parameters for these
+	 *            follow the filters - see {@link #keysetClause(ColumnMetadata[], boolean)}.
+	 * @param rowValues
+	 *            For more than one order-by column, true to use a row-value comparison, false to use
+	 *            an OR of ANDs.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String page(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata[] orderBy,
+			boolean after, boolean rowValues) {
+
+		String whereClause = whereClause(filters);
+		if (after) {
+			String keysetClause = keysetClause(orderBy, rowValues);
+			whereClause = whereClause.length() > 0 ? whereClause + " and " + keysetClause : keysetClause;
+		}
+		String sql = select(table, columns, whereClause);
+		sql += " order by " + orderByClause(orderBy);
+
+		return sql;
+	}
+
+	/**
+	 * Limits the number of rows returned by a query. The limit is a parameter: for
+	 * {@link Dialect#TOP} it is the first parameter (see {@link Dialect#isLimitFirst()}), otherwise
+	 * it is the last.
+	 * 
+	 * @param select
+	 *            A "select ..." statement.
+	 * @param dialect
+	 *            The dialect of the database, or null if it isn't known.
+	 * @return The statement with a limit clause, or the statement unchanged if the dialect is null
+	 *         (see {@link Dialect#forQuery(Dialect, boolean)}).
+	 */
+	public String limit(String select, Dialect dialect) {
+
+		return limit(select, dialect, false);
+	}
+
+	/**
+	 * Limits the number of rows returned by a query and, optionally, skips a number of rows. The
+	 * limit and offset are parameters, which come after the other parameters:
+	 * <ul>
+	 * <li>{@link Dialect#LIMIT}: <code>limit ? offset ?</code> - the limit, then the offset.</li>
+	 * <li>{@link Dialect#FETCH}: <code>offset ? rows fetch next ? rows only</code> - the offset,
+	 * then the limit.</li>
+	 * <li>{@link Dialect#TOP}: <code>select top (?)</code> - a single parameter, before the others,
+	 * for the offset plus the limit. The caller skips the offset rows.</li>
+	 * </ul>
+	 * A {@link Dialect#FETCH} statement without an ORDER BY is returned unchanged, as for a null
+	 * dialect, since SQL Server rejects it (see {@link Dialect#forQuery(Dialect, boolean)}).
+	 * 
+	 * @param select
+	 *            A "select ..." statement.
+	 * @param dialect
+	 *            The dialect of the database, or null if it isn't known.
+	 * @param offset
+	 *            true to include an offset parameter, if the dialect supports it.
+	 * @return The statement with a limit clause, or the statement unchanged if the dialect is null
+	 *         or can't be used for this statement.
+	 */
+	public String limit(String select, Dialect dialect, boolean offset) {
+
+		if (Dialect.forQuery(dialect, select.contains(" order by ")) == null) {
+			return select;
+		}
+		switch (dialect) {
+		case LIMIT:
+			return select + (offset ? " limit ? offset ?" : " limit ?");
+		case FETCH:
+			return select + (offset ? " offset ? rows" : " offset 0 rows") + " fetch next ? rows only";
+		case TOP:
+			return "select top (?) " + select.substring("select ".length());
+		default:
+			throw new IllegalArgumentException("Unsupported dialect: " + dialect);
+		}
+	}
+
 	/**
 	 * Generates a statement to return the record with the maximum value if the field defined by
 	 * maxValueField and with the given filters.
@@ -173,42 +544,200 @@ public class Sql {
 	 * @param maxValueField
 	 *            The field to get the max value of.
 	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use {@link #max(Class, List, Field)}, which names the
+	 *             mapped columns, so the database doesn't send any others.
 	 */
+	@Deprecated
 	public String max(String table, List<Field> filters, Field maxValueField) {
 
-		String sql = "select * from " + table;
-		if (filters.size() > 0) {
-			sql += " where " + whereClause(filters);
+		return max(table, columns(filters), columns(Collections.singletonList(maxValueField))[0]);
+	}
+
+	/**
+	 * Generates a statement to return the mapped columns of the record with the maximum value of the
+	 * field defined by maxValueField and with the given filters.
+	 * 
+	 * @param beanClass
+	 *            The bean class, which gives the table and the columns to be selected.
+	 * @param filters
+	 *            The fields for the WHERE clause, or an empty list if none.
+	 * @param maxValueField
+	 *            The field to get the max value of.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String max(Class<?> beanClass, List<Field> filters, Field maxValueField) {
+
+		EntityMetadata<?> metadata = EntityMetadata.of(beanClass);
+		return max(metadata.getTable(), metadata.getAll(), metadata.getColumns(filters), metadata
+				.getColumn(maxValueField));
+	}
+
+	/**
+	 * Generates a statement to return the record with the maximum value if the column defined by
+	 * maxValueColumn and with the given filters.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param maxValueColumn
+	 *            The column to get the max value of.
+	 * @return A suitable SQL String, based on the given parameters.
+	 * @deprecated Retained for compatibility. Use
+	 *             {@link #max(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata)}, which
+	 *             names the columns to be selected.
+	 */
+	@Deprecated
+	public String max(String table, ColumnMetadata[] filters, ColumnMetadata maxValueColumn) {
+
+		return max(table, null, filters, maxValueColumn);
+	}
+
+	/**
+	 * Generates a statement to return the selected columns of the record with the maximum value of
+	 * the column defined by maxValueColumn and with the given filters.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param maxValueColumn
+	 *            The column to get the max value of.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String max(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata maxValueColumn) {
+
+		return extremum(table, columns, filters, maxValueColumn, Aggregate.MAX);
+	}
+
+	/**
+	 * Generates a statement to return the selected columns of the record with the minimum value of
+	 * the column defined by minValueColumn and with the given filters. The parameters are the
+	 * filters, twice.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param minValueColumn
+	 *            The column to get the min value of.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String min(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata minValueColumn) {
+
+		return extremum(table, columns, filters, minValueColumn, Aggregate.MIN);
+	}
+
+	/**
+	 * Generates a statement to return the record(s) whose value of the given column is the max (or
+	 * min) for the given filters, using a subquery. The parameters are the filters, twice.
+	 */
+	private String extremum(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata column,
+			Aggregate function) {
+
+		String sql = "select " + selectList(columns) + " from " + table + " where ";
+		if (filters.length > 0) {
+			sql += whereClause(filters) + " and ";
 		}
 
-		String maxColumn = reflection.getColumnName(maxValueField);
+		String columnName = column.getName();
+		String subquery = aggregate(table, filters, column, function);
+
+		sql = sql + columnName + "=(" + subquery + ")";
+
+		return sql;
+	}
+
+	/**
+	 * Generates a statement to return the first record, ordered by the given column, with the given
+	 * filters. Rows where the column is null are excluded, as they are by max and min. Use
+	 * {@link #limit(String, Dialect)} to only return the first row, which the database can find
+	 * through an index on the column, rather than the subquery of
+	 * {@link #max(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata)}.
+	 * 
+	 * @param table
+	 *            The table to be listed.
+	 * @param columns
+	 *            The columns to be selected. If null or empty, all columns are selected.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param orderBy
+	 *            The column to order by.
+	 * @param descending
+	 *            true to order by descending value, i.e. to return the max first.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String first(String table, ColumnMetadata[] columns, ColumnMetadata[] filters, ColumnMetadata orderBy,
+			boolean descending) {
 
-		String maxSql = "select max(" + maxColumn + ") from " + table;
-		if (filters.size() > 0) {
-			maxSql += " where " + whereClause(filters);
+		String sql = "select " + selectList(columns) + " from " + table + " where ";
+		if (filters.length > 0) {
+			sql += whereClause(filters) + " and ";
 		}
+		sql += orderBy.getName() + " is not null order by " + orderBy.getName() + (descending ? " desc" : "");
 
-		sql = sql + " and " + maxColumn + "=(" + maxSql + ")";
+		return sql;
+	}
+
+	/**
+	 * Generates a "select fn(a) from ..." statement.
+	 * 
+	 * @param table
+	 *            The table to be aggregated.
+	 * @param filters
+	 *            The columns for the WHERE clause, or an empty array if none.
+	 * @param column
+	 *            The column to be aggregated.
+	 * @param function
+	 *            The aggregate function.
+	 * @return A suitable SQL String, based on the given parameters.
+	 */
+	public String aggregate(String table, ColumnMetadata[] filters, ColumnMetadata column, Aggregate function) {
+
+		String sql = "select " + function.getFunction() + "(" + column.getName() + ") from " + table;
+		if (filters.length > 0) {
+			sql += " where " + whereClause(filters);
+		}
 
 		return sql;
 	}
 
 	// Convenience methods to generate field, parameter and value lists
 
+	/**
+	 * Generates the column list of a SELECT. Naming the columns means the database only sends the
+	 * columns that are mapped, rather than any others that have been added to the table.
+	 * 
+	 * @param columns
+	 *            The columns to be selected, or null.
+	 * @return A comma-separated list of the column names, or * if no columns are given.
+	 */
+	protected String selectList(ColumnMetadata[] columns) {
+
+		if (columns == null || columns.length == 0) {
+			return "*";
+		}
+		return fieldList(columns);
+	}
+
 	/**
 	 * @param fields
 	 *            The fields to be included in the returned String.
 	 * @return A list of field names from the given list.
 	 */
-	private String fieldList(List<Field> fields) {
+	private String fieldList(ColumnMetadata[] fields) {
 
 		StringBuilder stringBuilder = new StringBuilder();
 
-		for (Field field : fields) {
+		for (ColumnMetadata field : fields) {
 			if (stringBuilder.length() > 0) {
 				stringBuilder.append(", ");
 			}
-			stringBuilder.append(reflection.getColumnName(field));
+			stringBuilder.append(field.getName());
 		}
 
 		return stringBuilder.toString();
@@ -222,11 +751,11 @@ public class Sql {
 	 * @return A string containing the correct number of ? placeholders to match the given list of
 	 *         fields.
 	 */
-	private String placeholderList(List<Field> fields) {
+	private String placeholderList(ColumnMetadata[] fields) {
 
 		StringBuilder stringBuilder = new StringBuilder();
 
-		for (int i = 0; i < fields.size(); i++) {
+		for (int i = 0; i < fields.length; i++) {
 			if (stringBuilder.length() > 0) {
 				stringBuilder.append(", ");
 			}
@@ -246,17 +775,17 @@ public class Sql {
 	 * @return A list of field names and values from the given list, suitable for an update
 	 *         statement: field=value, etc.
 	 */
-	protected String updateList(List<Field> fields) {
+	protected String updateList(ColumnMetadata[] fields) {
 
 		StringBuilder stringBuilder = new StringBuilder();
 
-		for (Field field : fields) {
+		for (ColumnMetadata field : fields) {
 			// Verify that the column can be updated
-			if (reflection.isUpdateable(field)) {
+			if (field.isUpdatable()) {
 				if (stringBuilder.length() > 0) {
 					stringBuilder.append(", ");
 				}
-				stringBuilder.append(reflection.getColumnName(field));
+				stringBuilder.append(field.getName());
 				stringBuilder.append("=?");
 			}
 		}
@@ -271,19 +800,100 @@ public class Sql {
 	 *            The fields to be included in the clause.
 	 * @return A list of database field names with JDBC placeholders.
 	 */
-	protected String whereClause(List<Field> keys) {
+	protected String whereClause(ColumnMetadata[] keys) {
 
 		StringBuilder whereClause = new StringBuilder();
-		for (Field key : keys) {
+		for (ColumnMetadata key : keys) {
 			if (whereClause.length() > 0) {
 				whereClause.append(" and ");
 			}
-			whereClause.append(reflection.getColumnName(key));
+			whereClause.append(key.getName());
 			whereClause.append("=?");
 		}
 		return whereClause.toString();
 	}
 
+	/**
+	 * Generates a WHERE clause, excluding the WHERE, that matches any of a number of keys. The
+	 * parameters for each key follow those of the previous key. For a single key column this is
+	 * <code>id in (?, ?)</code>. For composite keys it is either a row-value comparison,
+	 * <code>(a, b) in ((?, ?), (?, ?))</code>, which not all databases support, or an OR of ANDs,
+	 * <code>(a=? and b=?) or (a=? and b=?)</code>.
+	 * 
+	 * @param keys
+	 *            The key columns.
+	 * @param count
+	 *            The number of keys to be matched.
+	 * @param rowValues
+	 *            For composite keys, true to generate a row-value comparison.
+	 * @return A suitable WHERE clause.
+	 */
+	protected String inClause(ColumnMetadata[] keys, int count, boolean rowValues) {
+
+		StringBuilder inClause = new StringBuilder();
+		if (keys.length == 1 || rowValues) {
+			String row = keys.length == 1 ? "?" : "(" + placeholderList(keys) + ")";
+			inClause.append(keys.length == 1 ? keys[0].getName() : "(" + fieldList(keys) + ")");
+			inClause.append(" in (");
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					inClause.append(", ");
+				}
+				inClause.append(row);
+			}
+			inClause.append(")");
+		} else {
+			String row = "(" + whereClause(keys) + ")";
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					inClause.append(" or ");
+				}
+				inClause.append(row);
+			}
+		}
+		return inClause.toString();
+	}
+
+	/**
+	 * Generates a condition that matches rows after a set of values of the given columns, in the
+	 * order of those columns. For a single column this is <code>a&gt;?</code>. For several columns
+	 * it is either a row-value comparison, <code>(a, b)&gt;(?, ?)</code>, or the equivalent OR of
+	 * ANDs, <code>(a&gt;? or (a=? and b&gt;?))</code>, in which the parameters for the first column
+	 * are repeated for each subsequent column.
+	 * 
+	 * @param keys
+	 *            The order-by columns.
+	 * @param rowValues
+	 *            true to generate a row-value comparison.
+	 * @return A suitable condition.
+	 */
+	protected String keysetClause(ColumnMetadata[] keys, boolean rowValues) {
+
+		if (keys.length == 1) {
+			return keys[0].getName() + ">?";
+		} else if (rowValues) {
+			return "(" + fieldList(keys) + ")>(" + placeholderList(keys) + ")";
+		}
+
+		StringBuilder keysetClause = new StringBuilder("(");
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				keysetClause.append(" or (");
+				for (int j = 0; j < i; j++) {
+					keysetClause.append(keys[j].getName());
+					keysetClause.append("=? and ");
+				}
+			}
+			keysetClause.append(keys[i].getName());
+			keysetClause.append(">?");
+			if (i > 0) {
+				keysetClause.append(")");
+			}
+		}
+		keysetClause.append(")");
+		return keysetClause.toString();
+	}
+
 	/**
 	 * Generates an ORDER BY clause, excluding the ORDER BY, i.e. a comma-separated list of fields.
 	 * 
@@ -291,18 +901,40 @@ public class Sql {
 	 *            The fields to be included in the clause.
 	 * @return A comma-separated list of database field names.
 	 */
-	private String orderByClause(List<Field> keys) {
+	private String orderByClause(ColumnMetadata[] keys) {
 
 		StringBuilder orderByClause = new StringBuilder();
-		for (Field key : keys) {
+		for (ColumnMetadata key : keys) {
 			if (orderByClause.length() > 0) {
 				orderByClause.append(", ");
 			}
-			orderByClause.append(reflection.getColumnName(key));
+			orderByClause.append(key.getName());
 		}
 		return orderByClause.toString();
 	}
 
+	/**
+	 * Looks up an arbitrary list of fields, for the methods that take {@link Field} lists rather
+	 * than {@link EntityMetadata} columns. Each field's column comes from the {@link EntityMetadata}
+	 * of the class that declares it. Only fields that class doesn't map are described on the fly.
+	 * 
+	 * @param fields
+	 *            The fields.
+	 * @return Column metadata for each field, in the same order.
+	 */
+	private ColumnMetadata[] columns(List<Field> fields) {
+
+		ColumnMetadata[] columns = new ColumnMetadata[fields.size()];
+		for (int i = 0; i < columns.length; i++) {
+			Field field = fields.get(i);
+			columns[i] = EntityMetadata.of(field.getDeclaringClass()).findColumn(field);
+			if (columns[i] == null) {
+				columns[i] = new ColumnMetadata(field, reflection);
+			}
+		}
+		return columns;
+	}
+
 	/**
 	 * @return the reflection
 	 */
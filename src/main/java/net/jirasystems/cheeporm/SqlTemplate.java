@@ -0,0 +1,68 @@
+package net.jirasystems.cheeporm;
+
+/**
+ * An SQL statement for a particular query shape, together with the columns whose values are to be
+ * set as its parameters, in order, and, for queries, the columns it selects. Instances are
+ * immutable and are shared through {@link SqlTemplates}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public final class SqlTemplate {
+
+	private final String sql;
+	private final ColumnMetadata[] parameters;
+	private final ColumnMetadata[] columns;
+
+	/**
+	 * @param sql
+	 *            The SQL.
+	 * @param parameters
+	 *            The parameter columns.
+	 */
+	SqlTemplate(String sql, ColumnMetadata[] parameters) {
+		this(sql, parameters, null);
+	}
+
+	/**
+	 * @param sql
+	 *            The SQL.
+	 * @param parameters
+	 *            The parameter columns.
+	 * @param columns
+	 *            The columns selected by the SQL, in order.
+	 */
+	SqlTemplate(String sql, ColumnMetadata[] parameters, ColumnMetadata[] columns) {
+		this.sql = sql;
+		this.parameters = parameters;
+		this.columns = columns;
+	}
+
+	/**
+	 * @return the SQL, which may be null (e.g. an update for a bean with no updatable fields)
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * @return the parameter columns. This is the array held by the template, so it must not be
+	 *         modified.
+	 */
+	public ColumnMetadata[] getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return the columns selected by a query, or null if this is not a query. This is the array
+	 *         held by the template, so it must not be modified.
+	 */
+	public ColumnMetadata[] getColumns() {
+		return columns;
+	}
+
+	@Override
+	public String toString() {
+		return sql;
+	}
+}
@@ -0,0 +1,705 @@
+package net.jirasystems.cheeporm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the SQL generated by {@link Sql}, so that repeated query shapes don't rebuild their SQL.
+ * <p>
+ * Templates are keyed by bean class, operation and a bitmask of the columns involved: for
+ * example-based queries ({@link Orm#list(Object, java.lang.reflect.Field...)},
+ * {@link Orm#count(Object)}, etc.) the where clause depends only on which fields of the example
+ * are non-null, so the bitmask of populated fields, plus any order-by columns, identifies the SQL.
+ * Once a shape has been seen, getting its SQL costs a pass over the bean fields and a lookup on
+ * the primitive key values, and the lookup itself allocates nothing. Callers still resolve any
+ * order-by fields to columns (see {@link EntityMetadata#getColumns(java.lang.reflect.Field...)}),
+ * which allocates an array per call when there are order-by fields.
+ * <p>
+ * The templates for each bean class are held in a {@link ClassValue}, one table per operation,
+ * rather than in a map keyed by {@link Class}, so this cache doesn't keep bean classes (and their
+ * class loaders) reachable after they have been unloaded.
+ * <p>
+ * Queries select the mapped columns of the bean by name, rather than <code>select *</code>, or just
+ * the columns of a {@link Projection}, which are also part of the key.
+ * <p>
+ * Beans with more than 64 columns, or order-by clauses that can't be encoded in the key, are not
+ * cached and simply go straight to {@link Sql}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class SqlTemplates {
+
+	private static final SqlTemplates shared = new SqlTemplates(new Sql());
+
+	private final Sql sql;
+	private final ClassTemplates templates = new ClassTemplates();
+	private final AtomicInteger size = new AtomicInteger();
+
+	private enum Operation {
+		INSERT, SELECT, UPDATE, DELETE, COUNT, EXISTS, LIST, MAX, MIN, FIRST, AGGREGATE, PAGE, LIMITED;
+	}
+
+	/**
+	 * @return An instance, shared by all {@link Orm} instances that use a standard {@link Sql}. An
+	 *         {@link Orm} given a subclass of {@link Sql} gets its own instance.
+	 */
+	public static SqlTemplates shared() {
+		return shared;
+	}
+
+	/**
+	 * @param sql
+	 *            The {@link Sql} instance used to build the SQL for each template.
+	 */
+	public SqlTemplates(Sql sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The bean to be inserted.
+	 * @return An insert of all insertable fields, plus any insertable keys that have a value. MSSQL
+	 *         isn't too happy with attempting to insert null into an auto-increment field, so null
+	 *         keys are left out.
+	 */
+	public <B> SqlTemplate insert(EntityMetadata<B> metadata, B bean) {
+
+		ColumnMetadata[] keys = metadata.getInsertKeys();
+		if (keys.length > Long.SIZE) {
+			ColumnMetadata[] columns = concat(metadata.getInsertFields(), filters(keys, bean));
+			return new SqlTemplate(sql.insert(metadata.getTable(), columns), columns);
+		}
+
+		long mask = mask(keys, bean);
+		TemplateTable table = table(metadata, Operation.INSERT);
+		SqlTemplate result = table.get(mask, 0, 0);
+		if (result == null) {
+			ColumnMetadata[] columns = concat(metadata.getInsertFields(), select(keys, mask));
+			SqlTemplate template = new SqlTemplate(sql.insert(metadata.getTable(), columns), columns);
+			result = cache(table, mask, 0, 0, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param metadata
+	 *            The bean metadata.
+	 * @return A select by key.
+	 */
+	public SqlTemplate select(EntityMetadata<?> metadata) {
+
+		TemplateTable table = table(metadata, Operation.SELECT);
+		SqlTemplate result = table.get(0, 0, 0);
+		if (result == null) {
+			ColumnMetadata[] all = metadata.getAll();
+			ColumnMetadata[] keys = metadata.getKeys();
+			SqlTemplate template = new SqlTemplate(sql.select(metadata.getTable(), all, keys), keys, all);
+			result = cache(table, 0, 0, 0, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param metadata
+	 *            The bean metadata.
+	 * @return An update by key. The SQL is null if the bean has no updatable fields. The parameters
+	 *         are the updatable fields followed by the keys.
+	 */
+	public SqlTemplate update(EntityMetadata<?> metadata) {
+
+		TemplateTable table = table(metadata, Operation.UPDATE);
+		SqlTemplate result = table.get(0, 0, 0);
+		if (result == null) {
+			ColumnMetadata[] fields = metadata.getUpdateFields();
+			ColumnMetadata[] keys = metadata.getKeys();
+			SqlTemplate template = new SqlTemplate(sql.update(metadata.getTable(), fields, keys), concat(fields, keys));
+			result = cache(table, 0, 0, 0, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param metadata
+	 *            The bean metadata.
+	 * @return A delete by key.
+	 */
+	public SqlTemplate delete(EntityMetadata<?> metadata) {
+
+		TemplateTable table = table(metadata, Operation.DELETE);
+		SqlTemplate result = table.get(0, 0, 0);
+		if (result == null) {
+			ColumnMetadata[] keys = metadata.getKeys();
+			SqlTemplate template = new SqlTemplate(sql.delete(metadata.getTable(), keys), keys);
+			result = cache(table, 0, 0, 0, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @return A count of matching rows.
+	 */
+	public <B> SqlTemplate count(EntityMetadata<B> metadata, B bean) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		if (all.length > Long.SIZE) {
+			ColumnMetadata[] filters = filters(all, bean);
+			return new SqlTemplate(sql.count(metadata.getTable(), filters), filters);
+		}
+
+		long mask = mask(all, bean);
+		TemplateTable table = table(metadata, Operation.COUNT);
+		SqlTemplate result = table.get(mask, 0, 0);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			SqlTemplate template = new SqlTemplate(sql.count(metadata.getTable(), filters), filters);
+			result = cache(table, mask, 0, 0, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param dialect
+	 *            The dialect used to limit the query to one row, or null to leave the SQL
+	 *            unlimited.
+	 * @return A check for a matching row. The parameters are the filters, and the limit (see
+	 *         {@link Sql#limit(String, Dialect)}), which needs to be set by the caller.
+	 */
+	public <B> SqlTemplate exists(EntityMetadata<B> metadata, B bean, Dialect dialect) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		if (all.length > Long.SIZE) {
+			ColumnMetadata[] filters = filters(all, bean);
+			return new SqlTemplate(sql.limit(sql.exists(metadata.getTable(), filters), dialect), filters);
+		}
+
+		long mask = mask(all, bean);
+		long variant = dialect == null ? 0 : dialect.ordinal() + 1;
+		TemplateTable table = table(metadata, Operation.EXISTS);
+		SqlTemplate result = table.get(mask, 0, variant);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			SqlTemplate template = new SqlTemplate(sql.limit(sql.exists(metadata.getTable(), filters), dialect),
+					filters);
+			result = cache(table, mask, 0, variant, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param orderBy
+	 *            The order-by columns.
+	 * @return A list of matching rows, selecting all mapped columns.
+	 */
+	public <B> SqlTemplate list(EntityMetadata<B> metadata, B bean, ColumnMetadata[] orderBy) {
+
+		return list(metadata, bean, orderBy, null);
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param orderBy
+	 *            The order-by columns.
+	 * @param projection
+	 *            The columns to be selected, or null to select all mapped columns.
+	 * @return A list of matching rows. The selected columns are available from
+	 *         {@link SqlTemplate#getColumns()}.
+	 */
+	public <B> SqlTemplate list(EntityMetadata<B> metadata, B bean, ColumnMetadata[] orderBy, Projection projection) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, orderBy);
+		long projected = projection == null ? 0 : project(metadata, projection.getColumns(metadata));
+		if (all.length > Long.SIZE || order < 0 || projected < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			ColumnMetadata[] columns = projection == null ? all : projection.getColumns(metadata);
+			return new SqlTemplate(sql.list(metadata.getTable(), columns, filters, orderBy), filters, columns);
+		}
+
+		long mask = mask(all, bean);
+		TemplateTable table = table(metadata, Operation.LIST);
+		SqlTemplate result = table.get(mask, order, projected);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			ColumnMetadata[] columns = projected == 0 ? all : select(all, projected);
+			SqlTemplate template = new SqlTemplate(sql.list(metadata.getTable(), columns, filters, orderBy), filters,
+					columns);
+			result = cache(table, mask, order, projected, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param orderBy
+	 *            The order-by columns.
+	 * @param dialect
+	 *            The dialect used to limit the number of rows, or null to leave the SQL unlimited.
+	 * @param offset
+	 *            true to include an offset, if the dialect supports it.
+	 * @return A list of matching rows, with a limit. The parameters are the filters, and the limit
+	 *         and offset (see {@link Sql#limit(String, Dialect, boolean)}), which need to be set by
+	 *         the caller.
+	 */
+	public <B> SqlTemplate limit(EntityMetadata<B> metadata, B bean, ColumnMetadata[] orderBy, Dialect dialect,
+			boolean offset) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, orderBy);
+		if (all.length > Long.SIZE || order < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			String list = sql.list(metadata.getTable(), all, filters, orderBy);
+			return new SqlTemplate(sql.limit(list, dialect, offset), filters, all);
+		}
+
+		long mask = mask(all, bean);
+		long variant = (offset ? 1 : 0) | (dialect == null ? 0 : (dialect.ordinal() + 1) << 1);
+		TemplateTable table = table(metadata, Operation.LIMITED);
+		SqlTemplate result = table.get(mask, order, variant);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			String list = sql.list(metadata.getTable(), all, filters, orderBy);
+			SqlTemplate template = new SqlTemplate(sql.limit(list, dialect, offset), filters, all);
+			result = cache(table, mask, order, variant, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param maxValueColumn
+	 *            The column whose maximum value is to be selected.
+	 * @return A select of the row(s) with the maximum value. The parameters are the filters, which
+	 *         need to be set twice.
+	 */
+	public <B> SqlTemplate max(EntityMetadata<B> metadata, B bean, ColumnMetadata maxValueColumn) {
+
+		return extremum(metadata, bean, maxValueColumn, Operation.MAX);
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param minValueColumn
+	 *            The column whose minimum value is to be selected.
+	 * @return A select of the row(s) with the minimum value. The parameters are the filters, which
+	 *         need to be set twice.
+	 */
+	public <B> SqlTemplate min(EntityMetadata<B> metadata, B bean, ColumnMetadata minValueColumn) {
+
+		return extremum(metadata, bean, minValueColumn, Operation.MIN);
+	}
+
+	private <B> SqlTemplate extremum(EntityMetadata<B> metadata, B bean, ColumnMetadata column, Operation operation) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, column);
+		if (all.length > Long.SIZE || order < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			return new SqlTemplate(extremum(metadata, filters, column, operation), filters, all);
+		}
+
+		long mask = mask(all, bean);
+		TemplateTable table = table(metadata, operation);
+		SqlTemplate result = table.get(mask, order, 0);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			SqlTemplate template = new SqlTemplate(extremum(metadata, filters, column, operation), filters, all);
+			result = cache(table, mask, order, 0, template);
+		}
+		return result;
+	}
+
+	private String extremum(EntityMetadata<?> metadata, ColumnMetadata[] filters, ColumnMetadata column,
+			Operation operation) {
+		if (operation == Operation.MAX) {
+			return sql.max(metadata.getTable(), metadata.getAll(), filters, column);
+		}
+		return sql.min(metadata.getTable(), metadata.getAll(), filters, column);
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param orderBy
+	 *            The column to order by.
+	 * @param descending
+	 *            true for the row with the maximum value, false for the minimum.
+	 * @param dialect
+	 *            The dialect used to limit the query to one row.
+	 * @return A select of the first row in the order of the column. The parameters are the filters,
+	 *         and the limit (see {@link Sql#limit(String, Dialect)}), which needs to be set by the
+	 *         caller.
+	 */
+	public <B> SqlTemplate first(EntityMetadata<B> metadata, B bean, ColumnMetadata orderBy, boolean descending,
+			Dialect dialect) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, orderBy);
+		if (all.length > Long.SIZE || order < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			String first = sql.first(metadata.getTable(), all, filters, orderBy, descending);
+			return new SqlTemplate(sql.limit(first, dialect), filters, all);
+		}
+
+		long mask = mask(all, bean);
+		long variant = (descending ? 1 : 0) | (dialect == null ? 0 : (dialect.ordinal() + 1) << 1);
+		TemplateTable table = table(metadata, Operation.FIRST);
+		SqlTemplate result = table.get(mask, order, variant);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			String first = sql.first(metadata.getTable(), all, filters, orderBy, descending);
+			SqlTemplate template = new SqlTemplate(sql.limit(first, dialect), filters, all);
+			result = cache(table, mask, order, variant, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param column
+	 *            The column to be aggregated.
+	 * @param function
+	 *            The aggregate function.
+	 * @return A select of the aggregate value of the column.
+	 */
+	public <B> SqlTemplate aggregate(EntityMetadata<B> metadata, B bean, ColumnMetadata column, Aggregate function) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, column);
+		if (all.length > Long.SIZE || order < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			return new SqlTemplate(sql.aggregate(metadata.getTable(), filters, column, function), filters);
+		}
+
+		long mask = mask(all, bean);
+		TemplateTable table = table(metadata, Operation.AGGREGATE);
+		SqlTemplate result = table.get(mask, order, function.ordinal());
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			SqlTemplate template = new SqlTemplate(sql.aggregate(metadata.getTable(), filters, column, function),
+					filters);
+			result = cache(table, mask, order, function.ordinal(), template);
+		}
+		return result;
+	}
+
+	/**
+	 * @param <B>
+	 *            The bean type.
+	 * @param metadata
+	 *            The bean metadata.
+	 * @param bean
+	 *            The example bean, whose non-null fields are used as filters.
+	 * @param orderBy
+	 *            The order-by columns, which define the pages.
+	 * @param after
+	 *            true if the page starts after a set of order-by values, false for the first page.
+	 * @param rowValues
+	 *            true to compare the order-by values with a row-value comparison.
+	 * @param dialect
+	 *            The dialect used to limit the number of rows, or null to leave the SQL unlimited.
+	 * @return A select of a page of rows. The parameters are the filters, followed by the order-by
+	 *         values (see {@link Sql#page(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata[],
+	 *         boolean, boolean)}), and the limit (see {@link Sql#limit(String, Dialect)}), which need
+	 *         to be set by the caller.
+	 */
+	public <B> SqlTemplate page(EntityMetadata<B> metadata, B bean, ColumnMetadata[] orderBy, boolean after,
+			boolean rowValues, Dialect dialect) {
+
+		ColumnMetadata[] all = metadata.getAll();
+		long order = encode(metadata, orderBy);
+		if (all.length > Long.SIZE || order < 0) {
+			ColumnMetadata[] filters = filters(all, bean);
+			String page = sql.page(metadata.getTable(), all, filters, orderBy, after, rowValues);
+			return new SqlTemplate(sql.limit(page, dialect), filters, all);
+		}
+
+		long mask = mask(all, bean);
+		long variant = (after ? 1 : 0) | (rowValues ? 2 : 0) | (dialect == null ? 0 : (dialect.ordinal() + 1) << 2);
+		TemplateTable table = table(metadata, Operation.PAGE);
+		SqlTemplate result = table.get(mask, order, variant);
+		if (result == null) {
+			ColumnMetadata[] filters = select(all, mask);
+			String page = sql.page(metadata.getTable(), all, filters, orderBy, after, rowValues);
+			SqlTemplate template = new SqlTemplate(sql.limit(page, dialect), filters, all);
+			result = cache(table, mask, order, variant, template);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of templates cached.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * @return The {@link Sql} instance used to build templates.
+	 */
+	public Sql getSql() {
+		return sql;
+	}
+
+	private TemplateTable table(EntityMetadata<?> metadata, Operation operation) {
+		return templates.get(metadata.getBeanClass())[operation.ordinal()];
+	}
+
+	private SqlTemplate cache(TemplateTable table, long mask, long order, long variant, SqlTemplate template) {
+		SqlTemplate result = table.put(mask, order, variant, template);
+		if (result == template) {
+			size.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * @return A bitmask with bit i set if columns[i] has a non-null value in the bean.
+	 */
+	private static long mask(ColumnMetadata[] columns, Object bean) {
+		long mask = 0;
+		for (int i = 0; i < columns.length; i++) {
+			if (!columns[i].isNull(bean)) {
+				mask |= 1L << i;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @return The columns selected by the given bitmask.
+	 */
+	private static ColumnMetadata[] select(ColumnMetadata[] columns, long mask) {
+		ColumnMetadata[] result = new ColumnMetadata[Long.bitCount(mask)];
+		int j = 0;
+		for (int i = 0; i < columns.length; i++) {
+			if ((mask & (1L << i)) != 0) {
+				result[j++] = columns[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The columns of the bean that are not null.
+	 */
+	private static ColumnMetadata[] filters(ColumnMetadata[] columns, Object bean) {
+		List<ColumnMetadata> filters = new ArrayList<ColumnMetadata>(columns.length);
+		for (ColumnMetadata column : columns) {
+			if (!column.isNull(bean)) {
+				filters.add(column);
+			}
+		}
+		return filters.toArray(new ColumnMetadata[filters.size()]);
+	}
+
+	/**
+	 * Encodes a sequence of columns as 7-bit (index + 1) chunks.
+	 * 
+	 * @return The encoded sequence, or -1 if it can't be encoded (too many columns, or a column
+	 *         that isn't one of the bean's mapped columns).
+	 */
+	private static long encode(EntityMetadata<?> metadata, ColumnMetadata[] columns) {
+		if (columns.length > 9) {
+			return -1;
+		}
+		long result = 0;
+		for (ColumnMetadata column : columns) {
+			int index = metadata.getIndex(column);
+			if (index < 0 || index >= 127) {
+				return -1;
+			}
+			result = (result << 7) | (index + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Encodes a single column, as per {@link #encode(EntityMetadata, ColumnMetadata[])}.
+	 * 
+	 * @return The encoded column, or -1 if it can't be encoded.
+	 */
+	private static long encode(EntityMetadata<?> metadata, ColumnMetadata column) {
+		int index = metadata.getIndex(column);
+		if (index < 0 || index >= 127) {
+			return -1;
+		}
+		return index + 1;
+	}
+
+	/**
+	 * Encodes a projection as a bitmask of the bean's columns. A projection of every column is
+	 * encoded as zero, the same as no projection, since the SQL is the same.
+	 * 
+	 * @return The bitmask, or -1 if it can't be encoded (a column that isn't one of the bean's
+	 *         mapped columns).
+	 */
+	private static long project(EntityMetadata<?> metadata, ColumnMetadata[] columns) {
+		long result = 0;
+		for (ColumnMetadata column : columns) {
+			int index = metadata.getIndex(column);
+			if (index < 0 || index >= Long.SIZE) {
+				return -1;
+			}
+			result |= 1L << index;
+		}
+		return Long.bitCount(result) == metadata.getAll().length ? 0 : result;
+	}
+
+	private static ColumnMetadata[] concat(ColumnMetadata[] first, ColumnMetadata[] second) {
+		if (second.length == 0) {
+			return first;
+		}
+		ColumnMetadata[] result = new ColumnMetadata[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	/**
+	 * The template tables of each bean class, one per {@link Operation}.
+	 */
+	private static final class ClassTemplates extends ClassValue<TemplateTable[]> {
+
+		@Override
+		protected TemplateTable[] computeValue(Class<?> type) {
+			TemplateTable[] result = new TemplateTable[Operation.values().length];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = new TemplateTable();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The templates for one operation on one bean class, keyed by the bitmask of populated columns,
+	 * the encoded order-by (or max, min or aggregated) columns and a variant of the operation: the
+	 * bitmask of projected columns for a list (zero for all columns), the aggregate function, or
+	 * the dialect and options of an exists, a first row, a page or a limited list.
+	 * <p>
+	 * This is a chained hash table on the three key values, so lookups don't need a key object.
+	 * Entries are immutable and are published by the volatile write of the table in
+	 * {@link #put(long, long, long, SqlTemplate)}, so {@link #get(long, long, long)} doesn't lock.
+	 * A lookup that misses a concurrent put simply builds the SQL and calls put, which returns the
+	 * template that got there first.
+	 */
+	private static final class TemplateTable {
+
+		private volatile Entry[] table = new Entry[8];
+		private int size;
+
+		SqlTemplate get(long mask, long order, long variant) {
+			Entry[] table = this.table;
+			for (Entry entry = table[index(mask, order, variant, table.length)]; entry != null; entry = entry.next) {
+				if (entry.mask == mask && entry.order == order && entry.variant == variant) {
+					return entry.template;
+				}
+			}
+			return null;
+		}
+
+		synchronized SqlTemplate put(long mask, long order, long variant, SqlTemplate template) {
+
+			SqlTemplate existing = get(mask, order, variant);
+			if (existing != null) {
+				return existing;
+			}
+
+			Entry[] table = this.table;
+			if (size >= table.length - (table.length >>> 2)) {
+				table = resize(table);
+			}
+			int index = index(mask, order, variant, table.length);
+			table[index] = new Entry(mask, order, variant, template, table[index]);
+			size++;
+			this.table = table;
+			return template;
+		}
+
+		private static Entry[] resize(Entry[] table) {
+			Entry[] result = new Entry[table.length * 2];
+			for (Entry head : table) {
+				for (Entry entry = head; entry != null; entry = entry.next) {
+					int index = index(entry.mask, entry.order, entry.variant, result.length);
+					result[index] = new Entry(entry.mask, entry.order, entry.variant, entry.template, result[index]);
+				}
+			}
+			return result;
+		}
+
+		private static int index(long mask, long order, long variant, int length) {
+			long hash = (mask * 31 + order) * 31 + variant;
+			hash *= 0x9E3779B97F4A7C15L;
+			return (int) (hash >>> 40) & (length - 1);
+		}
+	}
+
+	private static final class Entry {
+
+		private final long mask;
+		private final long order;
+		private final long variant;
+		private final SqlTemplate template;
+		private final Entry next;
+
+		Entry(long mask, long order, long variant, SqlTemplate template, Entry next) {
+			this.mask = mask;
+			this.order = order;
+			this.variant = variant;
+			this.template = template;
+			this.next = next;
+		}
+	}
+}
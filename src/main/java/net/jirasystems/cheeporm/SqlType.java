@@ -155,6 +155,16 @@ public enum SqlType {
 		result.put(java.sql.Time.class, TIME);
 		result.put(java.sql.Timestamp.class, TIMESTAMP);
 
+		// Primitive fields map to the same types as their wrappers:
+		result.put(boolean.class, BIT);
+		result.put(byte.class, TINYINT);
+		result.put(short.class, SMALLINT);
+		result.put(int.class, INTEGER);
+		result.put(long.class, BIGINT);
+		result.put(float.class, REAL);
+		result.put(double.class, DOUBLE);
+		result.put(char.class, CHAR);
+
 		toSqlMap = result;
 	}
 }
@@ -0,0 +1,222 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.dbutils.DbUtils;
+
+/**
+ * A least-recently-used cache of {@link PreparedStatement}s for a single {@link Connection}, keyed
+ * by SQL string and the generated-keys flag. This saves the database re-parsing identical SQL on
+ * every {@link Orm} call.
+ * <p>
+ * Statements are checked out while in use, so a statement is never handed to two callers at once.
+ * When a statement is returned with {@link #checkin(PreparedStatement)} its parameters, any
+ * batch that was left unexecuted (e.g. because an error occurred while it was being built) and any
+ * max rows (e.g. a limit for a database without a known {@link Dialect}) are cleared, and it
+ * becomes available again. Statements evicted to keep the cache within its maximum
+ * size are closed.
+ * <p>
+ * See {@link Jdbc#setStatementCacheSize(int)}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class StatementCache {
+
+	private final Connection connection;
+	private final int maxSize;
+
+	// Idle statements, in access order:
+	private final LinkedHashMap<Key, PreparedStatement> idle;
+
+	// Statements that have been checked out:
+	private final Map<PreparedStatement, Key> inUse = new IdentityHashMap<PreparedStatement, Key>();
+
+	private long hits;
+	private long misses;
+	private boolean closed;
+
+	/**
+	 * @param connection
+	 *            The connection that statements in this cache belong to.
+	 * @param maxSize
+	 *            The maximum number of idle statements to keep.
+	 */
+	public StatementCache(Connection connection, final int maxSize) {
+		this.connection = connection;
+		this.maxSize = maxSize;
+		idle = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+				if (size() > maxSize) {
+					DbUtils.closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Checks out an idle statement for the given SQL, if there is one.
+	 * 
+	 * @param sql
+	 *            The SQL.
+	 * @param returnGeneratedKeys
+	 *            Whether the statement was prepared to return generated keys.
+	 * @return A cached statement, or null if there isn't one. In that case, the caller should
+	 *         prepare a new statement and pass it to {@link #checkout(PreparedStatement, String, boolean)}.
+	 * @throws SQLException
+	 *             If the state of a cached statement can't be checked.
+	 */
+	public synchronized PreparedStatement checkout(String sql, boolean returnGeneratedKeys) throws SQLException {
+
+		if (closed) {
+			return null;
+		}
+		Key key = new Key(sql, returnGeneratedKeys);
+		PreparedStatement result = idle.remove(key);
+		if (result != null && result.isClosed()) {
+			result = null;
+		}
+		if (result == null) {
+			misses++;
+		} else {
+			hits++;
+			inUse.put(result, key);
+		}
+		return result;
+	}
+
+	/**
+	 * Registers a newly prepared statement as checked out, so it will be cached when it's checked
+	 * in.
+	 * 
+	 * @param preparedStatement
+	 *            The new statement.
+	 * @param sql
+	 *            The SQL it was prepared from.
+	 * @param returnGeneratedKeys
+	 *            Whether it was prepared to return generated keys.
+	 */
+	public synchronized void checkout(PreparedStatement preparedStatement, String sql, boolean returnGeneratedKeys) {
+		if (!closed) {
+			inUse.put(preparedStatement, new Key(sql, returnGeneratedKeys));
+		}
+	}
+
+	/**
+	 * Returns a statement to the cache, clearing its parameters, any pending batch and its max rows.
+	 * 
+	 * @param preparedStatement
+	 *            A statement that was checked out of this cache.
+	 * @return true if the statement now belongs to the cache (or has been closed by it), false if
+	 *         the statement didn't come from this cache, in which case the caller should close it.
+	 */
+	public synchronized boolean checkin(PreparedStatement preparedStatement) {
+
+		Key key = inUse.remove(preparedStatement);
+		if (key == null) {
+			return false;
+		}
+
+		try {
+			if (closed || preparedStatement.isClosed() || idle.containsKey(key)) {
+				// The cache is closed, or this is a duplicate of an idle statement:
+				preparedStatement.close();
+			} else {
+				preparedStatement.clearParameters();
+				preparedStatement.clearBatch();
+				preparedStatement.setMaxRows(0);
+				idle.put(key, preparedStatement);
+			}
+		} catch (SQLException e) {
+			DbUtils.closeQuietly(preparedStatement);
+		}
+		return true;
+	}
+
+	/**
+	 * Closes all idle statements. Statements that are checked out will be closed when they are
+	 * checked in.
+	 */
+	public synchronized void close() {
+		closed = true;
+		for (PreparedStatement preparedStatement : idle.values()) {
+			DbUtils.closeQuietly(preparedStatement);
+		}
+		idle.clear();
+	}
+
+	/**
+	 * @return The connection that statements in this cache belong to.
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * @return The maximum number of idle statements kept.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return The number of idle statements currently cached.
+	 */
+	public synchronized int size() {
+		return idle.size();
+	}
+
+	/**
+	 * @return The number of times a cached statement was reused.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return The number of times a statement had to be prepared.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Cache key: the SQL string plus the generated-keys flag.
+	 */
+	private static final class Key {
+
+		private final String sql;
+		private final boolean returnGeneratedKeys;
+		private final int hashCode;
+
+		Key(String sql, boolean returnGeneratedKeys) {
+			this.sql = sql;
+			this.returnGeneratedKeys = returnGeneratedKeys;
+			hashCode = sql.hashCode() * 31 + (returnGeneratedKeys ? 1 : 0);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return returnGeneratedKeys == other.returnGeneratedKeys && sql.equals(other.sql);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.dbutils.DbUtils;
+
+/**
+ * Closes the statements of iterators that become unreachable without being closed, and logs them
+ * as leaks. This takes the place of <code>finalize()</code>, which delays the collection of every
+ * instance that declares it, whether or not it has been closed.
+ * <p>
+ * Each iterator registers a {@link PhantomReference} to itself, holding only its statement. When
+ * the iterator is closed normally the reference is cleared, so it costs the garbage collector
+ * nothing further. If the iterator is collected first, a daemon thread receives the reference,
+ * logs a warning and closes the statement. This is the mechanism behind
+ * <code>java.lang.ref.Cleaner</code>, implemented directly because that class (like
+ * <code>Reference.reachabilityFence</code>) only exists from Java 9 and this library targets Java
+ * 8.
+ * <p>
+ * An owner can become unreachable while one of its own methods is still running, once that method
+ * no longer reads any of its fields, which would let the statement be closed under a call that is
+ * still using it. Owners therefore call {@link #keepAlive(Object)} at the end of each method that
+ * uses the statement.
+ * <p>
+ * In leak detection mode (see {@link #setLeakDetection(boolean)}, or the system property
+ * <code>cheeporm.leakDetection=true</code>) the stack trace of each registration is recorded and
+ * logged with the warning, showing where the leaked iterator was created. This costs a stack walk
+ * per iterator, so it is off by default.
+ * 
+ * @author David Carboni
+ * 
+ */
+final class StatementCleaner {
+
+	private static final Logger logger = Logger.getLogger(StatementCleaner.class.getName());
+	private static final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+	// Keeps registered references reachable until they are cleaned or enqueued:
+	private static final Set<Cleanable> registered = Collections
+			.newSetFromMap(new ConcurrentHashMap<Cleanable, Boolean>());
+
+	private static volatile boolean leakDetection = Boolean.getBoolean("cheeporm.leakDetection");
+
+	// Reference.reachabilityFence(Object), or null on Java 8:
+	private static final MethodHandle reachabilityFence = findReachabilityFence();
+
+	static {
+		Thread reaper = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				reap();
+			}
+		}, "cheep-orm-statement-cleaner");
+		reaper.setDaemon(true);
+		reaper.start();
+	}
+
+	/**
+	 * No need to instantiate.
+	 */
+	private StatementCleaner() {
+		// No need to instantiate.
+	}
+
+	/**
+	 * The registration of a single owner. Must not refer to the owner, otherwise it would never
+	 * become unreachable.
+	 */
+	static final class Cleanable extends PhantomReference<Object> {
+
+		private final Statement statement;
+		private final String owner;
+		private final Throwable allocationSite;
+
+		Cleanable(Object owner, Statement statement) {
+			super(owner, queue);
+			this.statement = statement;
+			this.owner = owner.getClass().getSimpleName();
+			allocationSite = leakDetection ? new Throwable(this.owner + " created here") : null;
+		}
+
+		/**
+		 * Closes the statement, if this is the first call, and deregisters.
+		 */
+		void clean() {
+			if (registered.remove(this)) {
+				clear();
+				DbUtils.closeQuietly(statement);
+			}
+		}
+
+		/**
+		 * Called on the reaper thread when the owner has been collected without being closed.
+		 */
+		void leaked() {
+			if (registered.remove(this)) {
+				if (allocationSite != null) {
+					logger.log(Level.WARNING, owner + " was not closed. Closing its statement now.", allocationSite);
+				} else {
+					logger.warning(owner + " was not closed. Closing its statement now."
+							+ " Enable leak detection to log where it was created.");
+				}
+				DbUtils.closeQuietly(statement);
+			}
+		}
+	}
+
+	/**
+	 * Registers an owner (typically an iterator) whose statement should be closed if the owner is
+	 * collected without being closed.
+	 * 
+	 * @param owner
+	 *            The owner of the statement.
+	 * @param statement
+	 *            The statement to be closed.
+	 * @return A {@link Cleanable}, whose {@link Cleanable#clean()} method the owner calls to close
+	 *         the statement.
+	 */
+	static Cleanable register(Object owner, Statement statement) {
+		Cleanable cleanable = new Cleanable(owner, statement);
+		registered.add(cleanable);
+		return cleanable;
+	}
+
+	/**
+	 * Keeps the given owner reachable up to this call, so that it can't be cleaned while a method
+	 * that ends with this call is still using its statement. This is
+	 * <code>Reference.reachabilityFence</code> where it exists. On Java 8 an empty
+	 * <code>synchronized</code> block on the owner does the same job, since the owner must still be
+	 * reachable in order to lock it.
+	 * 
+	 * @param owner
+	 *            The owner of a statement.
+	 */
+	static void keepAlive(Object owner) {
+		if (reachabilityFence != null) {
+			try {
+				reachabilityFence.invokeExact(owner);
+			} catch (Throwable e) {
+				throw new IllegalStateException("Error calling reachabilityFence", e);
+			}
+		} else {
+			synchronized (owner) {
+				// Nothing to do: the lock is the fence.
+			}
+		}
+	}
+
+	private static MethodHandle findReachabilityFence() {
+		try {
+			return MethodHandles.publicLookup().findStatic(Reference.class, "reachabilityFence",
+					MethodType.methodType(void.class, Object.class));
+		} catch (NoSuchMethodException e) {
+			// Java 8
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static void reap() {
+		while (true) {
+			try {
+				((Cleanable) queue.remove()).leaked();
+			} catch (InterruptedException e) {
+				// Keep going: this is a daemon thread.
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Error closing a leaked statement", e);
+			}
+		}
+	}
+
+	/**
+	 * @return true if allocation sites are being recorded.
+	 */
+	static boolean isLeakDetection() {
+		return leakDetection;
+	}
+
+	/**
+	 * @param leakDetection
+	 *            true to record the allocation site of each iterator created from now on.
+	 */
+	static void setLeakDetection(boolean leakDetection) {
+		StatementCleaner.leakDetection = leakDetection;
+	}
+}
@@ -58,7 +58,7 @@ public class FieldDefinition {
 		definition = column.columnDefinition();
 		name = column.name();
 		length = column.length();
-		nullable = column.nullable() || isKey;
+		nullable = (column.nullable() || isKey) && !field.getType().isPrimitive();
 		unique = column.unique();
 		precision = column.precision();
 		scale = column.scale();
@@ -145,10 +145,7 @@ public class FieldDefinition {
 			} else {
 				throw new IllegalArgumentException("Field of type "
 						+ field.getType()
-						+ " could not be mapped to a SQL type. "
-						+ "Note that primitives are not supported, "
-						+ "you must use primitive wrappers (e.g. Integer) "
-						+ "for the declared field type.");
+						+ " could not be mapped to a SQL type.");
 			}
 		}
 
@@ -0,0 +1,73 @@
+package net.jirasystems.cheeporm;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link BatchResult}.
+ *
+ * @author David Carboni
+ *
+ */
+public class BatchResultTest {
+
+	private List<String> beans = Arrays.asList("a", "b", "c", "d");
+
+	/**
+	 * Verifies that beans are reported according to their update counts.
+	 */
+	@Test
+	public void shouldReportUnexpectedCounts() {
+
+		// Given
+		int[] updateCounts = { 1, 0, 2, Statement.SUCCESS_NO_INFO };
+
+		// When
+		BatchResult<String> result = new BatchResult<String>(beans, updateCounts);
+
+		// Then
+		Assert.assertEquals(Arrays.asList("b"), result.getMissed());
+		Assert.assertEquals(Arrays.asList("c"), result.getMultiple());
+		Assert.assertEquals(3, result.getTotal());
+		Assert.assertFalse(result.isExact());
+	}
+
+	/**
+	 * Verifies that a batch in which every bean affected one row is exact.
+	 */
+	@Test
+	public void shouldBeExact() {
+
+		// Given
+		int[] updateCounts = { 1, 1, 1, 1 };
+
+		// When
+		BatchResult<String> result = new BatchResult<String>(beans, updateCounts);
+
+		// Then
+		Assert.assertTrue(result.isExact());
+		Assert.assertTrue(result.getMissed().isEmpty());
+		Assert.assertEquals(4, result.getTotal());
+	}
+
+	/**
+	 * Verifies that the update counts can't be changed through the result.
+	 */
+	@Test
+	public void shouldCopyUpdateCounts() {
+
+		// Given
+		BatchResult<String> result = new BatchResult<String>(beans, new int[] { 1, 1, 1, 1 });
+
+		// When
+		result.getUpdateCounts()[0] = 0;
+
+		// Then
+		Assert.assertEquals(1, result.getUpdateCount(0));
+	}
+}
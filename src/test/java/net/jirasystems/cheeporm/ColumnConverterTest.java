@@ -0,0 +1,228 @@
+package net.jirasystems.cheeporm;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.beans.BeanEnumeration;
+import net.jirasystems.cheeporm.beans.BeanPrimitives;
+import net.jirasystems.cheeporm.beans.ExampleBean;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ColumnConverter}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class ColumnConverterTest {
+
+	/**
+	 * Verifies that an Integer column is read with {@link ResultSet#getInt(int)}, not
+	 * {@link ResultSet#getObject(int)}.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadTyped() throws SQLException, NoSuchFieldException {
+
+		// Given
+		ColumnMetadata column = EntityMetadata.of(ExampleBean.class).getColumn(
+				ExampleBean.class.getDeclaredField("id"));
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(3))).thenReturn(Integer.valueOf(7));
+
+		// When
+		Object value = column.read(resultSet, 3);
+
+		// Then
+		Assert.assertEquals(Integer.valueOf(7), value);
+		verify(resultSet, never()).getObject(3);
+	}
+
+	/**
+	 * Verifies that SQL NULL is read as null, rather than the primitive default.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadNull() throws SQLException, NoSuchFieldException {
+
+		// Given
+		ColumnMetadata column = EntityMetadata.of(ExampleBean.class).getColumn(
+				ExampleBean.class.getDeclaredField("doubleValue"));
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Boolean.valueOf(resultSet.wasNull())).thenReturn(Boolean.TRUE);
+
+		// When
+		Object value = column.read(resultSet, 1);
+
+		// Then
+		Assert.assertNull(value);
+	}
+
+	/**
+	 * Verifies that SQL NULL read into a primitive field sets it to zero.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadNullAsZero() throws SQLException, NoSuchFieldException {
+
+		// Given
+		ColumnMetadata column = EntityMetadata.of(BeanPrimitives.class).getColumn(
+				BeanPrimitives.class.getDeclaredField("intValue"));
+		BeanPrimitives bean = new BeanPrimitives();
+		bean.setIntValue(5);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Boolean.valueOf(resultSet.wasNull())).thenReturn(Boolean.TRUE);
+
+		// When
+		column.setValue(bean, column.read(resultSet, 1));
+
+		// Then
+		Assert.assertEquals(0, bean.getIntValue());
+	}
+
+	/**
+	 * Verifies that primitive fields are read straight from the typed getters into the bean, and
+	 * that SQL NULL sets them to zero.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadIntoPrimitive() throws SQLException, NoSuchFieldException {
+
+		// Given
+		EntityMetadata<BeanPrimitives> metadata = EntityMetadata.of(BeanPrimitives.class);
+		ColumnMetadata intValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("intValue"));
+		ColumnMetadata doubleValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("doubleValue"));
+		ColumnMetadata charValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("charValue"));
+		BeanPrimitives bean = new BeanPrimitives();
+		bean.setDoubleValue(5);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(1))).thenReturn(Integer.valueOf(7));
+		when(resultSet.getString(3)).thenReturn("xyz");
+
+		// When
+		intValue.readInto(resultSet, 1, bean);
+		doubleValue.readInto(resultSet, 2, bean);
+		charValue.readInto(resultSet, 3, bean);
+
+		// Then
+		Assert.assertEquals(7, bean.getIntValue());
+		Assert.assertEquals(0.0, bean.getDoubleValue(), 0);
+		Assert.assertEquals('x', bean.getCharValue());
+		verify(resultSet).getDouble(2);
+		verify(resultSet, never()).getObject(org.mockito.Matchers.anyInt());
+		verify(resultSet, never()).wasNull();
+	}
+
+	/**
+	 * Verifies that primitive fields are bound straight from the bean with the typed setters.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldBindFromPrimitive() throws SQLException, NoSuchFieldException {
+
+		// Given
+		EntityMetadata<BeanPrimitives> metadata = EntityMetadata.of(BeanPrimitives.class);
+		ColumnMetadata longValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("longValue"));
+		ColumnMetadata booleanValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("booleanValue"));
+		ColumnMetadata charValue = metadata.getColumn(BeanPrimitives.class.getDeclaredField("charValue"));
+		BeanPrimitives bean = new BeanPrimitives();
+		bean.setLongValue(9L);
+		bean.setBooleanValue(true);
+		bean.setCharValue('c');
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+		// When
+		longValue.bindFrom(preparedStatement, 1, bean);
+		booleanValue.bindFrom(preparedStatement, 2, bean);
+		charValue.bindFrom(preparedStatement, 3, bean);
+
+		// Then
+		verify(preparedStatement).setLong(1, 9L);
+		verify(preparedStatement).setBoolean(2, true);
+		verify(preparedStatement).setString(3, "c");
+	}
+
+	/**
+	 * Verifies that an enum is read from its String value.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadEnum() throws SQLException, NoSuchFieldException {
+
+		// Given
+		ColumnMetadata column = EntityMetadata.of(BeanEnumeration.class).getColumn(
+				BeanEnumeration.class.getDeclaredField("enumeration"));
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.getString(1)).thenReturn("b");
+
+		// When
+		Object value = column.read(resultSet, 1);
+
+		// Then
+		Assert.assertEquals(BeanEnumeration.Enumeration.b, value);
+	}
+
+	/**
+	 * Verifies that values are bound with the typed setter, and nulls with the mapped SQL type.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldBindTyped() throws SQLException, NoSuchFieldException {
+
+		// Given
+		EntityMetadata<ExampleBean> metadata = EntityMetadata.of(ExampleBean.class);
+		ColumnMetadata id = metadata.getColumn(ExampleBean.class.getDeclaredField("id"));
+		ColumnMetadata name = metadata.getColumn(ExampleBean.class.getDeclaredField("name"));
+		ColumnMetadata selection = metadata.getColumn(ExampleBean.class.getDeclaredField("selection"));
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+		// When
+		id.bind(preparedStatement, 1, Integer.valueOf(5));
+		name.bind(preparedStatement, 2, "name");
+		selection.bind(preparedStatement, 3, ExampleBean.Select.values()[0]);
+		name.bind(preparedStatement, 4, null);
+
+		// Then
+		verify(preparedStatement).setInt(1, 5);
+		verify(preparedStatement).setString(2, "name");
+		verify(preparedStatement).setString(3, ExampleBean.Select.values()[0].toString());
+		verify(preparedStatement).setNull(4, Types.NVARCHAR);
+	}
+}
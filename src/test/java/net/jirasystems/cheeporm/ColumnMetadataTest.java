@@ -0,0 +1,116 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.reflect.Field;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.beans.BeanEnumeration;
+import net.jirasystems.cheeporm.beans.ExampleBean;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ColumnMetadata}.
+ *
+ * @author David Carboni
+ *
+ */
+public class ColumnMetadataTest {
+
+	private EntityMetadata<ExampleBean> metadata = EntityMetadata.of(ExampleBean.class);
+
+	/**
+	 * Verifies that a private field can be read.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldGetValue() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		bean.setName("name");
+		ColumnMetadata column = metadata.getColumn(ExampleBean.class.getDeclaredField("name"));
+
+		// When
+		Object value = column.getValue(bean);
+
+		// Then
+		Assert.assertEquals("name", value);
+	}
+
+	/**
+	 * Verifies that a private field can be written, without changing the accessible flag of the
+	 * shared {@link Field}.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldSetValue() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		ColumnMetadata column = metadata.getColumn(ExampleBean.class.getDeclaredField("name"));
+
+		// When
+		column.setValue(bean, "name");
+
+		// Then
+		Assert.assertEquals("name", bean.getName());
+		Assert.assertFalse(column.getField().isAccessible());
+	}
+
+	/**
+	 * Verifies that a value of the wrong type is rejected.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectWrongType() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		ColumnMetadata column = metadata.getColumn(ExampleBean.class.getDeclaredField("name"));
+
+		// When
+		column.setValue(bean, Integer.valueOf(1));
+
+		// Then
+		// Expected exception: IllegalArgumentException
+	}
+
+	/**
+	 * Verifies that an enum is converted from its String value.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldConvertEnum() throws NoSuchFieldException {
+
+		// Given
+		ColumnMetadata column = EntityMetadata.of(BeanEnumeration.class).getColumn(
+				BeanEnumeration.class.getDeclaredField("enumeration"));
+
+		// When
+		Object value = column.fromResult("b");
+
+		// Then
+		Assert.assertEquals(BeanEnumeration.Enumeration.b, value);
+	}
+
+	/**
+	 * Verifies that {@link EntityMetadata#newInstance()} creates a new bean.
+	 */
+	@Test
+	public void shouldCreateInstance() {
+
+		// When
+		ExampleBean bean = metadata.newInstance();
+
+		// Then
+		Assert.assertNotNull(bean);
+	}
+}
@@ -0,0 +1,69 @@
+package net.jirasystems.cheeporm;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link Dialect}.
+ *
+ * @author David Carboni
+ *
+ */
+public class DialectTest {
+
+	/**
+	 * Verifies that common databases are recognised from their product name.
+	 */
+	@Test
+	public void shouldRecogniseProducts() {
+
+		// When
+		Dialect mysql = Dialect.forProduct("MySQL", 8);
+		Dialect mariadb = Dialect.forProduct("MariaDB", 11);
+		Dialect postgres = Dialect.forProduct("PostgreSQL", 16);
+		Dialect hsql = Dialect.forProduct("HSQL Database Engine", 2);
+		Dialect sqlServer = Dialect.forProduct("Microsoft SQL Server", 16);
+		Dialect sqlServer2008 = Dialect.forProduct("Microsoft SQL Server", 10);
+		Dialect oracle = Dialect.forProduct("Oracle", 19);
+		Dialect oracle11 = Dialect.forProduct("Oracle", 11);
+		Dialect derby = Dialect.forProduct("Apache Derby", 10);
+
+		// Then
+		Assert.assertEquals(Dialect.LIMIT, mysql);
+		Assert.assertEquals(Dialect.LIMIT, mariadb);
+		Assert.assertEquals(Dialect.LIMIT, postgres);
+		Assert.assertEquals(Dialect.LIMIT, hsql);
+		Assert.assertEquals(Dialect.FETCH, sqlServer);
+		Assert.assertEquals(Dialect.TOP, sqlServer2008);
+		Assert.assertEquals(Dialect.FETCH, oracle);
+		Assert.assertNull(oracle11);
+		Assert.assertEquals(Dialect.FETCH, derby);
+	}
+
+	/**
+	 * Verifies that an unknown database has no dialect.
+	 */
+	@Test
+	public void shouldNotRecogniseUnknownProduct() {
+
+		// When
+		Dialect dialect = Dialect.forProduct("Unknown", 1);
+
+		// Then
+		Assert.assertNull(dialect);
+		Assert.assertNull(Dialect.forProduct(null, 0));
+	}
+
+	/**
+	 * Verifies that only TOP puts the limit before the other parameters.
+	 */
+	@Test
+	public void shouldPutTopLimitFirst() {
+
+		// Then
+		Assert.assertTrue(Dialect.TOP.isLimitFirst());
+		Assert.assertFalse(Dialect.LIMIT.isLimitFirst());
+		Assert.assertFalse(Dialect.FETCH.isLimitFirst());
+	}
+}
@@ -0,0 +1,135 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.beans.BeanInsertable;
+import net.jirasystems.cheeporm.beans.BeanMultipleId;
+import net.jirasystems.cheeporm.beans.BeanWithTableName;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link EntityMetadata}.
+ *
+ * @author David Carboni
+ *
+ */
+public class EntityMetadataTest {
+
+	private Reflection reflection = new Reflection();
+
+	/**
+	 * Verifies that metadata is built once and then shared.
+	 */
+	@Test
+	public void shouldCacheMetadataPerClass() {
+
+		// When
+		EntityMetadata<BeanMultipleId> first = EntityMetadata.of(BeanMultipleId.class);
+		EntityMetadata<BeanMultipleId> second = EntityMetadata.of(new BeanMultipleId());
+
+		// Then
+		Assert.assertSame(first, second);
+		Assert.assertEquals(BeanMultipleId.class, first.getBeanClass());
+	}
+
+	/**
+	 * Verifies that the table name matches {@link Reflection#getTable(Class)}.
+	 */
+	@Test
+	public void shouldHaveTableName() {
+
+		// Given
+		String expected = reflection.getTable(BeanWithTableName.class);
+
+		// When
+		EntityMetadata<BeanWithTableName> metadata = EntityMetadata.of(BeanWithTableName.class);
+
+		// Then
+		Assert.assertEquals(expected, metadata.getTable());
+	}
+
+	/**
+	 * Verifies that the column sets match the equivalent {@link Reflection} lists, in the same
+	 * order, with precomputed column names.
+	 */
+	@Test
+	public void shouldMatchReflectionLists() {
+
+		// Given
+		BeanMultipleId bean = new BeanMultipleId();
+
+		// When
+		EntityMetadata<BeanMultipleId> metadata = EntityMetadata.of(BeanMultipleId.class);
+
+		// Then
+		assertColumns(reflection.listAll(bean), metadata.getAll());
+		assertColumns(reflection.listKeys(bean), metadata.getKeys());
+		assertColumns(reflection.listFields(bean), metadata.getFields());
+		assertColumns(reflection.listInsertKeys(bean), metadata.getInsertKeys());
+		assertColumns(reflection.listInsertFields(bean), metadata.getInsertFields());
+		assertColumns(reflection.listUpdateFields(bean), metadata.getUpdateFields());
+	}
+
+	/**
+	 * Verifies that non-insertable columns are excluded from the insert set.
+	 */
+	@Test
+	public void shouldExcludeNonInsertable() {
+
+		// Given
+		BeanInsertable bean = new BeanInsertable();
+
+		// When
+		EntityMetadata<BeanInsertable> metadata = EntityMetadata.of(BeanInsertable.class);
+
+		// Then
+		assertColumns(reflection.listInsertFields(bean), metadata.getInsertFields());
+		Assert.assertEquals(metadata.getFields().length - 1, metadata.getInsertFields().length);
+	}
+
+	/**
+	 * Verifies that a field that isn't a mapped column is rejected.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectUnmappedField() throws NoSuchFieldException {
+
+		// Given
+		Field field = EntityMetadataTest.class.getDeclaredField("reflection");
+
+		// When
+		EntityMetadata.of(BeanMultipleId.class).getColumn(field);
+
+		// Then
+		// Expected exception: IllegalArgumentException
+	}
+
+	/**
+	 * Verifies that the default row mapper maps all columns.
+	 */
+	@Test
+	public void shouldProvideRowMapper() {
+
+		// When
+		EntityMetadata<BeanMultipleId> metadata = EntityMetadata.of(BeanMultipleId.class);
+		RowMapper<BeanMultipleId> rowMapper = metadata.getRowMapper();
+
+		// Then
+		Assert.assertTrue(rowMapper instanceof ReflectionRowMapper);
+		Assert.assertSame(metadata.getAll(), rowMapper.getColumns());
+		Assert.assertSame(rowMapper, metadata.getRowMapper());
+	}
+
+	private void assertColumns(List<Field> expected, ColumnMetadata[] actual) {
+		Assert.assertEquals(expected.size(), actual.length);
+		for (int i = 0; i < actual.length; i++) {
+			Assert.assertEquals(expected.get(i), actual[i].getField());
+			Assert.assertEquals(reflection.getColumnName(expected.get(i)), actual[i].getName());
+		}
+	}
+}
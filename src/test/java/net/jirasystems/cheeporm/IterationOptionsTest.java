@@ -0,0 +1,72 @@
+package net.jirasystems.cheeporm;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link IterationOptions}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class IterationOptionsTest {
+
+	/**
+	 * Verifies that the defaults leave the driver settings alone, with a forward-only, read-only
+	 * cursor.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldDefaultToDriverSettings() throws SQLException {
+
+		// Given
+		IterationOptions options = new IterationOptions();
+		Statement statement = mock(Statement.class);
+
+		// When
+		options.apply(statement);
+
+		// Then
+		Assert.assertEquals(ResultSet.TYPE_FORWARD_ONLY, options.getResultSetType());
+		Assert.assertEquals(ResultSet.CONCUR_READ_ONLY, options.getResultSetConcurrency());
+		verify(statement, never()).setFetchSize(anyInt());
+		verify(statement, never()).setMaxRows(anyInt());
+	}
+
+	/**
+	 * Verifies that the fetch size and max rows are applied.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldApplySettings() throws SQLException {
+
+		// Given
+		IterationOptions options = new IterationOptions();
+		options.setFetchSize(IterationOptions.STREAMING);
+		options.setMaxRows(10);
+		options.setForwardOnly(false);
+		Statement statement = mock(Statement.class);
+
+		// When
+		options.apply(statement);
+
+		// Then
+		Assert.assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, options.getResultSetType());
+		verify(statement).setFetchSize(Integer.MIN_VALUE);
+		verify(statement).setMaxRows(10);
+	}
+}
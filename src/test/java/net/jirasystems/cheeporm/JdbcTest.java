@@ -0,0 +1,129 @@
+package net.jirasystems.cheeporm;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for column index resolution and result set handling in {@link Jdbc}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class JdbcTest {
+
+	/**
+	 * Verifies that indexes are taken straight from the metadata when the columns are in order.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldFindColumnsInOrder() throws SQLException {
+
+		// Given
+		ResultSet resultSet = resultSet("ID", "name", "description");
+
+		// When
+		int[] indexes = Jdbc.findColumns(resultSet, new String[] { "id", "name" });
+
+		// Then
+		Assert.assertEquals(1, indexes[0]);
+		Assert.assertEquals(2, indexes[1]);
+		verify(resultSet, never()).findColumn(anyString());
+	}
+
+	/**
+	 * Verifies that indexes are looked up from the metadata labels when the columns are not in
+	 * order, with the first of any duplicate labels winning.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldFindColumnsOutOfOrder() throws SQLException {
+
+		// Given
+		ResultSet resultSet = resultSet("description", "NAME", "id", "name");
+
+		// When
+		int[] indexes = Jdbc.findColumns(resultSet, new String[] { "id", "name", "description" });
+
+		// Then
+		Assert.assertEquals(3, indexes[0]);
+		Assert.assertEquals(2, indexes[1]);
+		Assert.assertEquals(1, indexes[2]);
+		verify(resultSet, never()).findColumn(anyString());
+	}
+
+	/**
+	 * Verifies that names not found in the metadata fall back to
+	 * {@link ResultSet#findColumn(String)}.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldFallBackToFindColumn() throws SQLException {
+
+		// Given
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.findColumn("id"))).thenReturn(Integer.valueOf(4));
+
+		// When
+		int[] indexes = Jdbc.findColumns(resultSet, new String[] { "id" });
+
+		// Then
+		Assert.assertEquals(4, indexes[0]);
+	}
+
+	/**
+	 * Verifies that the {@link ResultSet} is closed once the rows have been mapped, including when
+	 * the rows run out while skipping, so that a cached statement doesn't keep it open.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldCloseResultSetAfterSelect() throws SQLException {
+
+		// Given
+		Jdbc jdbc = new Jdbc(mock(Connection.class));
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+		ResultSet resultSet = resultSet("id");
+		when(preparedStatement.getResultSet()).thenReturn(resultSet);
+		RowMapper<BeanTable> rowMapper = EntityMetadata.of(BeanTable.class).getRowMapper();
+
+		// When
+		jdbc.selectMany(preparedStatement, rowMapper);
+		jdbc.selectMany(preparedStatement, rowMapper, 2);
+		jdbc.selectOne(preparedStatement, rowMapper);
+
+		// Then
+		verify(resultSet, times(3)).close();
+	}
+
+	private static ResultSet resultSet(String... labels) throws SQLException {
+		ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+		when(Integer.valueOf(metaData.getColumnCount())).thenReturn(Integer.valueOf(labels.length));
+		for (int i = 0; i < labels.length; i++) {
+			when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+		}
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.getMetaData()).thenReturn(metaData);
+		return resultSet;
+	}
+}
@@ -0,0 +1,55 @@
+package net.jirasystems.cheeporm;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link Limit}.
+ *
+ * @author David Carboni
+ *
+ */
+public class LimitTest {
+
+	/**
+	 * Verifies that the end of the limit is capped, rather than overflowing.
+	 */
+	@Test
+	public void shouldCapEnd() {
+
+		// When
+		Limit limit = Limit.of(10, 5);
+		Limit large = Limit.of(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+		// Then
+		Assert.assertEquals(15, limit.getEnd());
+		Assert.assertEquals(Integer.MAX_VALUE, large.getEnd());
+	}
+
+	/**
+	 * Verifies that an empty limit is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectZeroLimit() {
+
+		// When
+		Limit.of(0);
+
+		// Then
+		// Expected exception: IllegalArgumentException
+	}
+
+	/**
+	 * Verifies that a negative offset is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNegativeOffset() {
+
+		// When
+		Limit.of(-1, 1);
+
+		// Then
+		// Expected exception: IllegalArgumentException
+	}
+}
@@ -3,8 +3,10 @@ package net.jirasystems.cheeporm;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -13,6 +15,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import javax.persistence.Column;
 import javax.persistence.Id;
@@ -55,7 +65,6 @@ public class OrmIteratorTest {
 		@Column
 		private Integer id;
 
-		@SuppressWarnings("unused")
 		@Column
 		private String name;
 	}
@@ -180,4 +189,130 @@ public class OrmIteratorTest {
 		verify(preparedStatement).close();
 	}
 
+	/**
+	 * Verifies that flyweight mode refills the same instance on each row, and that
+	 * {@link OrmIterator#forEach(java.util.function.Consumer)} closes the iterator.
+	 * 
+	 * @throws SQLException
+	 *             if an error occurs.
+	 */
+	@Test
+	public void shouldRefillFlyweight() throws SQLException {
+
+		// Given
+		when(resultSet.getString(0)).thenReturn("first", "second");
+		final Bean flyweight = new Bean();
+		final List<String> names = new ArrayList<String>();
+		ormIterator.setFlyweight(flyweight);
+
+		// When
+		ormIterator.forEach(new Consumer<Bean>() {
+			@Override
+			public void accept(Bean bean) {
+				assertSame(flyweight, bean);
+				names.add(bean.name);
+			}
+		});
+
+		// Then
+		assertEquals(Arrays.asList("first", "second"), names);
+		verify(preparedStatement, atLeastOnce()).close();
+	}
+
+	/**
+	 * Verifies that the statement of an iterator that is garbage collected without being closed is
+	 * closed, and that the leak is logged with the allocation site when leak detection is on.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	@Test
+	public void shouldCloseLeakedIterator() throws Exception {
+
+		// Given
+		final List<LogRecord> records = new CopyOnWriteArrayList<LogRecord>();
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				if (record.getThrown() != null) {
+					records.add(record);
+				}
+			}
+
+			@Override
+			public void flush() {
+				// Nothing to flush
+			}
+
+			@Override
+			public void close() {
+				// Nothing to close
+			}
+		};
+		Logger logger = Logger.getLogger(StatementCleaner.class.getName());
+		logger.addHandler(handler);
+		OrmIterator.setLeakDetection(true);
+		try {
+			ormIterator = null;
+			leakIterator();
+
+			// When
+			for (int i = 0; i < 100 && records.isEmpty(); i++) {
+				System.gc();
+				Thread.sleep(50);
+			}
+
+		} finally {
+			OrmIterator.setLeakDetection(false);
+			logger.removeHandler(handler);
+		}
+
+		// Then
+		assertEquals(1, records.size());
+		boolean allocationSite = false;
+		for (StackTraceElement element : records.get(0).getThrown().getStackTrace()) {
+			allocationSite |= "leakIterator".equals(element.getMethodName());
+		}
+		assertTrue(allocationSite);
+		verify(preparedStatement, atLeastOnce()).close();
+	}
+
+	private void leakIterator() throws SQLException {
+		new OrmIterator<Bean>(preparedStatement, reflection.listAll(Bean.class), bean).hasNext();
+	}
+
+	/**
+	 * Verifies that a stream over the iterator produces every row.
+	 */
+	@Test
+	public void shouldStreamRows() {
+
+		// When
+		long count = OrmSpliterator.stream(ormIterator).count();
+
+		// Then
+		assertEquals(result_set_size, count);
+	}
+
+	/**
+	 * Verifies that closing a stream that hasn't been read to the end closes the
+	 * {@link PreparedStatement}.
+	 * 
+	 * @throws SQLException
+	 *             if an error occurs.
+	 */
+	@Test
+	public void shouldCloseStream() throws SQLException {
+
+		// Given
+		Stream<Bean> stream = OrmSpliterator.stream(ormIterator);
+		stream.iterator().next();
+
+		// When
+		stream.close();
+
+		// Then 
+		verify(preparedStatement).close();
+	}
+
 }
@@ -3,10 +3,23 @@
  */
 package net.jirasystems.cheeporm;
 
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import junit.framework.Assert;
 import net.jirasystems.cheeporm.beans.Beans;
@@ -259,6 +272,385 @@ public class OrmTest {
 		Assert.assertEquals(count, results.size());
 	}
 
+	/**
+	 * Test method for {@link Orm#list(Object, Projection, Field...)}: only the projected fields
+	 * are read.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testListProjection() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("proj", 3);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Field name = ExampleBean.class.getDeclaredField("name");
+
+		// When
+		List<ExampleBean> results = orm.list(example, Projection.of(name), name);
+
+		// Then
+		Assert.assertEquals(3, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			Assert.assertEquals("proj" + i, results.get(i).getName());
+			Assert.assertNull(results.get(i).getId());
+			Assert.assertNull(results.get(i).getDescription());
+			Assert.assertNull(results.get(i).getSelection());
+		}
+	}
+
+	/**
+	 * Test method for {@link Orm#count(Object)}.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testCount() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		createBeans("count", 4);
+		ExampleBean all = new ExampleBean();
+		ExampleBean one = new ExampleBean();
+		one.setName("count2");
+		ExampleBean none = new ExampleBean();
+		none.setName("none");
+
+		// When
+		long countAll = orm.count(all);
+		long countOne = orm.count(one);
+		long countNone = orm.count(none);
+
+		// Then
+		Assert.assertEquals(4, countAll);
+		Assert.assertEquals(1, countOne);
+		Assert.assertEquals(0, countNone);
+	}
+
+	/**
+	 * Test method for {@link Orm#exists(Object)}, with and without a dialect.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testExists() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		createBeans("exists", 3);
+		ExampleBean found = new ExampleBean();
+		found.setSelection(ExampleBean.Select.b);
+		ExampleBean notFound = new ExampleBean();
+		notFound.setSelection(ExampleBean.Select.c);
+
+		for (Dialect dialect : new Dialect[] { Dialect.LIMIT, Dialect.FETCH, null }) {
+			orm.setDialect(dialect);
+
+			// When
+			boolean exists = orm.exists(found);
+			boolean notExists = orm.exists(notFound);
+
+			// Then
+			Assert.assertTrue(String.valueOf(dialect), exists);
+			Assert.assertFalse(String.valueOf(dialect), notExists);
+		}
+		Assert.assertEquals(3, orm.list(found).size());
+	}
+
+	/**
+	 * Test method for {@link Orm#getMax(Object, Field)} and {@link Orm#getMin(Object, Field)}, with
+	 * and without a dialect.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testGetMaxMin() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("max", 4);
+		Field name = ExampleBean.class.getDeclaredField("name");
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		ExampleBean none = new ExampleBean();
+		none.setSelection(ExampleBean.Select.c);
+
+		for (Dialect dialect : new Dialect[] { Dialect.LIMIT, Dialect.FETCH, null }) {
+			orm.setDialect(dialect);
+
+			// When
+			ExampleBean max = orm.getMax(example, name);
+			ExampleBean min = orm.getMin(example, name);
+			ExampleBean missing = orm.getMax(none, name);
+
+			// Then
+			Assert.assertEquals(String.valueOf(dialect), "max3", max.getName());
+			Assert.assertEquals(String.valueOf(dialect), "max0", min.getName());
+			Assert.assertNull(String.valueOf(dialect), missing);
+		}
+	}
+
+	/**
+	 * Test method for {@link Orm#aggregate(Object, Aggregate, Field)}.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testAggregate() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("agg", 4);
+		Field name = ExampleBean.class.getDeclaredField("name");
+		Field id2 = ExampleBean.class.getDeclaredField("id2");
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		ExampleBean none = new ExampleBean();
+		none.setSelection(ExampleBean.Select.c);
+
+		// When
+		Object count = orm.aggregate(example, Aggregate.COUNT, name);
+		Object max = orm.aggregate(example, Aggregate.MAX, name);
+		Object min = orm.aggregate(example, Aggregate.MIN, name);
+		Object sum = orm.aggregate(example, Aggregate.SUM, id2);
+		Object countNone = orm.aggregate(none, Aggregate.COUNT, name);
+		Object maxNone = orm.aggregate(none, Aggregate.MAX, name);
+
+		// Then
+		Assert.assertEquals(Long.valueOf(4), count);
+		Assert.assertEquals("agg3", max);
+		Assert.assertEquals("agg0", min);
+		Assert.assertEquals(0, new BigDecimal(4 * example.getId2().intValue()).compareTo((BigDecimal) sum));
+		Assert.assertEquals(Long.valueOf(0), countNone);
+		Assert.assertNull(maxNone);
+	}
+
+	/**
+	 * Test method for {@link Orm#list(Object, Limit, Field...)},
+	 * {@link Orm#iterate(Object, Limit, Field...)} and {@link Orm#stream(Object, Limit, Field...)},
+	 * with each dialect the test database supports, and with no dialect.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testListLimit() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("limit", 6);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Field name = ExampleBean.class.getDeclaredField("name");
+		List<String> first = Arrays.asList("limit0", "limit1");
+		List<String> offset = Arrays.asList("limit3", "limit4");
+
+		for (Dialect dialect : new Dialect[] { Dialect.LIMIT, Dialect.FETCH, null }) {
+			orm.setDialect(dialect);
+
+			// When
+			List<ExampleBean> listed = orm.list(example, Limit.of(2), name);
+			List<ExampleBean> iterated = new ArrayList<ExampleBean>();
+			OrmIterator<ExampleBean> iterator = orm.iterate(example, Limit.of(3, 2), name);
+			while (iterator.hasNext()) {
+				iterated.add(iterator.next());
+			}
+			List<ExampleBean> streamed;
+			Stream<ExampleBean> stream = orm.stream(example, Limit.of(3, 2), name);
+			try {
+				streamed = stream.collect(Collectors.<ExampleBean> toList());
+			} finally {
+				stream.close();
+			}
+
+			// Then
+			Assert.assertEquals(String.valueOf(dialect), first, names(listed));
+			Assert.assertEquals(String.valueOf(dialect), offset, names(iterated));
+			Assert.assertEquals(String.valueOf(dialect), offset, names(streamed));
+		}
+		Assert.assertEquals(6, orm.list(example).size());
+	}
+
+	/**
+	 * Test method for {@link Orm#list(Object, Limit, Field...)} and
+	 * {@link Orm#iterate(Object, Limit, Field...)} with a null limit, which returns all the rows.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testListNullLimit() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("all", 3);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Field name = ExampleBean.class.getDeclaredField("name");
+
+		// When
+		List<ExampleBean> listed = orm.list(example, (Limit) null, name);
+		List<String> iterated = iterateNames(example, null, name);
+
+		// Then
+		List<String> expected = Arrays.asList("all0", "all1", "all2");
+		Assert.assertEquals(expected, names(listed));
+		Assert.assertEquals(expected, iterated);
+	}
+
+	/**
+	 * Test method for {@link Orm#iterate(Object, Limit, Field...)} with no dialect: the limit and
+	 * {@link IterationOptions#setMaxRows(int)} are both capped with
+	 * {@link java.sql.Statement#setMaxRows(int)}, so the lower of the two applies.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testIterateLimitMaxRows() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("cap", 6);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Field name = ExampleBean.class.getDeclaredField("name");
+		orm.setDialect(null);
+
+		// When
+		orm.getIterationOptions().setMaxRows(4);
+		List<String> options = iterateNames(example, Limit.of(3, 2), name);
+		orm.getIterationOptions().setMaxRows(10);
+		List<String> limit = iterateNames(example, Limit.of(3, 2), name);
+
+		// Then
+		Assert.assertEquals(Arrays.asList("cap3"), options);
+		Assert.assertEquals(Arrays.asList("cap3", "cap4"), limit);
+	}
+
+	private List<String> iterateNames(ExampleBean example, Limit limit, Field... orderBy) throws SQLException {
+		List<String> names = new ArrayList<String>();
+		OrmIterator<ExampleBean> iterator = orm.iterate(example, limit, orderBy);
+		while (iterator.hasNext()) {
+			names.add(iterator.next().getName());
+		}
+		return names;
+	}
+
+	private static List<String> names(List<ExampleBean> beans) {
+		List<String> names = new ArrayList<String>();
+		for (ExampleBean bean : beans) {
+			names.add(bean.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Test method for {@link Orm#page(Object, Field[], Object[], int)}: reading every page returns
+	 * every row once, in order, with the limit in the SQL, with a row-value comparison, or with
+	 * {@link java.sql.Statement#setMaxRows(int)} if there is no dialect.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testPage() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("page", 7);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Field[] orderBy = { ExampleBean.class.getDeclaredField("name"), ExampleBean.class.getDeclaredField("id") };
+
+		// When
+		Assert.assertEquals(Dialect.LIMIT, orm.getDialect());
+		List<String> limited = pageNames(example, orderBy);
+		orm.setRowValueComparison(true);
+		List<String> rowValues = pageNames(example, orderBy);
+		orm.setDialect(null);
+		List<String> maxRows = pageNames(example, orderBy);
+
+		// Then
+		List<String> expected = Arrays.asList("page0", "page1", "page2", "page3", "page4", "page5", "page6");
+		Assert.assertEquals(expected, limited);
+		Assert.assertEquals(expected, rowValues);
+		Assert.assertEquals(expected, maxRows);
+		Assert.assertEquals(7, orm.list(example).size());
+	}
+
+	private List<String> pageNames(ExampleBean example, Field[] orderBy) throws SQLException {
+		List<String> names = new ArrayList<String>();
+		Object[] afterKey = null;
+		int pages = 0;
+		do {
+			Page<ExampleBean> page = orm.page(example, orderBy, afterKey, 3);
+			Assert.assertTrue(page.getItems().size() <= 3);
+			for (ExampleBean bean : page.getItems()) {
+				names.add(bean.getName());
+			}
+			afterKey = page.getNextKey();
+			pages++;
+		} while (afterKey != null);
+		Assert.assertEquals(3, pages);
+		return names;
+	}
+
 	/**
 	 * Test method for
 	 * {@link net.jirasystems.cheeporm.Orm#iterate(Object, java.lang.reflect.Field...)} .
@@ -298,4 +690,549 @@ public class OrmTest {
 		Assert.assertEquals(count, size);
 	}
 
+	/**
+	 * Verifies that {@link Orm#forEach(Object, java.util.function.Consumer, java.lang.reflect.Field...)}
+	 * passes every row, in order, through a single refilled instance.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testForEach() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("each", 4);
+		final List<String> names = new ArrayList<String>();
+		final Set<ExampleBean> instances = Collections.newSetFromMap(new IdentityHashMap<ExampleBean, Boolean>());
+
+		// When
+		orm.forEach(new ExampleBean(), new Consumer<ExampleBean>() {
+			@Override
+			public void accept(ExampleBean bean) {
+				names.add(bean.getName());
+				instances.add(bean);
+			}
+		}, ExampleBean.class.getDeclaredField("name"));
+
+		// Then
+		Assert.assertEquals(Arrays.asList("each0", "each1", "each2", "each3"), names);
+		Assert.assertEquals(1, instances.size());
+	}
+
+	/**
+	 * Verifies that rows can be iterated with read-ahead.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testIteratePrefetched() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		createBeans("prefetch", 10);
+
+		// When
+		int size = 0;
+		PrefetchingOrmIterator<ExampleBean> iterator = orm.iteratePrefetched(new ExampleBean(), 3);
+		try {
+			while (iterator.hasNext()) {
+				if (iterator.next().getName().startsWith("prefetch")) {
+					size++;
+				}
+			}
+		} finally {
+			iterator.close();
+		}
+
+		// Then
+		Assert.assertEquals(10, size);
+		Assert.assertEquals(10, orm.list(new ExampleBean()).size());
+	}
+
+	/**
+	 * Verifies that rows can be streamed, filtered and ordered.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testStream() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("stream", 5);
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		orm.setFetchSize(2);
+
+		// When
+		List<String> names;
+		Stream<ExampleBean> stream = orm.stream(example, ExampleBean.class.getDeclaredField("name"));
+		try {
+			names = stream.skip(1).map(new Function<ExampleBean, String>() {
+				@Override
+				public String apply(ExampleBean bean) {
+					return bean.getName();
+				}
+			}).collect(Collectors.<String> toList());
+		} finally {
+			stream.close();
+		}
+
+		// Then
+		Assert.assertEquals(Arrays.asList("stream1", "stream2", "stream3", "stream4"), names);
+	}
+
+	/**
+	 * Regression test for iterating a large table: with {@link IterationOptions#STREAMING} the
+	 * driver must not buffer the whole result, so the heap used part-way through the iteration
+	 * stays well below the size of the result.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testIterateHeapBounded() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		// Roughly 40,000 x 200 chars, which is well over 16Mb once buffered as Strings:
+		final int count = 40000;
+		char[] padding = new char[190];
+		Arrays.fill(padding, 'x');
+		List<ExampleBean> beans = new ArrayList<ExampleBean>();
+		for (int i = 0; i < count; i++) {
+			ExampleBean bean = newBean();
+			bean.setName("heap" + i);
+			bean.setDescription(i + new String(padding));
+			bean.setSelection(ExampleBean.Select.c);
+			beans.add(bean);
+		}
+		orm.setMultiRowInsert(true);
+		orm.createAll(beans, 1000);
+		beans = null;
+		orm.setFetchSize(IterationOptions.STREAMING);
+		long before = usedHeap();
+
+		// When
+		long during = 0;
+		int size = 0;
+		OrmIterator<ExampleBean> iterator = orm.iterate(new ExampleBean());
+		try {
+			while (iterator.hasNext()) {
+				iterator.next();
+				if (++size == count / 2) {
+					during = usedHeap();
+				}
+			}
+		} finally {
+			iterator.close();
+		}
+
+		// Then
+		Assert.assertEquals(count, size);
+		long growth = during - before;
+		Assert.assertTrue("Heap grew by " + growth + " bytes while iterating", growth < 4 * 1024 * 1024);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Verifies that statements are reused when the statement cache is enabled.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testStatementCache() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		orm.getJdbc().setStatementCacheSize(10);
+		bean = newBean();
+		bean.setName("testCache");
+		bean.setSelection(ExampleBean.Select.a);
+		bean.setId(Integer.valueOf(orm.create(bean)));
+		readBack = newBean();
+		readBack.setId(bean.getId());
+
+		// When
+		orm.read(readBack);
+		readBack = orm.read(readBack);
+		List<ExampleBean> list = orm.list(readBack);
+
+		// Then
+		Beans.compareBeans(bean, readBack);
+		Assert.assertEquals(1, list.size());
+		StatementCache statementCache = orm.getJdbc().getStatementCache();
+		Assert.assertEquals(1, statementCache.getHits());
+		Assert.assertEquals(3, statementCache.getMisses());
+	}
+
+	/**
+	 * Verifies that a batch left unexecuted, because an error occurred while it was being built, is
+	 * not run when its cached statement is reused.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws NoSuchFieldException
+	 *             {@link NoSuchFieldException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testStatementCacheFailedBatch() throws SQLException, NoSuchFieldException, InstantiationException,
+			IllegalAccessException {
+
+		// Given
+		createBeans("batch", 2);
+		Jdbc jdbc = orm.getJdbc();
+		jdbc.setStatementCacheSize(10);
+		EntityMetadata<ExampleBean> metadata = EntityMetadata.of(type);
+		String name = metadata.getColumn(type.getDeclaredField("name")).getName();
+		String description = metadata.getColumn(type.getDeclaredField("description")).getName();
+		String sql = "update " + metadata.getTable() + " set " + description + "=? where " + name + "=?";
+		PreparedStatement failed = jdbc.newPreparedStatement(sql);
+		try {
+			failed.setString(1, "stale");
+			failed.setString(2, "batch0");
+			failed.addBatch();
+			// Fail while adding the second row:
+			failed.setString(3, "invalid");
+			Assert.fail("Expected an invalid parameter index to be rejected");
+		} catch (SQLException e) {
+			// Expected
+		} finally {
+			jdbc.release(failed);
+		}
+
+		// When
+		PreparedStatement reused = jdbc.newPreparedStatement(sql);
+		int[] counts;
+		try {
+			reused.setString(1, "fresh");
+			reused.setString(2, "batch1");
+			reused.addBatch();
+			counts = jdbc.executeBatch(reused);
+		} finally {
+			jdbc.release(reused);
+		}
+
+		// Then
+		Assert.assertSame(failed, reused);
+		Assert.assertEquals(1, counts.length);
+		Assert.assertEquals(1, counts[0]);
+		ExampleBean example = new ExampleBean();
+		example.setName("batch0");
+		Assert.assertNull(orm.list(example).get(0).getDescription());
+		example.setName("batch1");
+		Assert.assertEquals("fresh", orm.list(example).get(0).getDescription());
+	}
+
+	/**
+	 * Verifies that {@link Orm#createAll(Iterable, int)} inserts all beans, across batches and
+	 * insert shapes, and writes generated keys back.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testCreateAll() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = new ArrayList<ExampleBean>();
+		for (int i = 0; i < 4; i++) {
+			ExampleBean bean = newBean();
+			bean.setName("batch" + i);
+			bean.setSelection(ExampleBean.Select.b);
+			beans.add(bean);
+		}
+		final int explicitId = 1000;
+		beans.get(2).setId(Integer.valueOf(explicitId));
+
+		// When
+		BatchResult<ExampleBean> result = orm.createAll(beans, 2);
+
+		// Then
+		Assert.assertEquals(4, result.size());
+		Assert.assertEquals(4, result.getTotal());
+		Assert.assertEquals(Integer.valueOf(explicitId), beans.get(2).getId());
+		for (int i = 0; i < beans.size(); i++) {
+			Assert.assertEquals(1, result.getUpdateCount(i));
+			Assert.assertNotNull(beans.get(i).getId());
+			readBack = newBean();
+			readBack.setId(beans.get(i).getId());
+			Beans.compareBeans(beans.get(i), orm.read(readBack));
+		}
+	}
+
+	/**
+	 * Verifies that {@link Orm#createAll(Iterable, int)} can send multi-row inserts, split to stay
+	 * under the placeholder limit, and writes generated keys back in order.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testCreateAllMultiRow() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = new ArrayList<ExampleBean>();
+		for (int i = 0; i < 5; i++) {
+			ExampleBean bean = newBean();
+			bean.setName("multi" + i);
+			bean.setSelection(ExampleBean.Select.a);
+			beans.add(bean);
+		}
+		orm.setMultiRowInsert(true);
+		// The test database allocates consecutive keys:
+		orm.setMultiRowGeneratedKeys(true);
+		// Room for two rows per statement:
+		int columns = EntityMetadata.of(ExampleBean.class).getInsertFields().length + 1;
+		orm.setMaxInsertParameters(columns * 2 + 1);
+
+		// When
+		BatchResult<ExampleBean> result = orm.createAll(beans, 10);
+
+		// Then
+		Assert.assertEquals(5, result.getTotal());
+		for (int i = 0; i < beans.size(); i++) {
+			Assert.assertEquals(1, result.getUpdateCount(i));
+			readBack = newBean();
+			readBack.setId(beans.get(i).getId());
+			readBack = orm.read(readBack);
+			Assert.assertEquals("multi" + i, readBack.getName());
+		}
+	}
+
+	/**
+	 * Verifies that a multi-row insert leaves generated keys unset unless
+	 * {@link Orm#setMultiRowGeneratedKeys(boolean)} is turned on.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testCreateAllMultiRowNoKeys() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		orm.setMultiRowInsert(true);
+
+		// When
+		List<ExampleBean> beans = createBeans("nokey", 3);
+
+		// Then
+		Assert.assertFalse(orm.isMultiRowGeneratedKeys());
+		for (ExampleBean bean : beans) {
+			Assert.assertNull(bean.getId());
+		}
+		ExampleBean example = new ExampleBean();
+		example.setSelection(ExampleBean.Select.b);
+		Assert.assertEquals(3, orm.list(example).size());
+	}
+
+	/**
+	 * Verifies that {@link Orm#updateAll(Iterable)} updates all rows and reports beans that didn't
+	 * match a row, rather than failing.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testUpdateAll() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = createBeans("upd", 3);
+		for (ExampleBean bean : beans) {
+			bean.setName(bean.getName() + "x");
+		}
+		ExampleBean missing = newBean();
+		missing.setId(Integer.valueOf(-1));
+		missing.setName("missing");
+		missing.setSelection(ExampleBean.Select.a);
+		beans.add(missing);
+
+		// When
+		BatchResult<ExampleBean> result = orm.updateAll(beans, 2);
+
+		// Then
+		Assert.assertEquals(3, result.getTotal());
+		Assert.assertFalse(result.isExact());
+		Assert.assertEquals(1, result.getMissed().size());
+		Assert.assertSame(missing, result.getMissed().get(0));
+		Assert.assertTrue(result.getMultiple().isEmpty());
+		for (int i = 0; i < 3; i++) {
+			readBack = newBean();
+			readBack.setId(beans.get(i).getId());
+			Assert.assertEquals(beans.get(i).getName(), orm.read(readBack).getName());
+		}
+	}
+
+	/**
+	 * Verifies that {@link Orm#deleteAll(Iterable)} deletes all rows and reports beans that didn't
+	 * match a row, rather than failing.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testDeleteAll() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = createBeans("del", 3);
+		ExampleBean missing = newBean();
+		missing.setId(Integer.valueOf(-1));
+		beans.add(0, missing);
+
+		// When
+		BatchResult<ExampleBean> result = orm.deleteAll(beans);
+
+		// Then
+		Assert.assertEquals(3, result.getTotal());
+		Assert.assertEquals(0, result.getUpdateCount(0));
+		Assert.assertEquals(1, result.getMissed().size());
+		for (int i = 1; i < beans.size(); i++) {
+			Assert.assertEquals(1, result.getUpdateCount(i));
+			readBack = newBean();
+			readBack.setId(beans.get(i).getId());
+			Assert.assertNull(orm.read(readBack));
+		}
+	}
+
+	private List<ExampleBean> createBeans(String name, int count) throws SQLException, InstantiationException,
+			IllegalAccessException {
+		List<ExampleBean> beans = new ArrayList<ExampleBean>();
+		for (int i = 0; i < count; i++) {
+			ExampleBean bean = newBean();
+			bean.setName(name + i);
+			bean.setSelection(ExampleBean.Select.b);
+			beans.add(bean);
+		}
+		orm.createAll(beans, count);
+		return beans;
+	}
+
+	/**
+	 * Verifies that {@link Orm#deleteByIds(Class, java.util.Collection)} deletes rows with a
+	 * composite key, across several IN-list chunks, in both composite key forms.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testDeleteByIds() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = createBeans("ids", 5);
+		List<Object> ids = new ArrayList<Object>();
+		for (ExampleBean bean : beans.subList(0, 3)) {
+			ids.add(new Object[] { bean.getId(), bean.getId2() });
+		}
+		orm.setInListSize(2);
+
+		// When
+		int deleted = orm.deleteByIds(type, ids);
+		orm.setRowValueComparison(true);
+		int deletedRowValues = orm.deleteByIds(type, beans.subList(3, 5));
+
+		// Then
+		Assert.assertEquals(3, deleted);
+		Assert.assertEquals(2, deletedRowValues);
+		readBack = newBean();
+		Assert.assertEquals(0, orm.list(readBack).size());
+	}
+
+	/**
+	 * Verifies that {@link Orm#readAll(Class, java.util.Collection)} reads rows across several
+	 * IN-list chunks, and that {@link Orm#readAllInOrder(Class, List)} returns null for misses.
+	 * 
+	 * @throws SQLException
+	 *             {@link SQLException}
+	 * @throws IllegalAccessException
+	 *             {@link IllegalAccessException}
+	 * @throws InstantiationException
+	 *             {@link InstantiationException}
+	 */
+	@Test
+	public void testReadAll() throws SQLException, InstantiationException, IllegalAccessException {
+
+		// Given
+		List<ExampleBean> beans = createBeans("read", 3);
+		List<Object> ids = new ArrayList<Object>();
+		ids.add(Arrays.asList(beans.get(2).getId(), beans.get(2).getId2()));
+		ids.add(new Object[] { Integer.valueOf(-1), beans.get(0).getId2() });
+		ids.add(beans.get(0));
+		ids.add(new Object[] { beans.get(1).getId(), beans.get(1).getId2() });
+		orm.setInListSize(3);
+
+		// When
+		Map<Object, ExampleBean> read = orm.readAll(type, ids);
+		List<ExampleBean> ordered = orm.readAllInOrder(type, ids);
+
+		// Then
+		Assert.assertEquals(3, read.size());
+		for (ExampleBean bean : beans) {
+			Beans.compareBeans(bean, read.get(Arrays.asList(bean.getId(), bean.getId2())));
+		}
+		Assert.assertEquals(4, ordered.size());
+		Beans.compareBeans(beans.get(2), ordered.get(0));
+		Assert.assertNull(ordered.get(1));
+		Beans.compareBeans(beans.get(0), ordered.get(2));
+		Beans.compareBeans(beans.get(1), ordered.get(3));
+	}
 }
@@ -0,0 +1,230 @@
+package net.jirasystems.cheeporm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Test for {@link PrefetchingOrmIterator}.
+ * 
+ * @author David Carboni
+ * 
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PrefetchingOrmIteratorTest {
+
+	@Mock
+	private PreparedStatement preparedStatement;
+
+	@Mock
+	private ResultSet resultSet;
+
+	/**
+	 * Simple bean class for this test.
+	 */
+	public static class Bean {
+
+		@SuppressWarnings("unused")
+		@Id
+		@Column
+		private Integer id;
+	}
+
+	/**
+	 * Gets the {@link PreparedStatement} to return the {@link ResultSet}.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Before
+	public void setUp() throws SQLException {
+		when(preparedStatement.getResultSet()).thenReturn(resultSet);
+	}
+
+	/**
+	 * Verifies that all rows are produced, through a queue smaller than the result, and that the
+	 * statement is closed at the end.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldIterateAllRows() throws SQLException {
+
+		// Given
+		when(Boolean.valueOf(resultSet.next())).thenReturn(Boolean.TRUE, Boolean.TRUE, Boolean.TRUE, Boolean.TRUE,
+				Boolean.TRUE, Boolean.FALSE);
+		PrefetchingOrmIterator<Bean> iterator = new PrefetchingOrmIterator<Bean>(iterator(), 2);
+
+		// When
+		int count = 0;
+		while (iterator.hasNext()) {
+			assertNotNull(iterator.next());
+			count++;
+		}
+		iterator.close();
+
+		// Then
+		assertEquals(5, count);
+		verify(preparedStatement, atLeastOnce()).close();
+	}
+
+	/**
+	 * Verifies that an error reading a row reaches the caller after the rows read before it.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldPropagateError() throws SQLException {
+
+		// Given
+		SQLException error = new SQLException("Connection lost");
+		when(Boolean.valueOf(resultSet.next())).thenReturn(Boolean.TRUE).thenThrow(error);
+		PrefetchingOrmIterator<Bean> iterator = new PrefetchingOrmIterator<Bean>(iterator(), 2);
+
+		// When
+		assertNotNull(iterator.next());
+		try {
+			iterator.hasNext();
+			fail("Expected the producer error to be thrown");
+		} catch (RuntimeException e) {
+
+			// Then
+			assertEquals(error, e.getCause());
+		}
+		verify(preparedStatement, atLeastOnce()).close();
+	}
+
+	/**
+	 * Verifies that closing part-way through an endless result stops the producer and closes the
+	 * statement.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test(timeout = 10000)
+	public void shouldCancelOnClose() throws SQLException {
+
+		// Given
+		when(Boolean.valueOf(resultSet.next())).thenReturn(Boolean.TRUE);
+		PrefetchingOrmIterator<Bean> iterator = new PrefetchingOrmIterator<Bean>(iterator(), 2);
+		assertTrue(iterator.hasNext());
+		iterator.next();
+
+		// When
+		iterator.close();
+
+		// Then
+		assertFalse(iterator.hasNext());
+		verify(preparedStatement, atLeastOnce()).close();
+	}
+
+	/**
+	 * Verifies that closing while the producer is blocked in the driver cancels the query, so that
+	 * close doesn't wait for a slow cursor.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test(timeout = 10000)
+	public void shouldCancelBlockedProducer() throws SQLException {
+
+		// Given
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		when(Boolean.valueOf(resultSet.next())).thenReturn(Boolean.TRUE).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				blocked.countDown();
+				cancelled.await();
+				throw new SQLException("Query cancelled");
+			}
+		});
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				cancelled.countDown();
+				return null;
+			}
+		}).when(preparedStatement).cancel();
+		PrefetchingOrmIterator<Bean> iterator = new PrefetchingOrmIterator<Bean>(iterator(), 2);
+		iterator.next();
+		awaitQuietly(blocked);
+
+		// When
+		iterator.close();
+
+		// Then
+		verify(preparedStatement).cancel();
+		verify(preparedStatement, atLeastOnce()).close();
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Verifies that if the producer thread is interrupted, the consumer gets an error rather than
+	 * waiting for ever for the end of the rows.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test(timeout = 10000)
+	public void shouldEndWhenProducerInterrupted() throws SQLException {
+
+		// Given
+		when(Boolean.valueOf(resultSet.next())).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) {
+				Thread.currentThread().interrupt();
+				return Boolean.TRUE;
+			}
+		});
+		PrefetchingOrmIterator<Bean> iterator = new PrefetchingOrmIterator<Bean>(iterator(), 2);
+
+		// When
+		try {
+			iterator.hasNext();
+			fail("Expected the interruption to be reported");
+		} catch (RuntimeException e) {
+
+			// Then
+			assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		verify(preparedStatement, atLeastOnce()).close();
+		iterator.close();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private OrmIterator<Bean> iterator() throws SQLException {
+		return new OrmIterator<Bean>(preparedStatement, EntityMetadata.of(Bean.class));
+	}
+}
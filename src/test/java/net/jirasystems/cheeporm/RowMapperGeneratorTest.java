@@ -0,0 +1,271 @@
+package net.jirasystems.cheeporm;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.beans.BeanEnumeration;
+import net.jirasystems.cheeporm.beans.BeanInheritSubclass;
+import net.jirasystems.cheeporm.beans.BeanPrimitives;
+import net.jirasystems.cheeporm.beans.BeanTypes;
+import net.jirasystems.cheeporm.beans.Beans;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link RowMapperGenerator} and the generated mappers used by {@link Orm}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class RowMapperGeneratorTest {
+
+	private static Connection connection;
+	private static Orm<BeanTypes> orm;
+
+	/**
+	 * @throws Exception
+	 *             If the database setup throws any error
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Database.beforeSuite();
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database teardown throws any error
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Database.afterSuite();
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database setup throws any error
+	 */
+	@Before
+	public void setUp() throws Exception {
+		connection = Database.beforeTest(new BeanTypes());
+		orm = Orm.<BeanTypes> newInstance(connection);
+		orm.setGeneratedMappers(true);
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database teardown throws any error
+	 */
+	@After
+	public void tearDown() throws Exception {
+		Database.afterTest(connection);
+	}
+
+	/**
+	 * Verifies that a mapper class is generated, once, for a bean class.
+	 */
+	@Test
+	public void shouldGenerateMapperOnce() {
+
+		// Given
+		EntityMetadata<BeanTypes> metadata = EntityMetadata.of(BeanTypes.class);
+
+		// When
+		RowMapper<BeanTypes> first = RowMapperGenerator.forClass(metadata);
+		RowMapper<BeanTypes> second = RowMapperGenerator.forClass(metadata);
+
+		// Then
+		Assert.assertTrue(RowMapperGenerator.isGenerated(first));
+		Assert.assertSame(first, second);
+		Assert.assertSame(metadata.getAll(), first.getColumns());
+	}
+
+	/**
+	 * Verifies that enums, which are mapped through {@link ColumnMetadata}, and SQL nulls are
+	 * handled by a generated mapper.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapEnumAndNull() throws SQLException {
+
+		// Given
+		RowMapper<BeanEnumeration> mapper = RowMapperGenerator.forClass(EntityMetadata.of(BeanEnumeration.class));
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(1))).thenReturn(Integer.valueOf(0));
+		when(Boolean.valueOf(resultSet.wasNull())).thenReturn(Boolean.TRUE);
+		when(resultSet.getString(2)).thenReturn("c");
+
+		// When
+		BeanEnumeration bean = mapper.mapRow(resultSet, new int[] { 1, 2 });
+
+		// Then
+		Assert.assertTrue(RowMapperGenerator.isGenerated(mapper));
+		Assert.assertEquals(BeanEnumeration.Enumeration.c, bean.getEnumeration());
+		Assert.assertNull(EntityMetadata.of(BeanEnumeration.class).getKeys()[0].getValue(bean));
+	}
+
+	/**
+	 * Verifies that primitive fields are mapped by a generated mapper.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapPrimitives() throws SQLException {
+
+		// Given
+		EntityMetadata<BeanPrimitives> metadata = EntityMetadata.of(BeanPrimitives.class);
+		RowMapper<BeanPrimitives> mapper = RowMapperGenerator.forClass(metadata);
+		ResultSet resultSet = mock(ResultSet.class);
+		int[] indexes = new int[metadata.getAll().length];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i + 1;
+		}
+		when(Integer.valueOf(resultSet.getInt(indexOf(metadata, "int_value")))).thenReturn(Integer.valueOf(3));
+		when(Long.valueOf(resultSet.getLong(indexOf(metadata, "long_value")))).thenReturn(Long.valueOf(4));
+		when(Double.valueOf(resultSet.getDouble(indexOf(metadata, "double_value")))).thenReturn(Double.valueOf(5));
+		when(Boolean.valueOf(resultSet.getBoolean(indexOf(metadata, "boolean_value")))).thenReturn(Boolean.TRUE);
+		when(resultSet.getString(indexOf(metadata, "char_value"))).thenReturn("z");
+
+		// When
+		BeanPrimitives bean = mapper.mapRow(resultSet, indexes);
+
+		// Then
+		Assert.assertTrue(RowMapperGenerator.isGenerated(mapper));
+		Assert.assertEquals(3, bean.getIntValue());
+		Assert.assertEquals(4L, bean.getLongValue());
+		Assert.assertEquals(5D, bean.getDoubleValue(), 0D);
+		Assert.assertTrue(bean.isBooleanValue());
+		Assert.assertEquals('z', bean.getCharValue());
+		Assert.assertEquals(0, bean.getShortValue());
+	}
+
+	/**
+	 * Verifies that a generated mapper refills an existing bean, overwriting every column including
+	 * those that are null in the new row.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapIntoExistingBean() throws SQLException {
+
+		// Given
+		RowMapper<BeanEnumeration> mapper = RowMapperGenerator.forClass(EntityMetadata.of(BeanEnumeration.class));
+		BeanEnumeration bean = mapper.mapRow(row(5, "a"), new int[] { 1, 2 });
+
+		// When
+		mapper.mapInto(row(0, null), new int[] { 1, 2 }, bean);
+
+		// Then
+		Assert.assertTrue(RowMapperGenerator.isGenerated(mapper));
+		Assert.assertNull(bean.getEnumeration());
+		Assert.assertNull(EntityMetadata.of(BeanEnumeration.class).getKeys()[0].getValue(bean));
+	}
+
+	private static ResultSet row(int id, String enumeration) throws SQLException {
+		ResultSet resultSet = mock(ResultSet.class);
+		when(Integer.valueOf(resultSet.getInt(1))).thenReturn(Integer.valueOf(id));
+		when(Boolean.valueOf(resultSet.wasNull())).thenReturn(Boolean.valueOf(id == 0));
+		when(resultSet.getString(2)).thenReturn(enumeration);
+		return resultSet;
+	}
+
+	/**
+	 * Verifies that private fields inherited from a superclass are mapped.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMapInheritedFields() throws SQLException {
+
+		// Given
+		EntityMetadata<BeanInheritSubclass> metadata = EntityMetadata.of(BeanInheritSubclass.class);
+		RowMapper<BeanInheritSubclass> mapper = RowMapperGenerator.forClass(metadata);
+		ResultSet resultSet = mock(ResultSet.class);
+		int[] indexes = new int[metadata.getAll().length];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i + 1;
+			when(resultSet.getObject(i + 1)).thenReturn(metadata.getAll()[i].getName());
+			when(resultSet.getString(i + 1)).thenReturn(metadata.getAll()[i].getName());
+		}
+		when(Integer.valueOf(resultSet.getInt(indexOf(metadata, "id")))).thenReturn(Integer.valueOf(7));
+
+		// When
+		BeanInheritSubclass bean = mapper.mapRow(resultSet, indexes);
+
+		// Then
+		Assert.assertEquals(Integer.valueOf(7), bean.getId());
+		Assert.assertEquals("name", bean.getName());
+		Assert.assertEquals("description", bean.getDescription());
+	}
+
+	/**
+	 * Verifies that {@link Orm#read(Object)}, {@link Orm#list(Object, java.lang.reflect.Field...)}
+	 * and {@link Orm#iterate(Object, java.lang.reflect.Field...)} give the same results with a
+	 * generated mapper.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReadListAndIterate() throws SQLException {
+
+		// Given
+		BeanTypes bean = new BeanTypes();
+		bean.setBigDecimalValue(new BigDecimal(7));
+		bean.setBooleanValue(Boolean.TRUE);
+		bean.setShortValue(Short.valueOf((short) 2468));
+		bean.setByteValue(Byte.valueOf((byte) 64));
+		bean.setDateValue(Date.valueOf("2014-01-02"));
+		bean.setDoubleValue(Double.valueOf(234.567D));
+		bean.setFloatValue(Float.valueOf(567.890F));
+		bean.setIntegerValue(Integer.valueOf(235467));
+		bean.setLongValue(Long.valueOf(System.currentTimeMillis()));
+		bean.setStringValue("shouldReadListAndIterate");
+		bean.setTimestampValue(Timestamp.valueOf("2014-01-02 03:04:05"));
+		bean.setTimeValue(Time.valueOf("03:04:05"));
+		bean.setId(orm.create(bean));
+		BeanTypes key = new BeanTypes();
+		key.setId(bean.getId());
+
+		// When
+		BeanTypes read = orm.read(key);
+		List<BeanTypes> list = orm.list(key);
+		OrmIterator<BeanTypes> iterator = orm.iterate(key);
+
+		// Then
+		Beans.compareBeans(bean, read);
+		Assert.assertEquals(1, list.size());
+		Beans.compareBeans(bean, list.get(0));
+		Assert.assertTrue(iterator.hasNext());
+		Beans.compareBeans(bean, iterator.next());
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	private static int indexOf(EntityMetadata<?> metadata, String name) {
+		ColumnMetadata[] columns = metadata.getAll();
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].getName().equals(name)) {
+				return i + 1;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+}
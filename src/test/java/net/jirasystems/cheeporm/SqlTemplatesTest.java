@@ -0,0 +1,258 @@
+package net.jirasystems.cheeporm;
+
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.beans.ExampleBean;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link SqlTemplates}.
+ *
+ * @author David Carboni
+ *
+ */
+public class SqlTemplatesTest {
+
+	private Sql sql = new Sql();
+	private SqlTemplates templates = new SqlTemplates(sql);
+	private EntityMetadata<ExampleBean> metadata = EntityMetadata.of(ExampleBean.class);
+
+	/**
+	 * Verifies that the same filter shape gets the same template, whatever the filter values.
+	 */
+	@Test
+	public void shouldReuseTemplateForSameShape() {
+
+		// Given
+		ExampleBean first = new ExampleBean();
+		first.setName("a");
+		ExampleBean second = new ExampleBean();
+		second.setName("b");
+
+		// When
+		SqlTemplate one = templates.count(metadata, first);
+		SqlTemplate two = templates.count(metadata, second);
+
+		// Then
+		Assert.assertSame(one, two);
+	}
+
+	/**
+	 * Verifies that every filter shape gets its own template, and keeps it, as the table of
+	 * templates grows.
+	 */
+	@Test
+	public void shouldCacheManyShapes() {
+
+		// Given
+		ColumnMetadata[] all = metadata.getAll();
+		int shapes = 1 << all.length;
+		SqlTemplate[] first = new SqlTemplate[shapes];
+		Set<String> sqls = new HashSet<String>();
+
+		// When
+		for (int shape = 0; shape < shapes; shape++) {
+			first[shape] = templates.count(metadata, bean(shape));
+			sqls.add(first[shape].getSql());
+		}
+
+		// Then
+		for (int shape = 0; shape < shapes; shape++) {
+			SqlTemplate again = templates.count(metadata, bean(shape));
+			Assert.assertSame(first[shape], again);
+			Assert.assertEquals(filters(bean(shape)).length, again.getParameters().length);
+		}
+		Assert.assertEquals(shapes, sqls.size());
+		Assert.assertEquals(shapes, templates.size());
+	}
+
+	/**
+	 * Verifies that a different set of populated fields gets a different template.
+	 */
+	@Test
+	public void shouldDistinguishFilterShapes() {
+
+		// Given
+		ExampleBean first = new ExampleBean();
+		first.setName("a");
+		ExampleBean second = new ExampleBean();
+		second.setDescription("b");
+
+		// When
+		SqlTemplate one = templates.list(metadata, first, new ColumnMetadata[0]);
+		SqlTemplate two = templates.list(metadata, second, new ColumnMetadata[0]);
+
+		// Then
+		Assert.assertNotSame(one, two);
+		Assert.assertFalse(one.getSql().equals(two.getSql()));
+	}
+
+	/**
+	 * Verifies that the template matches the SQL generated directly by {@link Sql}, with the
+	 * populated columns as parameters.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldMatchSql() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		bean.setName("a");
+		ColumnMetadata[] orderBy = metadata.getColumns(ExampleBean.class.getDeclaredField("description"));
+		ColumnMetadata[] filters = filters(bean);
+
+		// When
+		SqlTemplate template = templates.list(metadata, bean, orderBy);
+
+		// Then
+		Assert.assertEquals(sql.list(metadata.getTable(), metadata.getAll(), filters, orderBy), template.getSql());
+		Assert.assertSame(metadata.getAll(), template.getColumns());
+		Assert.assertEquals(filters.length, template.getParameters().length);
+		for (int i = 0; i < filters.length; i++) {
+			Assert.assertSame(filters[i], template.getParameters()[i]);
+		}
+	}
+
+	/**
+	 * Verifies that the order-by columns are part of the key.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldDistinguishOrderBy() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		Field name = ExampleBean.class.getDeclaredField("name");
+		Field description = ExampleBean.class.getDeclaredField("description");
+
+		// When
+		SqlTemplate one = templates.list(metadata, bean, metadata.getColumns(name, description));
+		SqlTemplate two = templates.list(metadata, bean, metadata.getColumns(description, name));
+		SqlTemplate three = templates.list(metadata, bean, metadata.getColumns(name, description));
+
+		// Then
+		Assert.assertNotSame(one, two);
+		Assert.assertSame(one, three);
+		Assert.assertTrue(one.getSql().endsWith(" order by name, description"));
+	}
+
+	/**
+	 * Verifies that queries name the mapped columns, rather than selecting *.
+	 */
+	@Test
+	public void shouldSelectMappedColumns() {
+
+		// When
+		SqlTemplate select = templates.select(metadata);
+		SqlTemplate list = templates.list(metadata, new ExampleBean(), new ColumnMetadata[0]);
+
+		// Then
+		StringBuilder columns = new StringBuilder();
+		for (ColumnMetadata column : metadata.getAll()) {
+			columns.append(columns.length() == 0 ? "select " : ", ").append(column.getName());
+		}
+		String expected = columns + " from " + metadata.getTable() + " where ";
+		Assert.assertTrue(select.getSql(), select.getSql().startsWith(expected));
+		Assert.assertTrue(list.getSql(), list.getSql().startsWith(expected));
+	}
+
+	/**
+	 * Verifies that a projection selects only its columns, in mapped order, and is part of the key.
+	 *
+	 * @throws NoSuchFieldException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldSelectProjection() throws NoSuchFieldException {
+
+		// Given
+		ExampleBean bean = new ExampleBean();
+		Field name = ExampleBean.class.getDeclaredField("name");
+		Field description = ExampleBean.class.getDeclaredField("description");
+		ColumnMetadata[] orderBy = new ColumnMetadata[0];
+
+		// When
+		SqlTemplate one = templates.list(metadata, bean, orderBy, Projection.of(description, name));
+		SqlTemplate two = templates.list(metadata, bean, orderBy, Projection.of(name, description));
+		SqlTemplate all = templates.list(metadata, bean, orderBy);
+
+		// Then
+		Assert.assertTrue(one.getSql().startsWith("select name, description from " + metadata.getTable() + " "));
+		Assert.assertSame(one, two);
+		Assert.assertNotSame(one, all);
+		Assert.assertEquals(2, one.getColumns().length);
+		Assert.assertSame(metadata.getColumn(name), one.getColumns()[0]);
+	}
+
+	/**
+	 * Verifies that null insert keys are left out of the insert, and that key-based templates are
+	 * cached.
+	 */
+	@Test
+	public void shouldCacheInsertByPopulatedKeys() {
+
+		// Given
+		ExampleBean withId = new ExampleBean();
+		withId.setId(Integer.valueOf(1));
+		ExampleBean withoutId = new ExampleBean();
+
+		// When
+		SqlTemplate one = templates.insert(metadata, withId);
+		SqlTemplate two = templates.insert(metadata, withoutId);
+
+		// Then
+		Assert.assertEquals(metadata.getInsertFields().length + 2, one.getParameters().length);
+		Assert.assertEquals(metadata.getInsertFields().length + 1, two.getParameters().length);
+		Assert.assertSame(one, templates.insert(metadata, withId));
+		Assert.assertSame(templates.select(metadata), templates.select(metadata));
+	}
+
+	/**
+	 * @return A bean with the columns selected by the bits of shape set to a value and the others
+	 *         set to null.
+	 */
+	private ExampleBean bean(int shape) {
+		ExampleBean bean = new ExampleBean();
+		ColumnMetadata[] all = metadata.getAll();
+		for (int i = 0; i < all.length; i++) {
+			all[i].setValue(bean, (shape & (1 << i)) == 0 ? null : sample(all[i].getType()));
+		}
+		return bean;
+	}
+
+	private static Object sample(Class<?> type) {
+		if (type.isEnum()) {
+			return type.getEnumConstants()[0];
+		} else if (type == String.class) {
+			return "a";
+		} else if (type == Integer.class) {
+			return Integer.valueOf(1);
+		} else if (type == Double.class) {
+			return Double.valueOf(1);
+		} else if (type == Timestamp.class) {
+			return new Timestamp(0);
+		}
+		throw new IllegalArgumentException("No sample value for " + type);
+	}
+
+	private ColumnMetadata[] filters(ExampleBean bean) {
+		List<ColumnMetadata> result = new ArrayList<ColumnMetadata>();
+		for (ColumnMetadata column : metadata.getAll()) {
+			if (column.getValue(bean) != null) {
+				result.add(column);
+			}
+		}
+		return result.toArray(new ColumnMetadata[result.size()]);
+	}
+}
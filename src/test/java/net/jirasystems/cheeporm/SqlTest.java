@@ -111,6 +111,64 @@ public class SqlTest {
 		Assert.assertTrue(checkString(regex, query));
 	}
 
+	/**
+	 * Test method for
+	 * {@link net.jirasystems.cheeporm.Sql#insert(java.lang.String, ColumnMetadata[], int)}.
+	 */
+	@Test
+	public void testInsertMultiRow() {
+
+		// Given
+		ColumnMetadata[] columns = EntityMetadata.of(BeanTable.class).getColumns(fields);
+
+		// When
+		String query = sql.insert(tableName, columns, 3);
+
+		// Then
+		String regex = "insert  into  " + tableName + " ( " + name + " , " + description
+				+ " ) values ( ? , ? ) , ( ? , ? ) , ( ? , ? )";
+		Assert.assertTrue(checkString(regex, query));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#deleteIn(String, ColumnMetadata[], int, boolean)}
+	 * with a single key column.
+	 */
+	@Test
+	public void testDeleteIn() {
+
+		// Given
+		ColumnMetadata[] columns = EntityMetadata.of(BeanTable.class).getColumns(keys);
+
+		// When
+		String query = sql.deleteIn(tableName, columns, 3, false);
+
+		// Then
+		String regex = "delete  from  " + tableName + "  where  " + id + "  in ( ? , ? , ? )";
+		Assert.assertTrue(checkString(regex, query));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#inClause(ColumnMetadata[], int, boolean)}
+	 * with composite keys.
+	 */
+	@Test
+	public void testInClauseComposite() {
+
+		// Given
+		ColumnMetadata[] columns = EntityMetadata.of(BeanTable.class).getColumns(fields);
+
+		// When
+		String rowValues = sql.inClause(columns, 2, true);
+		String orOfAnds = sql.inClause(columns, 2, false);
+
+		// Then
+		Assert.assertTrue(checkString("( " + name + " , " + description + " )  in ( ( ? , ? ) , ( ? , ? ) )",
+				rowValues));
+		Assert.assertTrue(checkString("( " + name + " =? and " + description + " =? )  or  ( " + name + " =? and "
+				+ description + " =? )", orOfAnds));
+	}
+
 	/**
 	 * Test method for {@link net.jirasystems.cheeporm.Sql#select(java.lang.String, java.util.List)}
 	 * .
@@ -131,6 +189,204 @@ public class SqlTest {
 		Assert.assertTrue(checkString(regex, query));
 	}
 
+	/**
+	 * Test method for
+	 * {@link net.jirasystems.cheeporm.Sql#list(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata[])}
+	 * .
+	 */
+	@Test
+	public void testListColumns() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+
+		// When
+		String query = sql.list(tableName, metadata.getAll(), metadata.getKeys(), new ColumnMetadata[0]);
+
+		// Then
+		String regex = "select  " + id + " ,  " + name + " ,  " + description + "  from  " + tableName + "  where  "
+				+ id + " = ?";
+		Assert.assertTrue(query, checkString(regex, query));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#select(Class, List)},
+	 * {@link net.jirasystems.cheeporm.Sql#list(Class, List, List)} and
+	 * {@link net.jirasystems.cheeporm.Sql#max(Class, List, Field)}.
+	 */
+	@Test
+	public void testSelectBeanClass() {
+
+		// Given
+		String columns = "select  " + id + " ,  " + name + " ,  " + description + "  from  " + tableName;
+
+		// When
+		String select = sql.select(BeanTable.class, keys);
+		String list = sql.list(BeanTable.class, fields.subList(1, 2), fields.subList(0, 1));
+		String max = sql.max(BeanTable.class, new ArrayList<Field>(), fields.get(0));
+
+		// Then
+		Assert.assertTrue(select, checkString(columns + "  where  " + id + " = ?", select));
+		Assert.assertTrue(list, checkString(columns + "  where  " + description + " = ?  order  by  " + name,
+				list));
+		Assert.assertTrue(max, checkString(columns + "  where  " + name + " = ( select  max( " + name
+				+ " )  from  " + tableName + " )", max));
+	}
+
+	/**
+	 * Test method for
+	 * {@link net.jirasystems.cheeporm.Sql#page(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata[], boolean, boolean)}
+	 * .
+	 */
+	@Test
+	public void testPage() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+		ColumnMetadata[] filters = metadata.getColumns(fields.subList(1, 2));
+		ColumnMetadata[] orderBy = metadata.getColumns(fields.get(0), keys.get(0));
+
+		// When
+		String first = sql.page(tableName, null, filters, orderBy, false, false);
+		String orOfAnds = sql.page(tableName, null, filters, orderBy, true, false);
+		String rowValues = sql.page(tableName, null, new ColumnMetadata[0], orderBy, true, true);
+
+		// Then
+		String order = "  order  by  " + name + " ,  " + id;
+		Assert.assertTrue(first, checkString("select  *  from  " + tableName + "  where  " + description + " = ?"
+				+ order, first));
+		Assert.assertTrue(orOfAnds, checkString("where  " + description + " = ?  and  ( " + name + " > ?  or  ( "
+				+ name + " = ?  and  " + id + " > ? ) )" + order, orOfAnds));
+		Assert.assertTrue(rowValues, checkString("where  ( " + name + " , " + id + " ) > ( ? , ? )" + order,
+				rowValues));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#limit(String, Dialect)}.
+	 */
+	@Test
+	public void testLimit() {
+
+		// Given
+		String select = sql.select(tableName, new ArrayList<Field>()) + " order by " + id;
+
+		// When
+		String limit = sql.limit(select, Dialect.LIMIT);
+		String fetch = sql.limit(select, Dialect.FETCH);
+		String top = sql.limit(select, Dialect.TOP);
+		String none = sql.limit(select, null);
+
+		// Then
+		Assert.assertEquals(select + " limit ?", limit);
+		Assert.assertEquals(select + " offset 0 rows fetch next ? rows only", fetch);
+		Assert.assertTrue(top, checkString("select  top  ( ? )  *  from  " + tableName, top));
+		Assert.assertEquals(select, none);
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#limit(String, Dialect, boolean)} with
+	 * {@link Dialect#FETCH} and no ORDER BY, which SQL Server rejects: the statement is left
+	 * unchanged, to be limited with {@link java.sql.Statement#setMaxRows(int)}.
+	 */
+	@Test
+	public void testLimitFetchUnordered() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+		String exists = sql.exists(tableName, metadata.getKeys());
+
+		// When
+		String fetch = sql.limit(exists, Dialect.FETCH);
+		String offset = sql.limit(exists, Dialect.FETCH, true);
+
+		// Then
+		Assert.assertEquals(exists, fetch);
+		Assert.assertEquals(exists, offset);
+		Assert.assertNull(Dialect.forQuery(Dialect.FETCH, false));
+		Assert.assertEquals(Dialect.FETCH, Dialect.forQuery(Dialect.FETCH, true));
+		Assert.assertEquals(Dialect.LIMIT, Dialect.forQuery(Dialect.LIMIT, false));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#exists(String, ColumnMetadata[])}.
+	 */
+	@Test
+	public void testExists() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+
+		// When
+		String query = sql.limit(sql.exists(tableName, metadata.getKeys()), Dialect.LIMIT);
+
+		// Then
+		String regex = "select  1  from  " + tableName + "  where  " + id + " = ?  limit  ?";
+		Assert.assertTrue(query, checkString(regex, query));
+	}
+
+	/**
+	 * Test method for
+	 * {@link net.jirasystems.cheeporm.Sql#first(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata, boolean)}
+	 * and {@link net.jirasystems.cheeporm.Sql#max(String, ColumnMetadata[], ColumnMetadata[], ColumnMetadata)}.
+	 */
+	@Test
+	public void testFirst() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+		ColumnMetadata column = metadata.getFields()[0];
+
+		// When
+		String first = sql.limit(sql.first(tableName, null, metadata.getKeys(), column, true), Dialect.LIMIT);
+		String max = sql.max(tableName, null, new ColumnMetadata[0], column);
+
+		// Then
+		String regex = "select  *  from  " + tableName + "  where  " + id + " = ?  and  " + name
+				+ "  is  not  null  order  by  " + name + "  desc  limit  ?";
+		Assert.assertTrue(first, checkString(regex, first));
+		regex = "select  *  from  " + tableName + "  where  " + name + " = ( select  max( " + name + " )  from  "
+				+ tableName + " )";
+		Assert.assertTrue(max, checkString(regex, max));
+	}
+
+	/**
+	 * Test method for
+	 * {@link net.jirasystems.cheeporm.Sql#aggregate(String, ColumnMetadata[], ColumnMetadata, Aggregate)}.
+	 */
+	@Test
+	public void testAggregate() {
+
+		// Given
+		EntityMetadata<BeanTable> metadata = EntityMetadata.of(BeanTable.class);
+
+		// When
+		String query = sql.aggregate(tableName, metadata.getKeys(), metadata.getFields()[1], Aggregate.SUM);
+
+		// Then
+		String regex = "select  sum( " + description + " )  from  " + tableName + "  where  " + id + " = ?";
+		Assert.assertTrue(query, checkString(regex, query));
+	}
+
+	/**
+	 * Test method for {@link net.jirasystems.cheeporm.Sql#limit(String, Dialect, boolean)}.
+	 */
+	@Test
+	public void testLimitOffset() {
+
+		// Given
+		String select = sql.select(tableName, new ArrayList<Field>()) + " order by " + id;
+
+		// When
+		String limit = sql.limit(select, Dialect.LIMIT, true);
+		String fetch = sql.limit(select, Dialect.FETCH, true);
+		String top = sql.limit(select, Dialect.TOP, true);
+
+		// Then
+		Assert.assertEquals(select + " limit ? offset ?", limit);
+		Assert.assertEquals(select + " offset ? rows fetch next ? rows only", fetch);
+		Assert.assertEquals(sql.limit(select, Dialect.TOP), top);
+	}
+
 	/**
 	 * Test method for
 	 * {@link net.jirasystems.cheeporm.Sql#update(java.lang.String, java.util.List, java.util.List)}
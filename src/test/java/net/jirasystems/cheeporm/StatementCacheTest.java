@@ -0,0 +1,167 @@
+package net.jirasystems.cheeporm;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test for {@link StatementCache} and its use by {@link Jdbc}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class StatementCacheTest {
+
+	private Connection connection;
+	private Jdbc jdbc;
+
+	/**
+	 * Sets up a {@link Jdbc} with a mock {@link Connection} that prepares a new mock statement
+	 * every time.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Before
+	public void setUp() throws SQLException {
+		connection = mock(Connection.class);
+		Answer<PreparedStatement> newStatement = new Answer<PreparedStatement>() {
+			@Override
+			public PreparedStatement answer(InvocationOnMock invocation) {
+				return mock(PreparedStatement.class);
+			}
+		};
+		when(connection.prepareStatement(anyString())).thenAnswer(newStatement);
+		when(connection.prepareStatement(anyString(), org.mockito.Matchers.eq(Statement.RETURN_GENERATED_KEYS)))
+				.thenAnswer(newStatement);
+		jdbc = new Jdbc(connection);
+		jdbc.setStatementCacheSize(2);
+	}
+
+	/**
+	 * Verifies that a released statement is cleared and reused for the same SQL.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldReuseReleasedStatement() throws SQLException {
+
+		// Given
+		PreparedStatement first = jdbc.newPreparedStatement("select 1");
+		jdbc.release(first);
+
+		// When
+		PreparedStatement second = jdbc.newPreparedStatement("select 1");
+
+		// Then
+		Assert.assertSame(first, second);
+		verify(first).clearParameters();
+		verify(first).clearBatch();
+		verify(first, never()).close();
+		Assert.assertEquals(1, jdbc.getStatementCache().getHits());
+		Assert.assertEquals(1, jdbc.getStatementCache().getMisses());
+	}
+
+	/**
+	 * Verifies that the generated-keys flag is part of the key.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldKeyOnGeneratedKeys() throws SQLException {
+
+		// Given
+		PreparedStatement first = jdbc.newPreparedStatement("insert", false);
+		jdbc.release(first);
+
+		// When
+		PreparedStatement second = jdbc.newPreparedStatement("insert", true);
+
+		// Then
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(2, jdbc.getStatementCache().getMisses());
+	}
+
+	/**
+	 * Verifies that a statement isn't handed out twice while it's in use.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldNotShareStatementInUse() throws SQLException {
+
+		// When
+		PreparedStatement first = jdbc.newPreparedStatement("select 1");
+		PreparedStatement second = jdbc.newPreparedStatement("select 1");
+
+		// Then
+		Assert.assertNotSame(first, second);
+	}
+
+	/**
+	 * Verifies that the least recently used statement is closed when the cache is full.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldEvictLeastRecentlyUsed() throws SQLException {
+
+		// Given
+		PreparedStatement a = jdbc.newPreparedStatement("a");
+		PreparedStatement b = jdbc.newPreparedStatement("b");
+		PreparedStatement c = jdbc.newPreparedStatement("c");
+		jdbc.release(a);
+		jdbc.release(b);
+		jdbc.release(jdbc.newPreparedStatement("a"));
+
+		// When
+		jdbc.release(c);
+
+		// Then
+		verify(b).close();
+		verify(a, never()).close();
+		Assert.assertEquals(2, jdbc.getStatementCache().size());
+	}
+
+	/**
+	 * Verifies that statements are closed when caching is disabled.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void shouldCloseWhenDisabled() throws SQLException {
+
+		// Given
+		PreparedStatement cached = jdbc.newPreparedStatement("select 1");
+		jdbc.release(cached);
+		jdbc.setStatementCacheSize(0);
+		PreparedStatement uncached = jdbc.newPreparedStatement("select 1");
+
+		// When
+		jdbc.release(uncached);
+
+		// Then
+		verify(cached).close();
+		verify(uncached).close();
+		Assert.assertNull(jdbc.getStatementCache());
+	}
+}
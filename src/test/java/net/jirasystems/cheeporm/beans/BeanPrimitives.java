@@ -0,0 +1,178 @@
+package net.jirasystems.cheeporm.beans;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Bean with primitive fields.
+ * 
+ * @author David Carboni
+ * 
+ */
+@Table
+public class BeanPrimitives {
+
+	@Id
+	@Column
+	private Integer id;
+
+	@Column
+	private int intValue;
+
+	@Column
+	private long longValue;
+
+	@Column
+	private short shortValue;
+
+	@Column
+	private byte byteValue;
+
+	@Column
+	private double doubleValue;
+
+	@Column
+	private float floatValue;
+
+	@Column
+	private boolean booleanValue;
+
+	@Column
+	private char charValue;
+
+	/**
+	 * @return the id
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * @param id
+	 *            the id to set
+	 */
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the intValue
+	 */
+	public int getIntValue() {
+		return intValue;
+	}
+
+	/**
+	 * @param intValue
+	 *            the intValue to set
+	 */
+	public void setIntValue(int intValue) {
+		this.intValue = intValue;
+	}
+
+	/**
+	 * @return the longValue
+	 */
+	public long getLongValue() {
+		return longValue;
+	}
+
+	/**
+	 * @param longValue
+	 *            the longValue to set
+	 */
+	public void setLongValue(long longValue) {
+		this.longValue = longValue;
+	}
+
+	/**
+	 * @return the shortValue
+	 */
+	public short getShortValue() {
+		return shortValue;
+	}
+
+	/**
+	 * @param shortValue
+	 *            the shortValue to set
+	 */
+	public void setShortValue(short shortValue) {
+		this.shortValue = shortValue;
+	}
+
+	/**
+	 * @return the byteValue
+	 */
+	public byte getByteValue() {
+		return byteValue;
+	}
+
+	/**
+	 * @param byteValue
+	 *            the byteValue to set
+	 */
+	public void setByteValue(byte byteValue) {
+		this.byteValue = byteValue;
+	}
+
+	/**
+	 * @return the doubleValue
+	 */
+	public double getDoubleValue() {
+		return doubleValue;
+	}
+
+	/**
+	 * @param doubleValue
+	 *            the doubleValue to set
+	 */
+	public void setDoubleValue(double doubleValue) {
+		this.doubleValue = doubleValue;
+	}
+
+	/**
+	 * @return the floatValue
+	 */
+	public float getFloatValue() {
+		return floatValue;
+	}
+
+	/**
+	 * @param floatValue
+	 *            the floatValue to set
+	 */
+	public void setFloatValue(float floatValue) {
+		this.floatValue = floatValue;
+	}
+
+	/**
+	 * @return the booleanValue
+	 */
+	public boolean isBooleanValue() {
+		return booleanValue;
+	}
+
+	/**
+	 * @param booleanValue
+	 *            the booleanValue to set
+	 */
+	public void setBooleanValue(boolean booleanValue) {
+		this.booleanValue = booleanValue;
+	}
+
+	/**
+	 * @return the charValue
+	 */
+	public char getCharValue() {
+		return charValue;
+	}
+
+	/**
+	 * @param charValue
+	 *            the charValue to set
+	 */
+	public void setCharValue(char charValue) {
+		this.charValue = charValue;
+	}
+}
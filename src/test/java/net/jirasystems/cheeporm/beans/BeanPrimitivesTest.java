@@ -0,0 +1,134 @@
+package net.jirasystems.cheeporm.beans;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import junit.framework.Assert;
+import net.jirasystems.cheeporm.CreateTable;
+import net.jirasystems.cheeporm.Database;
+import net.jirasystems.cheeporm.Orm;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for primitive bean fields, using {@link BeanPrimitives}.
+ * 
+ * @author David Carboni
+ * 
+ */
+public class BeanPrimitivesTest {
+
+	private static Connection connection;
+	private static Orm<BeanPrimitives> orm;
+
+	/**
+	 * @throws Exception
+	 *             If the database setup throws any error
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Database.beforeSuite();
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database teardown throws any error
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Database.afterSuite();
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database setup throws any error
+	 */
+	@Before
+	public void setUp() throws Exception {
+		connection = Database.beforeTest(new BeanPrimitives());
+		orm = Orm.<BeanPrimitives> newInstance(connection);
+	}
+
+	/**
+	 * @throws Exception
+	 *             If the database teardown throws any error
+	 */
+	@After
+	public void tearDown() throws Exception {
+		Database.afterTest(connection);
+	}
+
+	/**
+	 * Verifies that primitive columns are created as not null.
+	 */
+	@Test
+	public void testCreateStatement() {
+
+		// When
+		String sql = new CreateTable().createStatement(new BeanPrimitives());
+
+		// Then
+		Assert.assertTrue(sql, sql.contains("int_value INTEGER not null"));
+		Assert.assertTrue(sql, sql.contains("char_value CHAR not null"));
+	}
+
+	/**
+	 * Verifies that primitive values are written and read back.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void testCreateRead() throws SQLException {
+
+		// Given
+		BeanPrimitives bean = newBean(1);
+
+		// When
+		bean.setId(Integer.valueOf(orm.create(bean)));
+		BeanPrimitives readBack = orm.read(bean);
+
+		// Then
+		Beans.compareBeans(bean, readBack);
+	}
+
+	/**
+	 * Verifies that primitive values are updated.
+	 * 
+	 * @throws SQLException
+	 *             Not expected.
+	 */
+	@Test
+	public void testUpdate() throws SQLException {
+
+		// Given
+		BeanPrimitives bean = newBean(1);
+		bean.setId(Integer.valueOf(orm.create(bean)));
+
+		// When
+		BeanPrimitives updated = newBean(2);
+		updated.setId(bean.getId());
+		orm.update(updated);
+		BeanPrimitives readBack = orm.read(bean);
+
+		// Then
+		Beans.compareBeans(updated, readBack);
+	}
+
+	private static BeanPrimitives newBean(int seed) {
+		BeanPrimitives bean = new BeanPrimitives();
+		bean.setIntValue(Integer.MAX_VALUE - seed);
+		bean.setLongValue(Long.MAX_VALUE - seed);
+		bean.setShortValue((short) (Short.MAX_VALUE - seed));
+		bean.setByteValue((byte) (Byte.MAX_VALUE - seed));
+		bean.setDoubleValue(1.5D * seed);
+		bean.setFloatValue(2.5F * seed);
+		bean.setBooleanValue(seed % 2 == 1);
+		bean.setCharValue((char) ('a' + seed));
+		return bean;
+	}
+}
@@ -0,0 +1,124 @@
+package net.jirasystems.cheeporm.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import net.jirasystems.cheeporm.ColumnMetadata;
+import net.jirasystems.cheeporm.EntityMetadata;
+import net.jirasystems.cheeporm.Reflection;
+import net.jirasystems.cheeporm.beans.ExampleBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading and writing every column of a bean through {@link Reflection} (which toggles
+ * {@link Field#setAccessible(boolean)} on each call) with the cached handles in
+ * {@link ColumnMetadata}.
+ * <p>
+ * Run with <code>mvn test-compile</code> and then the {@link #main(String[])} method, with the test
+ * classpath.
+ *
+ * @author David Carboni
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+	private Reflection reflection;
+	private ColumnMetadata[] columns;
+	private Field[] fields;
+	private ExampleBean bean;
+	private Object[] values;
+
+	/**
+	 * Populates a bean and captures its values.
+	 */
+	@Setup
+	public void setUp() {
+		reflection = new Reflection();
+		columns = EntityMetadata.of(ExampleBean.class).getAll();
+		fields = new Field[columns.length];
+		values = new Object[columns.length];
+		bean = new ExampleBean();
+		bean.setId(Integer.valueOf(1));
+		bean.setName("name");
+		bean.setDescription("description");
+		for (int i = 0; i < columns.length; i++) {
+			fields[i] = columns[i].getField();
+			values[i] = columns[i].getValue(bean);
+		}
+	}
+
+	/**
+	 * @return The last value read, so the reads aren't eliminated.
+	 */
+	@Benchmark
+	public Object reflectionGet() {
+		Object result = null;
+		for (Field field : fields) {
+			result = reflection.getFieldValue(field, bean);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The last value read, so the reads aren't eliminated.
+	 */
+	@Benchmark
+	public Object handleGet() {
+		Object result = null;
+		for (ColumnMetadata column : columns) {
+			result = column.getValue(bean);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The bean, so the writes aren't eliminated.
+	 */
+	@Benchmark
+	public Object reflectionSet() {
+		for (int i = 0; i < fields.length; i++) {
+			reflection.setFieldValue(fields[i], bean, values[i]);
+		}
+		return bean;
+	}
+
+	/**
+	 * @return The bean, so the writes aren't eliminated.
+	 */
+	@Benchmark
+	public Object handleSet() {
+		for (int i = 0; i < columns.length; i++) {
+			columns[i].setValue(bean, values[i]);
+		}
+		return bean;
+	}
+
+	/**
+	 * @param args
+	 *            Not used.
+	 * @throws RunnerException
+	 *             If the benchmark fails.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FieldAccessBenchmark.class.getSimpleName()).build()).run();
+	}
+}